@@ -0,0 +1,360 @@
+package com.najmi.oreamnos;
+
+import android.content.ClipData;
+import android.content.ClipboardManager;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.app.AppCompatDelegate;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.material.appbar.MaterialToolbar;
+import com.google.android.material.dialog.MaterialAlertDialogBuilder;
+import com.google.android.material.textfield.TextInputEditText;
+import com.najmi.oreamnos.data.HistoryStore;
+import com.najmi.oreamnos.data.Page;
+import com.najmi.oreamnos.model.HistoryEntry;
+import com.najmi.oreamnos.utils.PreferencesManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Activity listing past generated posts, newest first, with full-text
+ * search. Entries can be reopened in the editor, copied or deleted.
+ */
+public class HistoryActivity extends AppCompatActivity {
+
+    private static final String TAG = "HistoryActivity";
+
+    // Entries loaded per page while scrolling
+    private static final int PAGE_SIZE = 20;
+    // Wait for typing to pause before searching
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+    // Load the next page when this close to the end of the list
+    private static final int LOAD_AHEAD = 5;
+
+    private HistoryStore historyStore;
+    // Runs searches and deletes off the main thread, in order
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable searchRunnable = () -> loadPage(true);
+
+    private RecyclerView historyRecyclerView;
+    private TextView emptyHistoryText;
+    private HistoryAdapter historyAdapter;
+
+    // Paging state; a new search bumps the generation so stale pages are dropped
+    private String query = "";
+    private long nextBeforeId = 0;
+    private boolean hasMore = false;
+    private boolean loading = false;
+    private int generation = 0;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        PreferencesManager prefsManager = PreferencesManager.getInstance(this);
+        applyTheme(prefsManager.getTheme());
+
+        setContentView(R.layout.activity_history);
+        historyStore = HistoryStore.getInstance(this);
+
+        // Setup toolbar
+        MaterialToolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        toolbar.setNavigationOnClickListener(v -> finish());
+
+        initViews();
+        setupSearch();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // Posts may have been generated while we were away
+        loadPage(true);
+    }
+
+    @Override
+    protected void onDestroy() {
+        mainHandler.removeCallbacks(searchRunnable);
+        loadExecutor.shutdownNow();
+        super.onDestroy();
+    }
+
+    private void initViews() {
+        historyRecyclerView = findViewById(R.id.historyRecyclerView);
+        emptyHistoryText = findViewById(R.id.emptyHistoryText);
+
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        historyRecyclerView.setLayoutManager(layoutManager);
+        historyAdapter = new HistoryAdapter();
+        historyAdapter.setOnEntryClickListener(this::showEntryDialog);
+        historyRecyclerView.setAdapter(historyAdapter);
+
+        historyRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && hasMore && !loading
+                        && layoutManager.findLastVisibleItemPosition() >= historyAdapter.getItemCount() - LOAD_AHEAD) {
+                    loadPage(false);
+                }
+            }
+        });
+    }
+
+    private void setupSearch() {
+        TextInputEditText searchInput = findViewById(R.id.searchInput);
+        searchInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                query = s.toString();
+                mainHandler.removeCallbacks(searchRunnable);
+                mainHandler.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
+            }
+        });
+    }
+
+    // ==================== PAGING ====================
+
+    /**
+     * Loads a page of entries matching the current query.
+     *
+     * @param reset true to start again from the newest entry
+     */
+    private void loadPage(boolean reset) {
+        if (reset) {
+            generation++;
+        }
+        int requestGeneration = generation;
+        String requestQuery = query;
+        long beforeId = reset ? 0 : nextBeforeId;
+        loading = true;
+        loadExecutor.execute(() -> {
+            try {
+                Page<HistoryEntry> page = historyStore.search(requestQuery, beforeId, PAGE_SIZE);
+                runOnUiThread(() -> {
+                    if (!isDestroyed() && requestGeneration == generation) {
+                        showPage(page, reset);
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to load history", e);
+                runOnUiThread(() -> loading = false);
+            }
+        });
+    }
+
+    private void showPage(Page<HistoryEntry> page, boolean reset) {
+        nextBeforeId = page.getNextBeforeId();
+        hasMore = page.hasMore();
+        loading = false;
+        if (reset) {
+            historyAdapter.setEntries(page.getItems());
+            historyRecyclerView.scrollToPosition(0);
+        } else {
+            historyAdapter.addEntries(page.getItems());
+        }
+        updateEmptyState();
+    }
+
+    private void updateEmptyState() {
+        boolean empty = historyAdapter.getItemCount() == 0;
+        emptyHistoryText.setText(query.trim().isEmpty()
+                ? R.string.empty_history_message : R.string.history_no_matches);
+        emptyHistoryText.setVisibility(empty ? View.VISIBLE : View.GONE);
+        historyRecyclerView.setVisibility(empty ? View.GONE : View.VISIBLE);
+    }
+
+    // ==================== ENTRY ACTIONS ====================
+
+    private void showEntryDialog(HistoryEntry entry) {
+        String provider = entry.getProvider() != null ? capitalize(entry.getProvider()) : "Unknown";
+        new MaterialAlertDialogBuilder(this)
+                .setTitle(entry.getFormattedDate() + " • " + provider)
+                .setMessage(entry.getText())
+                .setPositiveButton("Open", (dialog, which) -> openInEditor(entry))
+                .setNeutralButton("Copy", (dialog, which) -> copyToClipboard(entry))
+                .setNegativeButton("Delete", (dialog, which) -> deleteEntry(entry))
+                .show();
+    }
+
+    /**
+     * Opens the entry in the main screen, where it can be edited or refined.
+     */
+    private void openInEditor(HistoryEntry entry) {
+        Intent intent = new Intent(this, MainActivity.class);
+        intent.putExtra("shared_text", entry.isRefinement() ? "" : entry.getInput());
+        intent.putExtra("generated_content", entry.getText());
+        intent.putExtra("generated_title", entry.getTitle() != null ? entry.getTitle() : "");
+        intent.putExtra("generated_body", entry.getBody() != null ? entry.getBody() : "");
+        intent.putExtra("generated_source", entry.getSource() != null ? entry.getSource() : "");
+        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        startActivity(intent);
+        finish();
+    }
+
+    private void copyToClipboard(HistoryEntry entry) {
+        ClipboardManager clipboard = (ClipboardManager) getSystemService(Context.CLIPBOARD_SERVICE);
+        clipboard.setPrimaryClip(ClipData.newPlainText("Socurate Post", entry.getText()));
+        Toast.makeText(this, R.string.copied_to_clipboard, Toast.LENGTH_SHORT).show();
+    }
+
+    private void deleteEntry(HistoryEntry entry) {
+        historyAdapter.removeEntry(entry);
+        updateEmptyState();
+        loadExecutor.execute(() -> {
+            try {
+                historyStore.delete(entry.getId());
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to delete history entry", e);
+            }
+        });
+    }
+
+    private static String capitalize(String s) {
+        if (s == null || s.isEmpty())
+            return s;
+        return s.substring(0, 1).toUpperCase() + s.substring(1);
+    }
+
+    private void applyTheme(String theme) {
+        int mode;
+        switch (theme) {
+            case PreferencesManager.THEME_LIGHT:
+                mode = AppCompatDelegate.MODE_NIGHT_NO;
+                break;
+            case PreferencesManager.THEME_DARK:
+                mode = AppCompatDelegate.MODE_NIGHT_YES;
+                break;
+            case PreferencesManager.THEME_SYSTEM:
+            default:
+                mode = AppCompatDelegate.MODE_NIGHT_FOLLOW_SYSTEM;
+                break;
+        }
+        AppCompatDelegate.setDefaultNightMode(mode);
+    }
+
+    // ==================== HISTORY ADAPTER ====================
+
+    private static class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.HistoryViewHolder> {
+
+        private final List<HistoryEntry> entries = new ArrayList<>();
+        private OnEntryClickListener listener;
+
+        interface OnEntryClickListener {
+            void onEntryClick(HistoryEntry entry);
+        }
+
+        public void setOnEntryClickListener(OnEntryClickListener listener) {
+            this.listener = listener;
+        }
+
+        public void setEntries(List<HistoryEntry> page) {
+            entries.clear();
+            entries.addAll(page);
+            notifyDataSetChanged();
+        }
+
+        public void addEntries(List<HistoryEntry> page) {
+            int start = entries.size();
+            entries.addAll(page);
+            notifyItemRangeInserted(start, page.size());
+        }
+
+        public void removeEntry(HistoryEntry entry) {
+            int index = entries.indexOf(entry);
+            if (index >= 0) {
+                entries.remove(index);
+                notifyItemRemoved(index);
+            }
+        }
+
+        @NonNull
+        @Override
+        public HistoryViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = LayoutInflater.from(parent.getContext())
+                    .inflate(R.layout.item_history_entry, parent, false);
+            return new HistoryViewHolder(view);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull HistoryViewHolder holder, int position) {
+            if (position >= entries.size())
+                return;
+
+            HistoryEntry entry = entries.get(position);
+            holder.bind(entry);
+            holder.itemView.setOnClickListener(v -> {
+                if (listener != null) {
+                    listener.onEntryClick(entry);
+                }
+            });
+        }
+
+        @Override
+        public int getItemCount() {
+            return entries.size();
+        }
+
+        static class HistoryViewHolder extends RecyclerView.ViewHolder {
+            private final TextView titleText;
+            private final TextView previewText;
+            private final TextView metaText;
+
+            HistoryViewHolder(@NonNull View itemView) {
+                super(itemView);
+                titleText = itemView.findViewById(R.id.historyTitleText);
+                previewText = itemView.findViewById(R.id.historyPreviewText);
+                metaText = itemView.findViewById(R.id.historyMetaText);
+            }
+
+            void bind(HistoryEntry entry) {
+                String title = entry.getTitle();
+                String body = entry.getBody() != null ? entry.getBody().trim() : "";
+                if (title == null || title.isEmpty()) {
+                    // Untitled posts lead with their first line instead
+                    int newline = body.indexOf('\n');
+                    title = newline > 0 ? body.substring(0, newline) : body;
+                    body = newline > 0 ? body.substring(newline + 1).trim() : "";
+                }
+                titleText.setText(title);
+                previewText.setText(body);
+                previewText.setVisibility(body.isEmpty() ? View.GONE : View.VISIBLE);
+
+                String provider = entry.getProvider() != null ? capitalize(entry.getProvider()) : "Unknown";
+                String meta = entry.getFormattedDate() + " • " + provider;
+                if (entry.isRefinement()) {
+                    meta += " • Refined";
+                }
+                metaText.setText(meta);
+            }
+        }
+    }
+}
@@ -43,6 +43,8 @@ import com.google.android.material.floatingactionbutton.ExtendedFloatingActionBu
 import com.google.android.material.materialswitch.MaterialSwitch;
 import com.google.android.material.textfield.TextInputEditText;
 import com.najmi.oreamnos.curator.CuratorFactory;
+import com.najmi.oreamnos.data.HistoryStore;
+import com.najmi.oreamnos.model.HistoryEntry;
 import com.najmi.oreamnos.model.GenerationPill;
 import com.najmi.oreamnos.services.ContentGenerationService;
 import com.najmi.oreamnos.utils.NotificationHelper;
@@ -116,6 +118,10 @@ public class MainActivity extends AppCompatActivity {
     private String detectedUrl = "";
     private Handler urlCheckHandler = new Handler(Looper.getMainLooper());
     private Runnable urlCheckRunnable;
+    private final java.util.concurrent.ExecutorService previewExecutor = java.util.concurrent.Executors
+            .newSingleThreadExecutor();
+    // Backed by the article cache, so a later generation reuses the preview's download
+    private com.najmi.oreamnos.services.WebContentExtractor previewExtractor;
 
     private PreferencesManager prefsManager;
     private NotificationHelper notificationHelper;
@@ -130,8 +136,11 @@ public class MainActivity extends AppCompatActivity {
 
     // Markwon for markdown rendering
     private Markwon markwon;
+    private com.najmi.oreamnos.utils.StreamingMarkdownRenderer streamingRenderer;
     private String rawOutputText = ""; // Store raw markdown text for editing
     private String lastClipboardUrl = ""; // Track last clipboard URL to avoid repeat prompts
+    private boolean isStreamingOutput = false; // Output card is showing streamed partial text
+    private boolean isRequestInFlight = false; // Service is generating/refining for this screen
 
     /**
      * BroadcastReceiver for handling results from ContentGenerationService.
@@ -139,6 +148,15 @@ public class MainActivity extends AppCompatActivity {
     private final BroadcastReceiver serviceResultReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
+            if (ContentGenerationService.BROADCAST_PARTIAL.equals(intent.getAction())) {
+                handleGenerationPartial(intent.getStringExtra(ContentGenerationService.EXTRA_PARTIAL_TEXT));
+                return;
+            }
+            if (ContentGenerationService.BROADCAST_BATCH_ITEM.equals(intent.getAction())) {
+                handleBatchItem(intent);
+                return;
+            }
+
             boolean success = intent.getBooleanExtra(ContentGenerationService.EXTRA_SUCCESS, false);
             boolean isRefinement = intent.getBooleanExtra(ContentGenerationService.EXTRA_IS_REFINEMENT, false);
             boolean isRateLimit = intent.getBooleanExtra(ContentGenerationService.EXTRA_IS_RATE_LIMIT, false);
@@ -166,7 +184,8 @@ public class MainActivity extends AppCompatActivity {
         Log.i(TAG, "=== MainActivity onCreate ===");
 
         // Initialize preferences
-        prefsManager = new PreferencesManager(this);
+        prefsManager = PreferencesManager.getInstance(this);
+        previewExtractor = new com.najmi.oreamnos.services.WebContentExtractor(this);
         notificationHelper = new NotificationHelper(this);
 
         // Initialize ViewModel (survives configuration changes)
@@ -190,6 +209,7 @@ public class MainActivity extends AppCompatActivity {
         // Initialize views
         inputText = findViewById(R.id.inputText);
         outputText = findViewById(R.id.outputText);
+        streamingRenderer = new com.najmi.oreamnos.utils.StreamingMarkdownRenderer(markwon, outputText);
         editedIndicator = findViewById(R.id.editedIndicator);
         outputCard = findViewById(R.id.outputCard);
         skeletonCard = findViewById(R.id.skeletonCard);
@@ -353,7 +373,8 @@ public class MainActivity extends AppCompatActivity {
             rebuildOutputText();
             hidePlaceholder();
             showOutputCard();
-            refinementCard.setVisibility(View.VISIBLE);
+            isStreamingOutput = currentState.getStatus() == GenerationState.Status.STREAMING;
+            refinementCard.setVisibility(isStreamingOutput ? View.GONE : View.VISIBLE);
             clearRefinementCheckboxes();
 
             // Restore edit mode state
@@ -424,10 +445,11 @@ public class MainActivity extends AppCompatActivity {
     protected void onResume() {
         super.onResume();
 
-        // Register broadcast receiver for service results
-        LocalBroadcastManager.getInstance(this).registerReceiver(
-                serviceResultReceiver,
-                new IntentFilter(ContentGenerationService.BROADCAST_RESULT));
+        // Register broadcast receiver for service results and streamed partial text
+        IntentFilter serviceFilter = new IntentFilter(ContentGenerationService.BROADCAST_RESULT);
+        serviceFilter.addAction(ContentGenerationService.BROADCAST_PARTIAL);
+        serviceFilter.addAction(ContentGenerationService.BROADCAST_BATCH_ITEM);
+        LocalBroadcastManager.getInstance(this).registerReceiver(serviceResultReceiver, serviceFilter);
 
         // Reload preferences when returning to activity
 
@@ -686,11 +708,88 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
+        // Several links at once go through the batch pipeline into History
+        List<String> urls = com.najmi.oreamnos.services.WebContentExtractor.splitUrls(input);
+        if (!urls.isEmpty()) {
+            startBatch(urls);
+            return;
+        }
+
+        // A link generated before can reuse its post instead of spending tokens
+        boolean regenerating = input.equals(originalInputText) && !originalGeneratedPost.isEmpty();
+        if (!regenerating && com.najmi.oreamnos.services.WebContentExtractor.isUrl(input)) {
+            offerEarlierPost(input);
+            return;
+        }
+
+        startGeneration(input);
+    }
+
+    /**
+     * Looks up an earlier post for a link off the main thread. If there is
+     * one the user can open it or generate a new one; otherwise generation
+     * starts straight away.
+     */
+    private void offerEarlierPost(String input) {
+        previewExecutor.execute(() -> {
+            HistoryEntry earlier = null;
+            try {
+                earlier = HistoryStore.getInstance(this).findLatestForInput(input);
+            } catch (Exception e) {
+                Log.e(TAG, "History lookup failed", e);
+            }
+            HistoryEntry found = earlier;
+            urlCheckHandler.post(() -> {
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+                if (found == null) {
+                    startGeneration(input);
+                    return;
+                }
+                new MaterialAlertDialogBuilder(this)
+                        .setTitle(R.string.earlier_post_title)
+                        .setMessage(getString(R.string.earlier_post_message, found.getFormattedDate()))
+                        .setPositiveButton(R.string.earlier_post_open, (dialog, which) -> showEarlierPost(found))
+                        .setNegativeButton(R.string.earlier_post_generate, (dialog, which) -> startGeneration(input))
+                        .show();
+            });
+        });
+    }
+
+    /**
+     * Shows a post from history as if it had just been generated.
+     */
+    private void showEarlierPost(HistoryEntry entry) {
+        Log.i(TAG, "Reusing history entry " + entry.getId());
+        originalInputText = entry.getInput();
+        originalGeneratedPost = entry.getText();
+        generatedTitle = entry.getTitle() != null ? entry.getTitle() : "";
+        generatedBody = entry.getBody() != null ? entry.getBody() : "";
+        generatedSourceCitation = entry.getSource() != null ? entry.getSource() : "";
+        viewModel.setSuccess(generatedTitle, generatedBody, generatedSourceCitation, false);
+        viewModel.setOriginalGeneratedPost(originalGeneratedPost);
+
+        rebuildOutputText();
+        hidePlaceholder();
+        hideErrorCard();
+        showOutputCard();
+        refinementCard.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * Starts the generation service for one input.
+     */
+    private void startGeneration(String input) {
         // Hide placeholder, error card and show skeleton loading
         hidePlaceholder();
         hideErrorCard();
         showSkeletonLoading(true);
 
+        // Generating again for the input already shown means the user wants a
+        // new take, so skip the response cache; otherwise repeats are instant
+        boolean forceRefresh = input.equals(originalInputText) && !originalGeneratedPost.isEmpty();
+
         // Store for potential regeneration
         originalInputText = input;
 
@@ -702,6 +801,7 @@ public class MainActivity extends AppCompatActivity {
         serviceIntent.putExtra(ContentGenerationService.EXTRA_INPUT_TEXT, input);
         serviceIntent.putExtra(ContentGenerationService.EXTRA_INCLUDE_SOURCE, includeSource);
         serviceIntent.putExtra(ContentGenerationService.EXTRA_KEEP_STRUCTURE, keepStructure);
+        serviceIntent.putExtra(ContentGenerationService.EXTRA_FORCE_REFRESH, forceRefresh);
 
         Log.i(TAG, "Starting ContentGenerationService for generation");
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
@@ -711,6 +811,42 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Starts batch generation for several links. Posts are saved to History
+     * as they finish; this screen only reports the outcome.
+     */
+    private void startBatch(List<String> urls) {
+        Intent serviceIntent = new Intent(this, ContentGenerationService.class);
+        serviceIntent.setAction(ContentGenerationService.ACTION_GENERATE_BATCH);
+        serviceIntent.putStringArrayListExtra(ContentGenerationService.EXTRA_URLS, new ArrayList<>(urls));
+        serviceIntent.putExtra(ContentGenerationService.EXTRA_INCLUDE_SOURCE, prefsManager.isSourceEnabled());
+        serviceIntent.putExtra(ContentGenerationService.EXTRA_KEEP_STRUCTURE, keepStructureSwitch.isChecked());
+
+        Log.i(TAG, "Starting ContentGenerationService for a batch of " + urls.size() + " URLs");
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            startForegroundService(serviceIntent);
+        } else {
+            startService(serviceIntent);
+        }
+        Toast.makeText(this, getString(R.string.batch_started, urls.size()), Toast.LENGTH_LONG).show();
+    }
+
+    /**
+     * Handles one finished batch item, reporting when the batch is done.
+     */
+    private void handleBatchItem(Intent intent) {
+        int completed = intent.getIntExtra(ContentGenerationService.EXTRA_BATCH_COMPLETED, 0);
+        int failed = intent.getIntExtra(ContentGenerationService.EXTRA_BATCH_FAILED, 0);
+        int total = intent.getIntExtra(ContentGenerationService.EXTRA_BATCH_TOTAL, 0);
+        Log.d(TAG, "Batch item " + completed + "/" + total + " done: "
+                + intent.getStringExtra(ContentGenerationService.EXTRA_BATCH_URL));
+
+        if (completed == total) {
+            Toast.makeText(this, getString(R.string.batch_finished, total - failed, failed),
+                    Toast.LENGTH_LONG).show();
+        }
+    }
+
     /**
      * Checks if the input text contains a URL and shows a preview if found.
      */
@@ -725,7 +861,8 @@ public class MainActivity extends AppCompatActivity {
 
         // Simple check if text IS a URL (not just contains one)
         // We only want to trigger this if the user pasted a link directly
-        if (com.najmi.oreamnos.services.WebContentExtractor.isUrl(text)) {
+        if (com.najmi.oreamnos.services.WebContentExtractor.isUrl(text)
+                && com.najmi.oreamnos.services.WebContentExtractor.splitUrls(text).isEmpty()) {
             String url = text.trim();
             if (!url.equals(detectedUrl)) {
                 detectedUrl = url;
@@ -761,19 +898,16 @@ public class MainActivity extends AppCompatActivity {
     private void fetchUrlMetadata(String url) {
         // Show loading state in preview card? Or just wait?
         // For now, let's just fetch silently and show when ready
-
-        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newSingleThreadExecutor();
-        executor.execute(() -> {
+        // Reuses one executor and extractor (shared HTTP pool) for all previews
+        previewExecutor.execute(() -> {
             try {
-                com.najmi.oreamnos.services.WebContentExtractor extractor = new com.najmi.oreamnos.services.WebContentExtractor();
-                com.najmi.oreamnos.services.WebContentExtractor.UrlMetadata metadata = extractor.extractMetadata(url);
+                // Same fetch and parse a following generation will reuse
+                com.najmi.oreamnos.model.ExtractedArticle article = previewExtractor.extract(url);
 
-                new Handler(Looper.getMainLooper()).post(() -> showUrlPreview(metadata));
+                urlCheckHandler.post(() -> showUrlPreview(article));
             } catch (Exception e) {
                 Log.e(TAG, "Failed to fetch metadata: " + e.getMessage());
                 // Don't show error, just don't show preview
-            } finally {
-                executor.shutdown();
             }
         });
     }
@@ -781,19 +915,24 @@ public class MainActivity extends AppCompatActivity {
     /**
      * Updates the UI with the URL metadata.
      */
-    private void showUrlPreview(com.najmi.oreamnos.services.WebContentExtractor.UrlMetadata metadata) {
+    private void showUrlPreview(com.najmi.oreamnos.model.ExtractedArticle article) {
         if (isFinishing() || isDestroyed())
             return;
 
-        previewTitle.setText(metadata.title != null ? metadata.title : "No Title");
-        previewDomain.setText(metadata.domain);
+        previewTitle.setText(article.getTitle() != null ? article.getTitle() : "No Title");
+        if (article.hasContent()) {
+            previewDomain.setText(String.format(java.util.Locale.US, "%s • %,d words • %d min read",
+                    article.getDomain(), article.getWordCount(), article.getReadingMinutes()));
+        } else {
+            previewDomain.setText(article.getDomain());
+        }
 
         // Load favicon (placeholder for now, would need an image loading library like
         // Glide/Picasso)
         // Since we don't have Glide, we'll try to load it manually or just show the
         // domain icon
         // For this implementation, we'll stick to the default icon but if we had Glide:
-        // Glide.with(this).load(metadata.faviconUrl).into(previewFavicon);
+        // Glide.with(this).load(article.getFaviconUrl()).into(previewFavicon);
 
         urlPreviewCard.setVisibility(View.VISIBLE);
 
@@ -940,6 +1079,15 @@ public class MainActivity extends AppCompatActivity {
      * Clears input, output, refinement options, and shows placeholder.
      */
     private void onResetAllClick() {
+        // Abort any in-flight request so it stops consuming tokens
+        if (isRequestInFlight) {
+            cancelGeneration();
+            showSkeletonLoading(false);
+        }
+        streamingRenderer.reset();
+        isStreamingOutput = false;
+        viewModel.resetState();
+
         // Clear input
         if (inputText.getText() != null) {
             inputText.setText("");
@@ -970,6 +1118,17 @@ public class MainActivity extends AppCompatActivity {
         Log.i(TAG, "UI reset to initial state");
     }
 
+    /**
+     * Asks ContentGenerationService to cancel its current request.
+     * Uses a plain startService() since cancelling never needs the foreground.
+     */
+    private void cancelGeneration() {
+        Intent cancelIntent = new Intent(this, ContentGenerationService.class);
+        cancelIntent.setAction(ContentGenerationService.ACTION_CANCEL);
+        startService(cancelIntent);
+        Log.i(TAG, "Requested cancellation of in-flight generation");
+    }
+
     /**
      * Pastes text from clipboard into the input field.
      */
@@ -996,6 +1155,7 @@ public class MainActivity extends AppCompatActivity {
      * Also updates FAB state to show loading indicator.
      */
     private void showSkeletonLoading(boolean show) {
+        isRequestInFlight = show;
         if (show) {
             skeletonCard.setVisibility(View.VISIBLE);
             Animation slideUp = AnimationUtils.loadAnimation(this, R.anim.slide_up);
@@ -1175,6 +1335,8 @@ public class MainActivity extends AppCompatActivity {
     private void showRateLimitFallbackDialog(String currentProvider, long retryDelayMs, boolean isRefinement) {
         // Hide skeleton loading
         showSkeletonLoading(false);
+        streamingRenderer.reset();
+        isStreamingOutput = false;
 
         // Determine fallback provider
         String fallbackProvider;
@@ -1315,6 +1477,29 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Handles streamed partial text from the service.
+     * The first chunk swaps the skeleton for the output card; later chunks
+     * only re-render the text.
+     */
+    private void handleGenerationPartial(String partialText) {
+        if (partialText == null) {
+            return;
+        }
+
+        if (!isStreamingOutput) {
+            isStreamingOutput = true;
+            // Keep the FAB in its loading state until the final result arrives
+            skeletonCard.setVisibility(View.GONE);
+            hidePlaceholder();
+            showOutputCard();
+        }
+
+        viewModel.setStreaming(partialText, false);
+        // Only the unfinished trailing block is re-parsed, once per frame
+        streamingRenderer.update(partialText);
+    }
+
     /**
      * Handles successful generation/refinement result from the service.
      */
@@ -1327,6 +1512,9 @@ public class MainActivity extends AppCompatActivity {
         // Extract title and body
         extractTitleAndBody(contentWithoutSource);
 
+        // Stop incremental rendering; the final text is rendered in one pass below
+        streamingRenderer.reset();
+
         // Save state to ViewModel (survives rotation)
         viewModel.setSuccess(generatedTitle, generatedBody, generatedSourceCitation, isRefinement);
         viewModel.setOriginalGeneratedPost(originalGeneratedPost);
@@ -1335,7 +1523,12 @@ public class MainActivity extends AppCompatActivity {
         rebuildOutputText();
 
         showSkeletonLoading(false);
-        showOutputCard();
+        if (isStreamingOutput) {
+            // Card is already on screen with the streamed text
+            isStreamingOutput = false;
+        } else {
+            showOutputCard();
+        }
         isEditMode = false;
         editButton.setText(R.string.edit_button);
         editButton.setIconResource(android.R.drawable.ic_menu_edit);
@@ -1355,6 +1548,8 @@ public class MainActivity extends AppCompatActivity {
         Log.e(TAG, "Handling " + (isRefinement ? "refinement" : "generation") + " error: " + error);
 
         showSkeletonLoading(false);
+        streamingRenderer.reset();
+        isStreamingOutput = false;
         lastOperationWasRefinement = isRefinement;
 
         // Show inline error card instead of toast
@@ -1468,6 +1663,13 @@ public class MainActivity extends AppCompatActivity {
                 // Keep Generate selected since Usage is a separate activity
                 bottomNav.setSelectedItemId(R.id.nav_generate);
                 return false;
+            } else if (itemId == R.id.nav_history) {
+                // Open History activity
+                Intent intent = new Intent(this, HistoryActivity.class);
+                startActivity(intent);
+                // Keep Generate selected since History is a separate activity
+                bottomNav.setSelectedItemId(R.id.nav_generate);
+                return false;
             } else if (itemId == R.id.nav_settings) {
                 // Open Settings activity
                 Intent intent = new Intent(this, SettingsActivity.class);
@@ -1484,6 +1686,8 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         Log.i(TAG, "=== MainActivity onDestroy ===");
+        previewExecutor.shutdownNow();
+        streamingRenderer.reset();
         super.onDestroy();
     }
 
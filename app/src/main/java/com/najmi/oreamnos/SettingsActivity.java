@@ -27,6 +27,8 @@ import com.google.android.material.chip.Chip;
 import com.google.android.material.switchmaterial.SwitchMaterial;
 import com.google.android.material.textfield.TextInputEditText;
 
+import com.najmi.oreamnos.curator.CuratorFactory;
+import com.najmi.oreamnos.data.ArticleCache;
 import com.najmi.oreamnos.model.UsageStats;
 import com.najmi.oreamnos.services.GeminiService;
 import com.najmi.oreamnos.utils.PreferencesManager;
@@ -123,6 +125,8 @@ public class SettingsActivity extends AppCompatActivity {
     private RadioGroup themeRadioGroup;
     private SwitchMaterial enableHashtagsSwitch;
     private SwitchMaterial sourceEnabledSwitch;
+    private SwitchMaterial hedgingSwitch;
+    private SwitchMaterial smartExtractionSwitch;
     private MaterialButton testConnectionButton;
 
     // Provider constants (must match PreferencesManager)
@@ -144,7 +148,7 @@ public class SettingsActivity extends AppCompatActivity {
         Log.i(TAG, "=== SettingsActivity onCreate ===");
 
         // Initialize preferences
-        prefsManager = new PreferencesManager(this);
+        prefsManager = PreferencesManager.getInstance(this);
 
         // Apply saved theme before setContentView
         applyTheme(prefsManager.getTheme());
@@ -170,6 +174,8 @@ public class SettingsActivity extends AppCompatActivity {
         themeRadioGroup = findViewById(R.id.themeRadioGroup);
         enableHashtagsSwitch = findViewById(R.id.enableHashtagsSwitch);
         sourceEnabledSwitch = findViewById(R.id.sourceEnabledSwitch);
+        hedgingSwitch = findViewById(R.id.hedgingSwitch);
+        smartExtractionSwitch = findViewById(R.id.smartExtractionSwitch);
         testConnectionButton = findViewById(R.id.testConnectionButton);
 
         // Setup dropdowns
@@ -235,6 +241,7 @@ public class SettingsActivity extends AppCompatActivity {
             if (!isLoading) {
                 String provider = prefsManager.getProvider();
                 prefsManager.saveModelForProvider(provider, currentModelIds[selectedModelIndex]);
+                CuratorFactory.invalidate(provider);
                 showSavedFeedback();
             }
         });
@@ -294,6 +301,26 @@ public class SettingsActivity extends AppCompatActivity {
             prefsManager.saveSourceEnabled(isChecked);
             showSavedFeedback();
         });
+
+        // Hedging switch - save on change
+        hedgingSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            if (isLoading)
+                return;
+            prefsManager.setHedgingEnabled(isChecked);
+            showSavedFeedback();
+        });
+
+        // Extraction engine switch - save on change
+        smartExtractionSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            if (isLoading)
+                return;
+            prefsManager.setExtractionEngine(isChecked ? PreferencesManager.EXTRACTOR_READABILITY
+                    : PreferencesManager.EXTRACTOR_CLASSIC);
+            // Cached articles were extracted with the other engine
+            ArticleCache articleCache = ArticleCache.getInstance(this);
+            executor.execute(articleCache::clear);
+            showSavedFeedback();
+        });
     }
 
     /**
@@ -303,6 +330,7 @@ public class SettingsActivity extends AppCompatActivity {
         String apiKey = apiKeyInput.getText() != null ? apiKeyInput.getText().toString().trim() : "";
         if (!apiKey.isEmpty()) {
             prefsManager.saveApiKey(apiKey);
+            CuratorFactory.invalidate(PreferencesManager.PROVIDER_GEMINI);
             showSavedFeedback();
         }
     }
@@ -314,6 +342,7 @@ public class SettingsActivity extends AppCompatActivity {
         String apiKey = groqApiKeyInput.getText() != null ? groqApiKeyInput.getText().toString().trim() : "";
         if (!apiKey.isEmpty()) {
             prefsManager.saveGroqApiKey(apiKey);
+            CuratorFactory.invalidate(PreferencesManager.PROVIDER_GROQ);
             showSavedFeedback();
         }
     }
@@ -326,6 +355,7 @@ public class SettingsActivity extends AppCompatActivity {
                 : "";
         if (!apiKey.isEmpty()) {
             prefsManager.saveOpenRouterApiKey(apiKey);
+            CuratorFactory.invalidate(PreferencesManager.PROVIDER_OPENROUTER);
             showSavedFeedback();
         }
     }
@@ -494,6 +524,13 @@ public class SettingsActivity extends AppCompatActivity {
         boolean sourceEnabled = prefsManager.isSourceEnabled();
         sourceEnabledSwitch.setChecked(sourceEnabled);
 
+        // Load hedging enabled state
+        hedgingSwitch.setChecked(prefsManager.isHedgingEnabled());
+
+        // Load extraction engine
+        smartExtractionSwitch.setChecked(
+                PreferencesManager.EXTRACTOR_READABILITY.equals(prefsManager.getExtractionEngine()));
+
         // Load theme
         String theme = prefsManager.getTheme();
         if (PreferencesManager.THEME_LIGHT.equals(theme)) {
@@ -551,7 +588,7 @@ public class SettingsActivity extends AppCompatActivity {
                         ? PreferencesManager.TONE_FORMAL
                         : PreferencesManager.TONE_CASUAL;
 
-                String result;
+                com.najmi.oreamnos.curator.GenerationResult result;
                 switch (provider) {
                     case PreferencesManager.PROVIDER_GROQ:
                         // Use OpenAICompatibleCurator for Groq
@@ -598,6 +635,7 @@ public class SettingsActivity extends AppCompatActivity {
                             prefsManager.saveApiKey(finalApiKey);
                             break;
                     }
+                    CuratorFactory.invalidate(provider);
 
                     testConnectionButton.setEnabled(true);
                     testConnectionButton.setText(R.string.test_connection);
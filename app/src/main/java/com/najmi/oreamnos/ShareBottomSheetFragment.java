@@ -14,6 +14,7 @@ import android.text.Editable;
 import android.text.TextWatcher;
 import android.transition.AutoTransition;
 import android.transition.TransitionManager;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -33,12 +34,17 @@ import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.textfield.TextInputEditText;
 import com.najmi.oreamnos.services.ContentGenerationService;
-import com.najmi.oreamnos.services.GeminiService;
+import com.najmi.oreamnos.curator.CancellableFuture;
+import com.najmi.oreamnos.curator.CuratorFactory;
+import com.najmi.oreamnos.curator.GenerationResult;
+import com.najmi.oreamnos.curator.IContentCurator;
+import com.najmi.oreamnos.data.HistoryStore;
 import com.najmi.oreamnos.services.WebContentExtractor;
 import com.najmi.oreamnos.utils.HapticHelper;
 import com.najmi.oreamnos.utils.NotificationHelper;
 import com.najmi.oreamnos.utils.PreferencesManager;
 
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -50,6 +56,7 @@ import java.util.concurrent.Executors;
  */
 public class ShareBottomSheetFragment extends BottomSheetDialogFragment {
 
+    private static final String TAG = "ShareBottomSheet";
     private static final String ARG_SHARED_TEXT = "shared_text";
 
     // Views
@@ -98,6 +105,8 @@ public class ShareBottomSheetFragment extends BottomSheetDialogFragment {
     private HapticHelper hapticHelper;
     private NotificationHelper notificationHelper;
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // In-sheet generation; cancelled when the sheet goes away
+    private CancellableFuture<String> generationTask;
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     /**
@@ -143,7 +152,7 @@ public class ShareBottomSheetFragment extends BottomSheetDialogFragment {
         super.onViewCreated(view, savedInstanceState);
 
         Context context = requireContext();
-        prefsManager = new PreferencesManager(context);
+        prefsManager = PreferencesManager.getInstance(context);
         hapticHelper = new HapticHelper(context);
         notificationHelper = new NotificationHelper(context);
 
@@ -171,6 +180,8 @@ public class ShareBottomSheetFragment extends BottomSheetDialogFragment {
     @Override
     public void onDismiss(@NonNull android.content.DialogInterface dialog) {
         super.onDismiss(dialog);
+        // Stop the in-flight request instead of letting it finish unseen
+        cancelGeneration();
         // Notify host activity to finish
         if (getActivity() instanceof ShareReceiverActivity) {
             ((ShareReceiverActivity) getActivity()).onBottomSheetDismissed();
@@ -343,37 +354,60 @@ public class ShareBottomSheetFragment extends BottomSheetDialogFragment {
         // Get selected tone
         String tone = chipFormal.isChecked() ? PreferencesManager.TONE_FORMAL : PreferencesManager.TONE_CASUAL;
         boolean includeSource = prefsManager.isSourceEnabled();
+        HistoryStore history = HistoryStore.getInstance(requireContext());
+        WebContentExtractor extractor = new WebContentExtractor(requireContext());
 
-        executor.execute(() -> {
-            try {
-                String textToProcess = originalSharedContent;
-
-                // Check if content is a URL
-                if (WebContentExtractor.isUrl(originalSharedContent)) {
-                    mainHandler.post(() -> updateLoadingText(getString(R.string.progress_extracting)));
-                    WebContentExtractor extractor = new WebContentExtractor();
-                    textToProcess = extractor.extractContent(originalSharedContent);
-                }
+        // Gemini first, failing over to other configured providers; repeats come from the response cache
+        IContentCurator curator = CuratorFactory.withCache(requireContext(),
+                CuratorFactory.createWithFailover(prefsManager, PreferencesManager.PROVIDER_GEMINI, tone),
+                PreferencesManager.PROVIDER_GEMINI, tone, false);
 
-                // Update loading text
-                mainHandler.post(() -> updateLoadingText(getString(R.string.progress_generating)));
+        generationTask = CancellableFuture.supplyAsync(token -> {
+            String textToProcess = originalSharedContent;
 
-                // Generate post
-                String apiKey = prefsManager.getApiKey();
-                String endpoint = prefsManager.getApiEndpoint();
-                GeminiService gemini = new GeminiService(apiKey, endpoint, tone);
-                String result = gemini.curatePost(textToProcess, includeSource, false);
+            // Check if content is a URL
+            if (WebContentExtractor.isUrl(originalSharedContent)) {
+                mainHandler.post(() -> updateLoadingText(getString(R.string.progress_extracting)));
+                textToProcess = extractor.extractContent(originalSharedContent);
+            }
+            token.throwIfCancelled();
 
-                mainHandler.post(() -> {
-                    mainHandler.postDelayed(() -> handleGenerationSuccess(result), 300);
-                });
+            // Update loading text
+            mainHandler.post(() -> updateLoadingText(getString(R.string.progress_generating)));
 
+            GenerationResult result = curator.curatePost(textToProcess, includeSource, false, token);
+            try {
+                history.record(originalSharedContent, result.getText(),
+                        result.getProvider(), result.getModel(), result.getPromptTokens(),
+                        result.getCandidateTokens(), result.getTotalTokens(), result.getLatencyMs(), false);
             } catch (Exception e) {
-                mainHandler.post(() -> handleGenerationError(e.getMessage()));
+                Log.e(TAG, "Failed to save post to history", e);
+            }
+            return result.getText();
+        }, executor);
+
+        generationTask.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                return; // Sheet dismissed or moved to background
+            }
+            if (error != null) {
+                mainHandler.post(() -> handleGenerationError(error.getMessage()));
+            } else {
+                mainHandler.postDelayed(() -> handleGenerationSuccess(result), 300);
             }
         });
     }
 
+    /**
+     * Cancels the in-sheet generation, aborting its HTTP call.
+     */
+    private void cancelGeneration() {
+        if (generationTask != null && !generationTask.isDone()) {
+            generationTask.cancel(true);
+        }
+        generationTask = null;
+    }
+
     private void showLoadingState() {
         skeletonCard.setVisibility(View.VISIBLE);
         shimmerLayout.startShimmer();
@@ -623,6 +657,7 @@ public class ShareBottomSheetFragment extends BottomSheetDialogFragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        cancelGeneration();
         executor.shutdown();
     }
 }
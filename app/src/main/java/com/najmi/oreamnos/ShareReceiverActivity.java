@@ -21,7 +21,7 @@ public class ShareReceiverActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
-        prefsManager = new PreferencesManager(this);
+        prefsManager = PreferencesManager.getInstance(this);
 
         // Apply saved theme
         applyTheme(prefsManager.getTheme());
@@ -2,6 +2,7 @@ package com.najmi.oreamnos;
 
 import androidx.appcompat.app.AlertDialog;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -17,12 +18,20 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
+import com.google.android.material.chip.ChipGroup;
+import com.najmi.oreamnos.curator.CuratorFactory;
+import com.najmi.oreamnos.curator.ProviderRateLimiter;
+import com.najmi.oreamnos.data.Page;
+import com.najmi.oreamnos.model.UsageSeries;
 import com.najmi.oreamnos.model.UsageStats;
 import com.najmi.oreamnos.utils.PreferencesManager;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Activity for displaying comprehensive API usage statistics.
@@ -32,7 +41,14 @@ public class UsageActivity extends AppCompatActivity {
 
     private static final String TAG = "UsageActivity";
 
+    private static final long HOUR_MS = 3600000L;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    // Sessions and logs loaded per "Show More"
+    private static final int PAGE_SIZE = 10;
+
     private PreferencesManager prefsManager;
+    // Loads charts and history pages off the main thread, in order
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor();
 
     // Overview
     private TextView totalTokensValue;
@@ -47,6 +63,14 @@ public class UsageActivity extends AppCompatActivity {
     private TextView monthTokens;
     private TextView monthRequests;
 
+    // Usage over time
+    private ChipGroup rangeChipGroup;
+    private TextView rangeTotalText;
+    private UsageChartView usageChart;
+    private TextView chartStartLabel;
+    private TextView chartEndLabel;
+    private TextView rollingQuotaText;
+
     // Token breakdown
     private View promptTokensBar;
     private View responseTokensBar;
@@ -77,9 +101,10 @@ public class UsageActivity extends AppCompatActivity {
     private LogAdapter logAdapter;
     private MaterialButton clearLogsButton;
 
-    // Expansion State
-    private boolean isSessionsExpanded = false;
-    private boolean isLogsExpanded = false;
+    // Paging state; a reload bumps the generation so stale pages are dropped
+    private long sessionsNextKey = 0;
+    private long logsNextKey = 0;
+    private int historyGeneration = 0;
     private MaterialButton btnShowMoreSessions;
     private MaterialButton btnShowMoreLogs;
 
@@ -90,7 +115,7 @@ public class UsageActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
-        prefsManager = new PreferencesManager(this);
+        prefsManager = PreferencesManager.getInstance(this);
         applyTheme(prefsManager.getTheme());
 
         setContentView(R.layout.activity_usage);
@@ -112,6 +137,12 @@ public class UsageActivity extends AppCompatActivity {
         refreshStats();
     }
 
+    @Override
+    protected void onDestroy() {
+        loadExecutor.shutdownNow();
+        super.onDestroy();
+    }
+
     private void initViews() {
         // Overview
         totalTokensValue = findViewById(R.id.totalTokensValue);
@@ -126,6 +157,15 @@ public class UsageActivity extends AppCompatActivity {
         monthTokens = findViewById(R.id.monthTokens);
         monthRequests = findViewById(R.id.monthRequests);
 
+        // Usage over time
+        rangeChipGroup = findViewById(R.id.rangeChipGroup);
+        rangeTotalText = findViewById(R.id.rangeTotalText);
+        usageChart = findViewById(R.id.usageChart);
+        chartStartLabel = findViewById(R.id.chartStartLabel);
+        chartEndLabel = findViewById(R.id.chartEndLabel);
+        rollingQuotaText = findViewById(R.id.rollingQuotaText);
+        rangeChipGroup.setOnCheckedStateChangeListener((group, checkedIds) -> refreshSeries());
+
         // Token breakdown
         promptTokensBar = findViewById(R.id.promptTokensBar);
         responseTokensBar = findViewById(R.id.responseTokensBar);
@@ -166,15 +206,14 @@ public class UsageActivity extends AppCompatActivity {
         btnShowMoreSessions = findViewById(R.id.btnShowMoreSessions);
         btnShowMoreLogs = findViewById(R.id.btnShowMoreLogs);
 
-        // Setup expansion listeners
+        // Load the next page from storage; disabled until it arrives
         btnShowMoreSessions.setOnClickListener(v -> {
-            isSessionsExpanded = !isSessionsExpanded;
-            refreshStats(); // Re-render list
+            v.setEnabled(false);
+            loadSessionsPage(false);
         });
-
         btnShowMoreLogs.setOnClickListener(v -> {
-            isLogsExpanded = !isLogsExpanded;
-            refreshStats(); // Re-render list
+            v.setEnabled(false);
+            loadLogsPage(false);
         });
     }
 
@@ -224,6 +263,9 @@ public class UsageActivity extends AppCompatActivity {
         monthTokens.setText(formatNumber(stats.getMonthTokens()));
         monthRequests.setText(String.format(Locale.US, "%d req", stats.getMonthRequests()));
 
+        // Usage over time
+        refreshSeries();
+
         // Token breakdown
         updateTokenBreakdown(stats);
 
@@ -234,11 +276,63 @@ public class UsageActivity extends AppCompatActivity {
         successfulRequestsValue.setText(String.valueOf(stats.getSuccessfulRequests()));
         failedRequestsValue.setText(String.valueOf(stats.getFailedRequests()));
 
-        // Sessions
-        updateSessionsList(stats);
+        // Sessions and logs
+        historyGeneration++;
+        loadSessionsPage(true);
+        loadLogsPage(true);
+    }
 
-        // Logs
-        updateLogsList(stats);
+    /**
+     * Loads the selected range and the rolling 24h quota off the main thread.
+     */
+    private void refreshSeries() {
+        int checkedId = rangeChipGroup.getCheckedChipId();
+        long now = System.currentTimeMillis();
+        long from;
+        int resolution;
+        if (checkedId == R.id.chipRange7d) {
+            from = now - 7 * DAY_MS;
+            resolution = UsageSeries.RESOLUTION_DAY;
+        } else if (checkedId == R.id.chipRange30d) {
+            from = now - 30 * DAY_MS;
+            resolution = UsageSeries.RESOLUTION_DAY;
+        } else if (checkedId == R.id.chipRange90d) {
+            from = now - 90 * DAY_MS;
+            resolution = UsageSeries.RESOLUTION_DAY;
+        } else {
+            from = now - DAY_MS;
+            resolution = UsageSeries.RESOLUTION_HOUR;
+        }
+        String provider = prefsManager.getProvider();
+
+        loadExecutor.execute(() -> {
+            try {
+                UsageSeries series = prefsManager.getUsageSeries(from, now, resolution, null);
+                UsageSeries rolling = prefsManager.getUsageSeries(now - DAY_MS, now,
+                        UsageSeries.RESOLUTION_HOUR, provider);
+                runOnUiThread(() -> {
+                    if (!isDestroyed()) {
+                        updateSeries(series, rolling, provider);
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to load usage series", e);
+            }
+        });
+    }
+
+    private void updateSeries(UsageSeries series, UsageSeries rolling, String provider) {
+        rangeTotalText.setText(String.format(Locale.US, "%s tokens • %d req",
+                formatNumber(series.getTotalTokens()), series.getTotalRequests()));
+        usageChart.setSeries(series);
+        if (series.size() > 0) {
+            chartStartLabel.setText(series.getSlotLabel(0));
+            chartEndLabel.setText(series.getSlotLabel(series.size() - 1));
+        }
+
+        int dailyLimit = ProviderRateLimiter.forProvider(provider).getDailyRequestLimit();
+        rollingQuotaText.setText(getString(R.string.rolling_quota, CuratorFactory.getProviderDisplayName(provider),
+                formatNumber(rolling.getTotalTokens()), rolling.getTotalRequests(), dailyLimit));
     }
 
     private void updateTokenBreakdown(UsageStats stats) {
@@ -298,66 +392,80 @@ public class UsageActivity extends AppCompatActivity {
         openRouterProgressBar.setProgress(totalTokens > 0 ? (int) (orTotal * 100 / totalTokens) : 0);
     }
 
-    private void updateSessionsList(UsageStats stats) {
-        List<UsageStats.SessionEntry> allSessions = stats.getRecentSessions();
+    /**
+     * Loads a page of sessions from storage.
+     *
+     * @param reset true to reload from the newest session
+     */
+    private void loadSessionsPage(boolean reset) {
+        int generation = historyGeneration;
+        long beforeId = reset ? 0 : sessionsNextKey;
+        loadExecutor.execute(() -> {
+            try {
+                Page<UsageStats.SessionEntry> page = prefsManager.loadSessions(beforeId, PAGE_SIZE);
+                runOnUiThread(() -> {
+                    if (!isDestroyed() && generation == historyGeneration) {
+                        showSessionsPage(page, reset);
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to load sessions", e);
+            }
+        });
+    }
 
-        if (allSessions == null || allSessions.isEmpty()) {
-            emptySessionsText.setVisibility(View.VISIBLE);
-            sessionsRecyclerView.setVisibility(View.GONE);
-            btnShowMoreSessions.setVisibility(View.GONE);
+    private void showSessionsPage(Page<UsageStats.SessionEntry> page, boolean reset) {
+        sessionsNextKey = page.getNextBeforeId();
+        if (reset) {
+            sessionAdapter.setSessions(page.getItems());
         } else {
-            emptySessionsText.setVisibility(View.GONE);
-            sessionsRecyclerView.setVisibility(View.VISIBLE);
-
-            List<UsageStats.SessionEntry> displayList;
-            if (allSessions.size() > 10 && !isSessionsExpanded) {
-                displayList = allSessions.subList(0, 10);
-                btnShowMoreSessions.setVisibility(View.VISIBLE);
-                btnShowMoreSessions.setText("Show More (" + (allSessions.size() - 10) + ")");
-            } else {
-                displayList = allSessions;
-                if (allSessions.size() > 10) {
-                    btnShowMoreSessions.setVisibility(View.VISIBLE);
-                    btnShowMoreSessions.setText("Show Less");
-                } else {
-                    btnShowMoreSessions.setVisibility(View.GONE);
-                }
-            }
-            sessionAdapter.setSessions(displayList);
+            sessionAdapter.addSessions(page.getItems());
         }
-    }
 
-    private void updateLogsList(UsageStats stats) {
-        List<UsageStats.LogEntry> allLogs = stats.getLogs();
+        boolean empty = sessionAdapter.getItemCount() == 0;
+        emptySessionsText.setVisibility(empty ? View.VISIBLE : View.GONE);
+        sessionsRecyclerView.setVisibility(empty ? View.GONE : View.VISIBLE);
+        btnShowMoreSessions.setVisibility(page.hasMore() ? View.VISIBLE : View.GONE);
+        btnShowMoreSessions.setEnabled(true);
+    }
 
-        // Update count badge
-        int count = allLogs != null ? allLogs.size() : 0;
-        logCountBadge.setText(String.format(Locale.US, "%d entries", count));
+    /**
+     * Loads a page of logs from storage, plus the total count on reload.
+     *
+     * @param reset true to reload from the newest log
+     */
+    private void loadLogsPage(boolean reset) {
+        int generation = historyGeneration;
+        long beforeId = reset ? 0 : logsNextKey;
+        loadExecutor.execute(() -> {
+            try {
+                Page<UsageStats.LogEntry> page = prefsManager.loadLogs(beforeId, PAGE_SIZE);
+                long count = reset ? prefsManager.countLogs() : -1;
+                runOnUiThread(() -> {
+                    if (!isDestroyed() && generation == historyGeneration) {
+                        showLogsPage(page, reset, count);
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to load logs", e);
+            }
+        });
+    }
 
-        if (allLogs == null || allLogs.isEmpty()) {
-            emptyLogsText.setVisibility(View.VISIBLE);
-            logsRecyclerView.setVisibility(View.GONE);
-            btnShowMoreLogs.setVisibility(View.GONE);
+    private void showLogsPage(Page<UsageStats.LogEntry> page, boolean reset, long count) {
+        logsNextKey = page.getNextBeforeId();
+        if (reset) {
+            logAdapter.setLogs(page.getItems());
+            logCountBadge.setText(String.format(Locale.US, "%d entries", count));
         } else {
-            emptyLogsText.setVisibility(View.GONE);
-            logsRecyclerView.setVisibility(View.VISIBLE);
-
-            List<UsageStats.LogEntry> displayList;
-            if (allLogs.size() > 10 && !isLogsExpanded) {
-                displayList = allLogs.subList(0, 10);
-                btnShowMoreLogs.setVisibility(View.VISIBLE);
-                btnShowMoreLogs.setText("Show More (" + (allLogs.size() - 10) + ")");
-            } else {
-                displayList = allLogs;
-                if (allLogs.size() > 10) {
-                    btnShowMoreLogs.setVisibility(View.VISIBLE);
-                    btnShowMoreLogs.setText("Show Less");
-                } else {
-                    btnShowMoreLogs.setVisibility(View.GONE);
-                }
-            }
-            logAdapter.setLogs(displayList);
+            logAdapter.addLogs(page.getItems());
         }
+
+        boolean empty = logAdapter.getItemCount() == 0;
+        emptyLogsText.setVisibility(empty ? View.VISIBLE : View.GONE);
+        logsRecyclerView.setVisibility(empty ? View.GONE : View.VISIBLE);
+        btnShowMoreLogs.setVisibility(page.hasMore() ? View.VISIBLE : View.GONE);
+        btnShowMoreLogs.setEnabled(true);
     }
 
     private String formatNumber(long number) {
@@ -460,13 +568,20 @@ public class UsageActivity extends AppCompatActivity {
 
     private static class SessionAdapter extends RecyclerView.Adapter<SessionAdapter.SessionViewHolder> {
 
-        private List<UsageStats.SessionEntry> sessions;
+        private final List<UsageStats.SessionEntry> sessions = new ArrayList<>();
 
-        public void setSessions(List<UsageStats.SessionEntry> sessions) {
-            this.sessions = sessions;
+        public void setSessions(List<UsageStats.SessionEntry> page) {
+            sessions.clear();
+            sessions.addAll(page);
             notifyDataSetChanged();
         }
 
+        public void addSessions(List<UsageStats.SessionEntry> page) {
+            int start = sessions.size();
+            sessions.addAll(page);
+            notifyItemRangeInserted(start, page.size());
+        }
+
         @NonNull
         @Override
         public SessionViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -477,7 +592,7 @@ public class UsageActivity extends AppCompatActivity {
 
         @Override
         public void onBindViewHolder(@NonNull SessionViewHolder holder, int position) {
-            if (sessions == null || position >= sessions.size())
+            if (position >= sessions.size())
                 return;
 
             UsageStats.SessionEntry session = sessions.get(position);
@@ -486,7 +601,7 @@ public class UsageActivity extends AppCompatActivity {
 
         @Override
         public int getItemCount() {
-            return sessions != null ? sessions.size() : 0;
+            return sessions.size();
         }
 
         static class SessionViewHolder extends RecyclerView.ViewHolder {
@@ -547,18 +662,25 @@ public class UsageActivity extends AppCompatActivity {
 
     private static class LogAdapter extends RecyclerView.Adapter<LogAdapter.LogViewHolder> {
 
-        private List<UsageStats.LogEntry> logs;
+        private final List<UsageStats.LogEntry> logs = new ArrayList<>();
         private OnLogClickListener listener;
 
         public interface OnLogClickListener {
             void onLogClick(UsageStats.LogEntry log);
         }
 
-        public void setLogs(List<UsageStats.LogEntry> logs) {
-            this.logs = logs;
+        public void setLogs(List<UsageStats.LogEntry> page) {
+            logs.clear();
+            logs.addAll(page);
             notifyDataSetChanged();
         }
 
+        public void addLogs(List<UsageStats.LogEntry> page) {
+            int start = logs.size();
+            logs.addAll(page);
+            notifyItemRangeInserted(start, page.size());
+        }
+
         public void setOnLogClickListener(OnLogClickListener listener) {
             this.listener = listener;
         }
@@ -573,7 +695,7 @@ public class UsageActivity extends AppCompatActivity {
 
         @Override
         public void onBindViewHolder(@NonNull LogViewHolder holder, int position) {
-            if (logs == null || position >= logs.size())
+            if (position >= logs.size())
                 return;
             UsageStats.LogEntry log = logs.get(position);
             holder.bind(log);
@@ -587,7 +709,7 @@ public class UsageActivity extends AppCompatActivity {
 
         @Override
         public int getItemCount() {
-            return logs != null ? logs.size() : 0;
+            return logs.size();
         }
 
         static class LogViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,74 @@
+package com.najmi.oreamnos;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.najmi.oreamnos.model.UsageSeries;
+
+/**
+ * Bar chart of tokens per slot of a UsageSeries.
+ */
+public class UsageChartView extends View {
+
+    private static final int BAR_COLOR = 0xFF4285F4;
+    private static final int EMPTY_COLOR = 0x334285F4;
+
+    private final Paint barPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint emptyPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF bar = new RectF();
+    private final float gap;
+    private final float radius;
+    private final float minBarHeight;
+
+    private UsageSeries series;
+
+    public UsageChartView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+        gap = 2 * density;
+        radius = 2 * density;
+        minBarHeight = 2 * density;
+        barPaint.setColor(BAR_COLOR);
+        emptyPaint.setColor(EMPTY_COLOR);
+    }
+
+    public void setSeries(UsageSeries series) {
+        this.series = series;
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (series == null || series.size() == 0) {
+            return;
+        }
+
+        float left = getPaddingLeft();
+        float bottom = getHeight() - getPaddingBottom();
+        float height = bottom - getPaddingTop();
+        float slotWidth = (getWidth() - getPaddingLeft() - getPaddingRight()) / (float) series.size();
+        float barWidth = Math.max(1, slotWidth - gap);
+        long max = series.getMaxTokens();
+
+        for (int i = 0; i < series.size(); i++) {
+            long tokens = series.getTokens(i);
+            float x = left + i * slotWidth;
+            if (tokens == 0) {
+                // Baseline tick so empty slots are still visible
+                bar.set(x, bottom - minBarHeight, x + barWidth, bottom);
+                canvas.drawRoundRect(bar, radius, radius, emptyPaint);
+                continue;
+            }
+            float barHeight = Math.max(minBarHeight, height * tokens / max);
+            bar.set(x, bottom - barHeight, x + barWidth, bottom);
+            canvas.drawRoundRect(bar, radius, radius, barPaint);
+        }
+    }
+}
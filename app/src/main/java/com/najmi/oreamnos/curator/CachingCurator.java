@@ -0,0 +1,125 @@
+package com.najmi.oreamnos.curator;
+
+import android.util.Log;
+
+import com.najmi.oreamnos.data.ResponseCache;
+import com.najmi.oreamnos.utils.StringUtils;
+
+import java.util.List;
+
+/**
+ * Curator that answers repeat curatePost calls from a ResponseCache.
+ *
+ * The cache key is a SHA-256 over the whitespace-normalised input and every
+ * other prompt input: tone, includeSource, keepStructure, and the provider
+ * and model the request starts with. Re-running the same article from the
+ * tile, share sheet or main screen therefore returns the earlier post
+ * instantly, without an API call. Cached results are marked
+ * GenerationResult.isCached() so callers can skip usage accounting.
+ *
+ * With forceRefresh the cache is not read, but the fresh post still
+ * replaces the cached one. Refinements always go to the delegate, since
+ * asking to rephrase again should give a new variation. Failed or empty
+ * responses throw from the delegate and are never stored.
+ */
+public class CachingCurator implements IContentCurator {
+
+    private static final String TAG = "CachingCurator";
+
+    // Bump to invalidate every entry when the prompts change
+    private static final String KEY_VERSION = "1";
+
+    private final IContentCurator delegate;
+    private final ResponseCache cache;
+    private final String keyPrefix;
+    private final boolean forceRefresh;
+
+    /**
+     * Creates a caching curator.
+     *
+     * @param delegate     Curator that makes the actual requests
+     * @param provider     Provider the request starts with
+     * @param model        That provider's model
+     * @param tone         Post tone ("formal" or "casual")
+     * @param forceRefresh Skip cache reads for this curator's requests
+     */
+    public CachingCurator(IContentCurator delegate, ResponseCache cache, String provider, String model,
+            String tone, boolean forceRefresh) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.keyPrefix = KEY_VERSION + "|" + provider + "|" + model + "|" + tone + "|";
+        this.forceRefresh = forceRefresh;
+    }
+
+    @Override
+    public GenerationResult curatePost(String inputText, boolean includeSource, boolean keepStructure,
+            CancellationToken token) throws Exception {
+        String key = cacheKey(inputText, includeSource, keepStructure);
+        GenerationResult cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        GenerationResult result = delegate.curatePost(inputText, includeSource, keepStructure, token);
+        store(key, result);
+        return result;
+    }
+
+    @Override
+    public GenerationResult curatePostStreaming(String inputText, boolean includeSource, boolean keepStructure,
+            StreamCallback callback, CancellationToken token) throws Exception {
+        String key = cacheKey(inputText, includeSource, keepStructure);
+        GenerationResult cached = lookup(key);
+        if (cached != null) {
+            // Deliver the whole post as a single update
+            callback.onPartialText(cached.getText());
+            return cached;
+        }
+        GenerationResult result = delegate.curatePostStreaming(inputText, includeSource, keepStructure,
+                callback, token);
+        store(key, result);
+        return result;
+    }
+
+    @Override
+    public GenerationResult refinePost(String originalPost, List<String> refinements, boolean includeSource,
+            CancellationToken token) throws Exception {
+        return delegate.refinePost(originalPost, refinements, includeSource, token);
+    }
+
+    private String cacheKey(String inputText, boolean includeSource, boolean keepStructure) {
+        // Whitespace differences between extractions don't change the post
+        String normalized = inputText != null ? inputText.trim().replaceAll("\\s+", " ") : "";
+        return StringUtils.sha256(keyPrefix + (includeSource ? "1" : "0") + (keepStructure ? "1" : "0")
+                + "|" + normalized);
+    }
+
+    private GenerationResult lookup(String key) {
+        if (forceRefresh) {
+            return null;
+        }
+        try {
+            GenerationResult cached = cache.get(key);
+            if (cached != null) {
+                Log.i(TAG, "Cache hit, skipping API call");
+                return cached.toBuilder().latencyMs(0).attempts(0).cached(true).build();
+            }
+        } catch (Exception e) {
+            // A broken cache must never block generation
+            Log.w(TAG, "Cache lookup failed", e);
+        }
+        return null;
+    }
+
+    private void store(String key, GenerationResult result) {
+        // Only a real completion is worth replaying for a day
+        if (result == null || result.isCached() || result.getText() == null
+                || result.getText().trim().isEmpty()) {
+            return;
+        }
+        try {
+            cache.put(key, result);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to cache response", e);
+        }
+    }
+}
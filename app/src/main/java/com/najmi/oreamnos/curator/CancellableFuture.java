@@ -0,0 +1,53 @@
+package com.najmi.oreamnos.curator;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * CompletableFuture whose cancel() also cancels the underlying request
+ * (in-flight HTTP call and any retry sleep) through its CancellationToken.
+ */
+public class CancellableFuture<T> extends CompletableFuture<T> {
+
+    /**
+     * Work that observes a cancellation token.
+     */
+    public interface Task<T> {
+        T run(CancellationToken token) throws Exception;
+    }
+
+    private final CancellationToken token;
+
+    public CancellableFuture(CancellationToken token) {
+        this.token = token;
+    }
+
+    /**
+     * Runs a task on the given executor and returns a future for its result.
+     * Cancelling the future cancels the task's token.
+     */
+    public static <T> CancellableFuture<T> supplyAsync(Task<T> task, Executor executor) {
+        CancellableFuture<T> future = new CancellableFuture<>(new CancellationToken());
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return; // Cancelled while queued
+            }
+            try {
+                future.complete(task.run(future.token));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    public CancellationToken getToken() {
+        return token;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        token.cancel();
+        return super.cancel(mayInterruptIfRunning);
+    }
+}
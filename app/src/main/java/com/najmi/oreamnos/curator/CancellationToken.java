@@ -0,0 +1,99 @@
+package com.najmi.oreamnos.curator;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Call;
+
+/**
+ * Cooperative cancellation signal for a curation request.
+ * Cancelling aborts any registered in-flight HTTP call and wakes up a
+ * retry/backoff sleep, so the request stops instead of running to completion.
+ */
+public class CancellationToken {
+
+    private volatile boolean cancelled = false;
+    private final Set<Call> calls = ConcurrentHashMap.newKeySet();
+    private final Set<Runnable> listeners = ConcurrentHashMap.newKeySet();
+    private final Object sleepLock = new Object();
+
+    /**
+     * Cancels the request. Safe to call from any thread, more than once.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Call call : calls) {
+            call.cancel();
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+        synchronized (sleepLock) {
+            sleepLock.notifyAll();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Throws if the request was cancelled.
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Request cancelled");
+        }
+    }
+
+    /**
+     * Tracks an HTTP call so that cancel() aborts it. A call registered after
+     * cancellation is cancelled right away.
+     *
+     * @return The same call, for chaining
+     */
+    public Call register(Call call) {
+        calls.add(call);
+        if (cancelled) {
+            call.cancel();
+        }
+        return call;
+    }
+
+    /**
+     * Stops tracking a finished HTTP call.
+     */
+    public void unregister(Call call) {
+        calls.remove(call);
+    }
+
+    /**
+     * Runs an action when the request is cancelled, e.g. to cancel work the
+     * request fanned out to other threads. Runs right away if already
+     * cancelled.
+     */
+    public void onCancel(Runnable listener) {
+        listeners.add(listener);
+        if (cancelled) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Sleeps for the given time unless cancelled first.
+     *
+     * @throws CancellationException if cancelled before or during the sleep
+     */
+    public void sleep(long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        synchronized (sleepLock) {
+            long remaining = millis;
+            while (!cancelled && remaining > 0) {
+                sleepLock.wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+        throwIfCancelled();
+    }
+}
@@ -0,0 +1,144 @@
+package com.najmi.oreamnos.curator;
+
+import android.util.Log;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-provider circuit breaker used by FailoverCurator.
+ *
+ * CLOSED: requests flow normally. After FAILURE_THRESHOLD consecutive
+ * failures, or any rate limit, the breaker OPENs and the provider is skipped
+ * until the cooldown ends (the provider's retry delay when it sent one).
+ * It then goes HALF_OPEN and lets a single probe request through: success
+ * closes it, failure opens it again.
+ *
+ * Breakers are process-wide, so state carries over between requests.
+ */
+public class CircuitBreaker {
+
+    private static final String TAG = "CircuitBreaker";
+
+    // Consecutive failures before the breaker opens
+    private static final int FAILURE_THRESHOLD = 3;
+    // Cooldown when the provider gives no retry hint
+    private static final long DEFAULT_OPEN_MS = 60000L;
+    // Upper bound so a huge retry hint doesn't park a provider forever
+    private static final long MAX_OPEN_MS = 10 * 60000L;
+
+    /**
+     * Breaker states.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private final String provider;
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openUntil = 0;
+    private boolean probeInFlight = false;
+
+    private CircuitBreaker(String provider) {
+        this.provider = provider;
+    }
+
+    /**
+     * Gets the shared breaker for a provider.
+     */
+    public static CircuitBreaker forProvider(String provider) {
+        return breakers.computeIfAbsent(provider, CircuitBreaker::new);
+    }
+
+    /**
+     * Checks whether a request may be sent now. In HALF_OPEN only one probe
+     * is allowed at a time.
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case OPEN:
+                if (System.currentTimeMillis() < openUntil) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                Log.i(TAG, provider + " half-open, probing");
+                return true;
+            case HALF_OPEN:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+            case CLOSED:
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Records a successful request; closes the breaker.
+     */
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            Log.i(TAG, provider + " closed after successful probe");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    /**
+     * Records a failed request; opens the breaker once the threshold is hit,
+     * or immediately if the failure was a probe.
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= FAILURE_THRESHOLD) {
+            open(DEFAULT_OPEN_MS);
+        }
+    }
+
+    /**
+     * Records a rate limit; opens the breaker for the provider's retry delay.
+     *
+     * @param retryDelayMs Provider's suggested delay, or 0 if unknown
+     */
+    public synchronized void recordRateLimit(long retryDelayMs) {
+        consecutiveFailures++;
+        open(retryDelayMs > 0 ? Math.min(retryDelayMs, MAX_OPEN_MS) : DEFAULT_OPEN_MS);
+    }
+
+    /**
+     * Releases a probe slot without judging the provider, e.g. when the
+     * request was cancelled by the user or rejected as invalid. Every
+     * allowed request must end in one of the record calls, or a HALF_OPEN
+     * breaker never lets another probe through.
+     */
+    public synchronized void recordCancelled() {
+        probeInFlight = false;
+    }
+
+    /**
+     * Gets milliseconds until an OPEN breaker allows a probe, 0 otherwise.
+     */
+    public synchronized long getRemainingOpenMs() {
+        return state == State.OPEN ? Math.max(0, openUntil - System.currentTimeMillis()) : 0;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open(long durationMs) {
+        state = State.OPEN;
+        probeInFlight = false;
+        openUntil = System.currentTimeMillis() + durationMs;
+        Log.w(TAG, provider + " opened for " + durationMs + "ms after " + consecutiveFailures + " failure(s)");
+    }
+}
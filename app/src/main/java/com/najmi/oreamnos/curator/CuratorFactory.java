@@ -1,12 +1,34 @@
 package com.najmi.oreamnos.curator;
 
 import android.content.Context;
+import android.util.Log;
 
+import com.najmi.oreamnos.data.ResponseCache;
 import com.najmi.oreamnos.utils.PreferencesManager;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Factory for creating IContentCurator instances.
  * Reads user preferences to determine which AI provider to use.
+ *
+ * Curators are stateless per request (see GenerationResult), so fully
+ * initialised instances are cached by provider, model and tone and shared
+ * across threads. SettingsActivity invalidates the cache when API keys or
+ * models change.
+ *
+ * When more than one provider has an API key, create() returns a
+ * FailoverCurator that starts with the selected provider and falls through
+ * to the others on rate limits or errors. With hedging enabled it instead
+ * returns a HedgedCurator that races the selected provider against the
+ * hedge provider once the selected one is slow.
+ *
+ * Curators for UI and service requests are wrapped in a CachingCurator, so
+ * repeat generations for the same article are answered from disk.
  * 
  * Supported providers:
  * - Gemini (Google) - default
@@ -15,6 +37,8 @@ import com.najmi.oreamnos.utils.PreferencesManager;
  */
 public class CuratorFactory {
 
+    private static final String TAG = "CuratorFactory";
+
     // Provider constants
     public static final String PROVIDER_GEMINI = "gemini";
     public static final String PROVIDER_GROQ = "groq";
@@ -24,51 +48,254 @@ public class CuratorFactory {
     private static final String GROQ_API_URL = "https://api.groq.com/openai/v1/chat/completions";
     private static final String OPENROUTER_API_URL = "https://openrouter.ai/api/v1/chat/completions";
 
-    // Default model IDs
-    private static final String GROQ_MODEL_ID = "llama-3.3-70b-versatile";
-    private static final String OPENROUTER_MODEL_ID = "google/gemini-2.0-flash-exp:free";
+    // Cached curators keyed by "provider|model|tone"
+    private static final Map<String, IContentCurator> curatorCache = new ConcurrentHashMap<>();
+
+    // Failover order after the selected provider
+    private static final String[] FAILOVER_ORDER = {
+            PROVIDER_GEMINI, PROVIDER_GROQ, PROVIDER_OPENROUTER
+    };
 
     /**
-     * Creates an IContentCurator based on user preferences.
+     * Gets the IContentCurator for the current user preferences, with
+     * automatic failover to the other configured providers.
      *
      * @param context Android context for accessing preferences
      * @return Configured IContentCurator instance
      */
     public static IContentCurator create(Context context) {
-        PreferencesManager prefs = new PreferencesManager(context);
+        return create(context, false);
+    }
 
+    /**
+     * Gets the IContentCurator for the current user preferences, with
+     * automatic failover and response caching.
+     *
+     * @param context      Android context for accessing preferences
+     * @param forceRefresh Skip the response cache and always call the API
+     * @return Configured IContentCurator instance
+     */
+    public static IContentCurator create(Context context, boolean forceRefresh) {
+        PreferencesManager prefs = PreferencesManager.getInstance(context);
         String provider = prefs.getProvider();
-        String tone = prefs.getTone();
+        IContentCurator curator = null;
+        if (prefs.isHedgingEnabled()) {
+            curator = createHedged(prefs, provider, prefs.getTone());
+        }
+        if (curator == null) {
+            curator = createWithFailover(prefs, provider, prefs.getTone());
+        }
+        return withCache(context, curator, provider, prefs.getTone(), forceRefresh);
+    }
+
+    /**
+     * Puts a ResponseCache in front of a curator.
+     *
+     * @param provider     Provider the curator starts with, part of the cache key
+     * @param tone         Tone the curator was built with, part of the cache key
+     * @param forceRefresh Skip cache reads; fresh results are still stored
+     */
+    public static IContentCurator withCache(Context context, IContentCurator curator, String provider,
+            String tone, boolean forceRefresh) {
+        PreferencesManager prefs = PreferencesManager.getInstance(context);
+        return new CachingCurator(curator, ResponseCache.getInstance(context), provider,
+                prefs.getModelForProvider(provider), tone, forceRefresh);
+    }
+
+    /**
+     * Builds a HedgedCurator for the primary provider and the configured
+     * hedge provider. If the hedge provider is the primary or has no key, the
+     * next configured provider in failover order is used instead.
+     *
+     * The losing request is recorded in usage stats once its call has ended:
+     * with its real token counts if it completed anyway, otherwise as a
+     * failed call with the reason it ended.
+     *
+     * @return Hedged curator, or null if no second provider has an API key
+     */
+    public static IContentCurator createHedged(PreferencesManager prefs, String primaryProvider, String tone) {
+        if (!hasApiKey(prefs, primaryProvider)) {
+            return null;
+        }
+
+        String hedgeProvider = prefs.getHedgeProvider();
+        if (hedgeProvider.equals(primaryProvider) || !hasApiKey(prefs, hedgeProvider)) {
+            hedgeProvider = null;
+            for (String provider : FAILOVER_ORDER) {
+                if (!provider.equals(primaryProvider) && hasApiKey(prefs, provider)) {
+                    hedgeProvider = provider;
+                    break;
+                }
+            }
+        }
+        if (hedgeProvider == null) {
+            return null;
+        }
+
+        return new HedgedCurator(
+                primaryProvider, create(prefs, primaryProvider, tone, true),
+                hedgeProvider, create(prefs, hedgeProvider, tone, true),
+                prefs.getHedgeDelayMs(),
+                (provider, result, error) -> {
+                    if (result != null) {
+                        prefs.recordApiSuccess(result.getPromptTokens(), result.getCandidateTokens(),
+                                result.getTotalTokens(), provider, result.getModel(), result.getModel());
+                    } else {
+                        String model = prefs.getModelForProvider(provider);
+                        String reason = error instanceof java.util.concurrent.CancellationException
+                                ? "Hedged request cancelled" : error != null ? error.getMessage() : null;
+                        Log.i(TAG, "Recording hedge loser " + provider + ": " + reason);
+                        prefs.recordApiFailure(provider, model, model, reason);
+                    }
+                });
+    }
+
+    /**
+     * Builds a failover chain starting at the primary provider, followed by
+     * every other provider that has an API key. With only one usable
+     * provider, the plain (cached) curator is returned.
+     *
+     * @param prefs           Preferences to read keys and models from
+     * @param primaryProvider Provider to try first
+     * @param tone            Post tone ("formal" or "casual")
+     * @return Failover curator, or a single provider's curator
+     */
+    public static IContentCurator createWithFailover(PreferencesManager prefs, String primaryProvider,
+            String tone) {
+        List<String> providers = new ArrayList<>();
+        if (hasApiKey(prefs, primaryProvider)) {
+            providers.add(primaryProvider);
+        }
+        for (String provider : FAILOVER_ORDER) {
+            if (!provider.equals(primaryProvider) && hasApiKey(prefs, provider)) {
+                providers.add(provider);
+            }
+        }
+
+        if (providers.size() <= 1) {
+            // Nothing to fail over to; keep the provider's own retry behaviour
+            String only = providers.isEmpty() ? primaryProvider : providers.get(0);
+            return create(prefs, only, tone);
+        }
+
+        LinkedHashMap<String, IContentCurator> chain = new LinkedHashMap<>();
+        for (String provider : providers) {
+            chain.put(provider, create(prefs, provider, tone, true));
+        }
+        return new FailoverCurator(chain);
+    }
+
+    /**
+     * Gets the IContentCurator for a specific provider, using that provider's
+     * saved key and model and the current tone.
+     *
+     * @param prefs    Preferences to read keys and models from
+     * @param provider Provider constant
+     * @return Configured IContentCurator instance
+     */
+    public static IContentCurator create(PreferencesManager prefs, String provider) {
+        return create(prefs, provider, prefs.getTone());
+    }
+
+    /**
+     * Gets the IContentCurator for a specific provider and tone, using that
+     * provider's saved key and model.
+     *
+     * @param prefs    Preferences to read keys and models from
+     * @param provider Provider constant
+     * @param tone     Post tone ("formal" or "casual")
+     * @return Configured IContentCurator instance
+     */
+    public static IContentCurator create(PreferencesManager prefs, String provider, String tone) {
+        return create(prefs, provider, tone, false);
+    }
+
+    /**
+     * Gets or builds the cached curator for a provider.
+     *
+     * @param inChain Whether the curator is part of a failover chain or hedge.
+     *                It then fails fast on rate limits (Gemini 429s and long
+     *                client-side rate limiter waits) so the chain can move on.
+     */
+    private static IContentCurator create(PreferencesManager prefs, String provider, String tone,
+            boolean inChain) {
+        ProviderRateLimiter.attach(prefs);
+        String model = prefs.getModelForProvider(provider);
+        boolean failFast = inChain;
+        String cacheKey = provider + "|" + model + "|" + tone + (failFast ? "|failfast" : "");
 
+        return curatorCache.computeIfAbsent(cacheKey, key -> {
+            switch (provider) {
+                case PROVIDER_GROQ:
+                    return new OpenAICompatibleCurator(
+                            prefs.getGroqApiKey(),
+                            GROQ_API_URL,
+                            model,
+                            tone,
+                            false, // isOpenRouter = false
+                            failFast
+                    );
+
+                case PROVIDER_OPENROUTER:
+                    return new OpenAICompatibleCurator(
+                            prefs.getOpenRouterApiKey(),
+                            OPENROUTER_API_URL,
+                            model,
+                            tone,
+                            true, // isOpenRouter = true (requires special headers)
+                            failFast
+                    );
+
+                case PROVIDER_GEMINI:
+                default:
+                    // Gemini models are stored as their full endpoint URL
+                    return new GeminiCurator(prefs.getApiKey(), model, tone, failFast);
+            }
+        });
+    }
+
+    /**
+     * Checks whether a provider has an API key configured.
+     */
+    private static boolean hasApiKey(PreferencesManager prefs, String provider) {
+        String key;
         switch (provider) {
             case PROVIDER_GROQ:
-                String groqKey = prefs.getGroqApiKey();
-                return new OpenAICompatibleCurator(
-                        groqKey,
-                        GROQ_API_URL,
-                        GROQ_MODEL_ID,
-                        tone,
-                        false // isOpenRouter = false
-                );
-
+                key = prefs.getGroqApiKey();
+                break;
             case PROVIDER_OPENROUTER:
-                String openRouterKey = prefs.getOpenRouterApiKey();
-                return new OpenAICompatibleCurator(
-                        openRouterKey,
-                        OPENROUTER_API_URL,
-                        OPENROUTER_MODEL_ID,
-                        tone,
-                        true // isOpenRouter = true (requires special headers)
-                );
-
+                key = prefs.getOpenRouterApiKey();
+                break;
             case PROVIDER_GEMINI:
             default:
-                String geminiKey = prefs.getApiKey();
-                String endpoint = prefs.getApiEndpoint();
-                return new GeminiCurator(geminiKey, endpoint, tone);
+                key = prefs.getApiKey();
+                break;
+        }
+        return key != null && !key.trim().isEmpty();
+    }
+
+    /**
+     * Drops cached curators for a provider, e.g. after its API key or model
+     * changed. The next create() call builds a fresh instance.
+     *
+     * @param provider Provider constant
+     */
+    public static void invalidate(String provider) {
+        String prefix = provider + "|";
+        for (String key : curatorCache.keySet()) {
+            if (key.startsWith(prefix)) {
+                curatorCache.remove(key);
+            }
         }
     }
 
+    /**
+     * Drops all cached curators.
+     */
+    public static void invalidateAll() {
+        curatorCache.clear();
+    }
+
     /**
      * Creates an IContentCurator with explicit parameters (for Gemini).
      * Useful for services that don't need PreferencesManager lookup.
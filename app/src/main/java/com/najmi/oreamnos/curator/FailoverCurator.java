@@ -0,0 +1,152 @@
+package com.najmi.oreamnos.curator;
+
+import android.util.Log;
+
+import com.najmi.oreamnos.exceptions.ApiException;
+import com.najmi.oreamnos.exceptions.RateLimitException;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Curator that tries a chain of providers in order within the same request.
+ * Each provider has a CircuitBreaker: providers that keep failing or are rate
+ * limited are skipped until their cooldown ends, so quota spikes on one
+ * provider fall through to the next without asking the user. Only
+ * provider-side failures (network errors, 5xx, 429) count against a
+ * breaker; a request the provider rejects as invalid, or one our own
+ * ProviderRateLimiter holds back, does not.
+ *
+ * A RateLimitException only reaches the caller when every provider in the
+ * chain is rate limited or cooling down.
+ */
+public class FailoverCurator implements IContentCurator {
+
+    private static final String TAG = "FailoverCurator";
+
+    /**
+     * One curator call, run against each provider in turn.
+     */
+    private interface Attempt {
+        GenerationResult run(IContentCurator curator) throws Exception;
+    }
+
+    private final Map<String, IContentCurator> chain;
+    private final String primaryProvider;
+
+    /**
+     * Creates a failover curator.
+     *
+     * @param chain Provider key to curator, in failover order (first is primary)
+     */
+    public FailoverCurator(LinkedHashMap<String, IContentCurator> chain) {
+        if (chain.isEmpty()) {
+            throw new IllegalArgumentException("Failover chain is empty");
+        }
+        this.chain = new LinkedHashMap<>(chain);
+        this.primaryProvider = chain.keySet().iterator().next();
+    }
+
+    @Override
+    public GenerationResult curatePost(String inputText, boolean includeSource, boolean keepStructure,
+            CancellationToken token) throws Exception {
+        return runChain(curator -> curator.curatePost(inputText, includeSource, keepStructure, token), token);
+    }
+
+    @Override
+    public GenerationResult curatePostStreaming(String inputText, boolean includeSource, boolean keepStructure,
+            StreamCallback callback, CancellationToken token) throws Exception {
+        return runChain(curator -> curator.curatePostStreaming(inputText, includeSource, keepStructure,
+                callback, token), token);
+    }
+
+    @Override
+    public GenerationResult refinePost(String originalPost, List<String> refinements, boolean includeSource,
+            CancellationToken token) throws Exception {
+        return runChain(curator -> curator.refinePost(originalPost, refinements, includeSource, token), token);
+    }
+
+    private GenerationResult runChain(Attempt attempt, CancellationToken token) throws Exception {
+        RateLimitException lastRateLimit = null;
+        Exception lastError = null;
+        long shortestWaitMs = Long.MAX_VALUE;
+
+        for (Map.Entry<String, IContentCurator> entry : chain.entrySet()) {
+            token.throwIfCancelled();
+            String provider = entry.getKey();
+            CircuitBreaker breaker = CircuitBreaker.forProvider(provider);
+
+            if (!breaker.allowRequest()) {
+                long remaining = breaker.getRemainingOpenMs();
+                shortestWaitMs = Math.min(shortestWaitMs, remaining);
+                Log.i(TAG, "Skipping " + provider + " (circuit " + breaker.getState() + ", "
+                        + remaining + "ms left)");
+                continue;
+            }
+
+            try {
+                GenerationResult result = attempt.run(entry.getValue());
+                breaker.recordSuccess();
+                if (!provider.equals(primaryProvider)) {
+                    Log.i(TAG, "Served by fallback provider " + provider);
+                }
+                return result;
+            } catch (CancellationException ce) {
+                breaker.recordCancelled();
+                throw ce;
+            } catch (RateLimitException rle) {
+                if (rle.isClientSide()) {
+                    // Our own limiter is pacing requests; the provider is fine
+                    breaker.recordCancelled();
+                } else {
+                    breaker.recordRateLimit(rle.getRetryDelayMs());
+                }
+                shortestWaitMs = Math.min(shortestWaitMs, rle.getRetryDelayMs());
+                lastRateLimit = rle;
+                Log.w(TAG, provider + " rate limited, trying next provider");
+            } catch (Exception e) {
+                // A bad request would fail anywhere; it says nothing about the provider
+                if (isProviderError(e)) {
+                    breaker.recordFailure();
+                } else {
+                    breaker.recordCancelled();
+                }
+                lastError = e;
+                Log.w(TAG, provider + " failed (" + e.getMessage() + "), trying next provider");
+            }
+        }
+
+        // Every provider failed or was skipped
+        if (lastError != null) {
+            throw lastError;
+        }
+        if (lastRateLimit != null) {
+            throw lastRateLimit;
+        }
+        throw new RateLimitException("All providers are cooling down after rate limits",
+                shortestWaitMs == Long.MAX_VALUE ? 0 : shortestWaitMs, primaryProvider);
+    }
+
+    /**
+     * Checks whether a failure is the provider's fault: a network error, a
+     * 5xx or a 429 from the provider, possibly wrapped by the curator's
+     * retry loop. Our own rate limiter refusing a request is not.
+     */
+    static boolean isProviderError(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof IOException) {
+                return true;
+            }
+            if (t instanceof RateLimitException) {
+                return !((RateLimitException) t).isClientSide();
+            }
+            if (t instanceof ApiException) {
+                return ((ApiException) t).isProviderError();
+            }
+        }
+        return false;
+    }
+}
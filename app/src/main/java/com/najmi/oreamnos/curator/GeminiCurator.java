@@ -20,31 +20,36 @@ public class GeminiCurator implements IContentCurator {
      * @param tone     Post tone ("formal" or "casual")
      */
     public GeminiCurator(String apiKey, String endpoint, String tone) {
-        this.geminiService = new GeminiService(apiKey, endpoint, tone);
+        this(apiKey, endpoint, tone, false);
     }
 
-    @Override
-    public String curatePost(String inputText, boolean includeSource, boolean keepStructure) throws Exception {
-        return geminiService.curatePost(inputText, includeSource, keepStructure);
-    }
-
-    @Override
-    public String refinePost(String originalPost, List<String> refinements, boolean includeSource) throws Exception {
-        return geminiService.refinePost(originalPost, refinements, includeSource);
+    /**
+     * Creates a new GeminiCurator.
+     *
+     * @param apiKey              Gemini API key
+     * @param endpoint            API endpoint URL
+     * @param tone                Post tone ("formal" or "casual")
+     * @param failFastOnRateLimit Throw a 429 right away (used inside a failover chain)
+     */
+    public GeminiCurator(String apiKey, String endpoint, String tone, boolean failFastOnRateLimit) {
+        this.geminiService = new GeminiService(apiKey, endpoint, tone, failFastOnRateLimit);
     }
 
     @Override
-    public int getLastPromptTokens() {
-        return geminiService.getLastPromptTokens();
+    public GenerationResult curatePost(String inputText, boolean includeSource, boolean keepStructure,
+            CancellationToken token) throws Exception {
+        return geminiService.curatePost(inputText, includeSource, keepStructure, token);
     }
 
     @Override
-    public int getLastCandidateTokens() {
-        return geminiService.getLastCandidateTokens();
+    public GenerationResult curatePostStreaming(String inputText, boolean includeSource, boolean keepStructure,
+            StreamCallback callback, CancellationToken token) throws Exception {
+        return geminiService.curatePostStreaming(inputText, includeSource, keepStructure, callback, token);
     }
 
     @Override
-    public int getLastTotalTokens() {
-        return geminiService.getLastTotalTokens();
+    public GenerationResult refinePost(String originalPost, List<String> refinements, boolean includeSource,
+            CancellationToken token) throws Exception {
+        return geminiService.refinePost(originalPost, refinements, includeSource, token);
     }
 }
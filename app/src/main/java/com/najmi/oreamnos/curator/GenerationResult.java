@@ -0,0 +1,163 @@
+package com.najmi.oreamnos.curator;
+
+/**
+ * Immutable result of a single curation request.
+ * Carries the generated text together with that request's token usage and
+ * timing, so curator instances hold no per-call state and can be shared
+ * across threads.
+ */
+public final class GenerationResult {
+
+    private final String text;
+    private final int promptTokens;
+    private final int candidateTokens;
+    private final int totalTokens;
+    private final long latencyMs;
+    private final int attempts;
+    private final String provider;
+    private final String model;
+    private final boolean cached;
+
+    private GenerationResult(Builder builder) {
+        this.text = builder.text;
+        this.promptTokens = builder.promptTokens;
+        this.candidateTokens = builder.candidateTokens;
+        this.totalTokens = builder.totalTokens;
+        this.latencyMs = builder.latencyMs;
+        this.attempts = builder.attempts;
+        this.provider = builder.provider;
+        this.model = builder.model;
+        this.cached = builder.cached;
+    }
+
+    // Getters
+    public String getText() {
+        return text;
+    }
+
+    public int getPromptTokens() {
+        return promptTokens;
+    }
+
+    public int getCandidateTokens() {
+        return candidateTokens;
+    }
+
+    public int getTotalTokens() {
+        return totalTokens;
+    }
+
+    public long getLatencyMs() {
+        return latencyMs;
+    }
+
+    /**
+     * Number of HTTP attempts made, including the successful one.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Whether the result was served from the response cache without an API
+     * call. Token counts are then those of the original request.
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Returns a builder pre-filled with this result's values.
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .text(text)
+                .promptTokens(promptTokens)
+                .candidateTokens(candidateTokens)
+                .totalTokens(totalTokens)
+                .latencyMs(latencyMs)
+                .attempts(attempts)
+                .provider(provider)
+                .model(model)
+                .cached(cached);
+    }
+
+    @Override
+    public String toString() {
+        return "GenerationResult{provider=" + provider + ", model=" + model + ", chars=" + text.length()
+                + ", tokens=" + totalTokens + ", latencyMs=" + latencyMs + ", attempts=" + attempts
+                + (cached ? ", cached" : "") + "}";
+    }
+
+    /**
+     * Builder pattern for creating GenerationResult instances.
+     */
+    public static class Builder {
+        private String text = "";
+        private int promptTokens = 0;
+        private int candidateTokens = 0;
+        private int totalTokens = 0;
+        private long latencyMs = 0;
+        private int attempts = 1;
+        private String provider = "";
+        private String model = "";
+        private boolean cached = false;
+
+        public Builder text(String text) {
+            this.text = text != null ? text : "";
+            return this;
+        }
+
+        public Builder promptTokens(int promptTokens) {
+            this.promptTokens = promptTokens;
+            return this;
+        }
+
+        public Builder candidateTokens(int candidateTokens) {
+            this.candidateTokens = candidateTokens;
+            return this;
+        }
+
+        public Builder totalTokens(int totalTokens) {
+            this.totalTokens = totalTokens;
+            return this;
+        }
+
+        public Builder latencyMs(long latencyMs) {
+            this.latencyMs = latencyMs;
+            return this;
+        }
+
+        public Builder attempts(int attempts) {
+            this.attempts = attempts;
+            return this;
+        }
+
+        public Builder provider(String provider) {
+            this.provider = provider != null ? provider : "";
+            return this;
+        }
+
+        public Builder model(String model) {
+            this.model = model != null ? model : "";
+            return this;
+        }
+
+        public Builder cached(boolean cached) {
+            this.cached = cached;
+            return this;
+        }
+
+        public GenerationResult build() {
+            return new GenerationResult(this);
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.najmi.oreamnos.curator;
+
+import android.util.Log;
+
+import com.najmi.oreamnos.exceptions.RateLimitException;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Curator that hedges slow requests across two providers.
+ *
+ * The prompt goes to the primary provider first. If it has not answered
+ * within the hedge delay (roughly its p95 latency), the same prompt is sent
+ * to the secondary provider and whichever answer completes first wins; the
+ * other request is cancelled. If the primary fails before the delay, the
+ * secondary is started straight away.
+ *
+ * For streaming, the first leg to emit text wins the race, so partial
+ * output from two providers is never interleaved.
+ *
+ * The losing request has still been sent and may have been billed, so it is
+ * reported to a LoserListener for usage accounting. Losing only cancels the
+ * leg's token; the report is made from the leg itself once its call has
+ * really ended, so a loser that completed anyway is reported with its real
+ * token counts, and a loser that failed with its real error.
+ */
+public class HedgedCurator implements IContentCurator {
+
+    private static final String TAG = "HedgedCurator";
+
+    // Legs block on network I/O; threads are only alive while a request runs
+    private static final ExecutorService executor = Executors.newCachedThreadPool();
+
+    /**
+     * Receives the outcome of the request that lost the race.
+     */
+    public interface LoserListener {
+        /**
+         * Called once per losing leg, from the leg's thread, after its call
+         * has ended.
+         *
+         * @param provider Provider key of the losing leg
+         * @param result   The loser's result if it completed anyway, else null
+         * @param error    Why the loser ended (usually a CancellationException), else null
+         */
+        void onLoserFinished(String provider, GenerationResult result, Throwable error);
+    }
+
+    /**
+     * One curator call, run on each leg with that leg's token and callback.
+     */
+    private interface Attempt {
+        GenerationResult run(IContentCurator curator, StreamCallback callback, CancellationToken token)
+                throws Exception;
+    }
+
+    private final String primaryProvider;
+    private final IContentCurator primary;
+    private final String secondaryProvider;
+    private final IContentCurator secondary;
+    private final long hedgeDelayMs;
+    private final LoserListener loserListener;
+
+    /**
+     * Creates a hedged curator.
+     *
+     * @param primaryProvider   Provider key of the primary curator
+     * @param primary           Curator tried first
+     * @param secondaryProvider Provider key of the hedge curator
+     * @param secondary         Curator started once the primary is slow or fails
+     * @param hedgeDelayMs      How long to wait for the primary before hedging
+     * @param loserListener     Notified about the losing request, may be null
+     */
+    public HedgedCurator(String primaryProvider, IContentCurator primary, String secondaryProvider,
+            IContentCurator secondary, long hedgeDelayMs, LoserListener loserListener) {
+        this.primaryProvider = primaryProvider;
+        this.primary = primary;
+        this.secondaryProvider = secondaryProvider;
+        this.secondary = secondary;
+        this.hedgeDelayMs = Math.max(1, hedgeDelayMs);
+        this.loserListener = loserListener;
+    }
+
+    @Override
+    public GenerationResult curatePost(String inputText, boolean includeSource, boolean keepStructure,
+            CancellationToken token) throws Exception {
+        return race((curator, callback, legToken) -> curator.curatePost(inputText, includeSource,
+                keepStructure, legToken), null, token);
+    }
+
+    @Override
+    public GenerationResult curatePostStreaming(String inputText, boolean includeSource, boolean keepStructure,
+            StreamCallback callback, CancellationToken token) throws Exception {
+        return race((curator, legCallback, legToken) -> curator.curatePostStreaming(inputText, includeSource,
+                keepStructure, legCallback, legToken), callback, token);
+    }
+
+    @Override
+    public GenerationResult refinePost(String originalPost, List<String> refinements, boolean includeSource,
+            CancellationToken token) throws Exception {
+        return race((curator, callback, legToken) -> curator.refinePost(originalPost, refinements,
+                includeSource, legToken), null, token);
+    }
+
+    // ==================== RACE ====================
+
+    private GenerationResult race(Attempt attempt, StreamCallback callback, CancellationToken token)
+            throws Exception {
+        token.throwIfCancelled();
+
+        // Leg whose partial text reaches the caller; the first to stream claims it
+        AtomicReference<Leg> streamOwner = new AtomicReference<>();
+        Leg primaryLeg = new Leg(primaryProvider, primary);
+        Leg secondaryLeg = new Leg(secondaryProvider, secondary);
+        primaryLeg.other = secondaryLeg;
+        secondaryLeg.other = primaryLeg;
+
+        token.onCancel(() -> {
+            primaryLeg.cancel();
+            secondaryLeg.cancel();
+        });
+
+        if (!primaryLeg.start(attempt, callback, streamOwner)) {
+            Log.i(TAG, "Skipping " + primaryProvider + " (circuit " + primaryLeg.breaker.getState()
+                    + "), using " + secondaryProvider);
+            return runAlone(secondaryLeg, attempt, callback, streamOwner, null);
+        }
+
+        try {
+            return primaryLeg.await(hedgeDelayMs);
+        } catch (TimeoutException e) {
+            Log.i(TAG, primaryProvider + " has not answered after " + hedgeDelayMs + "ms, hedging to "
+                    + secondaryProvider);
+        } catch (CancellationException ce) {
+            throw ce;
+        } catch (Exception e) {
+            Log.w(TAG, primaryProvider + " failed early (" + e.getMessage() + "), trying " + secondaryProvider);
+            return runAlone(secondaryLeg, attempt, callback, streamOwner, primaryLeg);
+        }
+
+        token.throwIfCancelled();
+        if (streamOwner.get() == primaryLeg) {
+            // Primary is already streaming; it has answered, just not finished
+            return primaryLeg.await(0);
+        }
+        if (!secondaryLeg.start(attempt, callback, streamOwner)) {
+            Log.i(TAG, secondaryProvider + " circuit is " + secondaryLeg.breaker.getState()
+                    + ", waiting on " + primaryProvider);
+            return primaryLeg.await(0);
+        }
+        return firstSuccess(primaryLeg, secondaryLeg);
+    }
+
+    /**
+     * Runs the secondary on its own after the primary was skipped or failed.
+     *
+     * @param failed The primary leg if it failed, else null
+     */
+    private GenerationResult runAlone(Leg leg, Attempt attempt, StreamCallback callback,
+            AtomicReference<Leg> streamOwner, Leg failed) throws Exception {
+        // A failed primary may have streamed some text; the secondary restarts the output
+        streamOwner.set(leg);
+        leg.reset();
+        if (!leg.start(attempt, callback, streamOwner)) {
+            if (failed != null && failed.error != null) {
+                throw failed.error;
+            }
+            long wait = Math.min(remainingOrMax(primaryProvider), remainingOrMax(secondaryProvider));
+            throw new RateLimitException("All providers are cooling down after rate limits",
+                    wait == Long.MAX_VALUE ? 0 : wait, primaryProvider);
+        }
+        if (failed != null) {
+            // Only the secondary's outcome reaches the caller
+            failed.lose();
+        }
+        return leg.await(0);
+    }
+
+    /**
+     * Waits for whichever running leg succeeds first and cancels the other.
+     * A leg that fails while the other is still running is reported as the
+     * loser if the other one wins. If both fail, the primary's error is
+     * thrown and the secondary's failure goes to the listener.
+     */
+    private GenerationResult firstSuccess(Leg primaryLeg, Leg secondaryLeg) throws Exception {
+        CompletableFuture<GenerationResult> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+
+        for (Leg leg : new Leg[] { primaryLeg, secondaryLeg }) {
+            leg.future.whenComplete((result, throwable) -> {
+                if (throwable == null && !leg.isLost() && winner.complete(result)) {
+                    if (leg == secondaryLeg) {
+                        Log.i(TAG, "Hedge to " + secondaryProvider + " won");
+                    }
+                    leg.other.lose();
+                    return;
+                }
+                if (pending.decrementAndGet() == 0 && !winner.isDone()) {
+                    Leg surfaced = primaryLeg.error != null ? primaryLeg : secondaryLeg;
+                    surfaced.other.lose();
+                    winner.completeExceptionally(surfaced.error != null ? surfaced.error : unwrap(throwable));
+                }
+            });
+        }
+        return await(winner, 0);
+    }
+
+    /**
+     * Waits for a future, unwrapping the task's exception.
+     *
+     * @param timeoutMs Maximum wait, or 0 to wait until it completes
+     */
+    private static GenerationResult await(CompletableFuture<GenerationResult> future, long timeoutMs)
+            throws Exception {
+        try {
+            return timeoutMs > 0 ? future.get(timeoutMs, TimeUnit.MILLISECONDS) : future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Request interrupted");
+        }
+    }
+
+    private static Exception unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception ? (Exception) cause : new Exception(cause);
+    }
+
+    private static long remainingOrMax(String provider) {
+        long remaining = CircuitBreaker.forProvider(provider).getRemainingOpenMs();
+        return remaining > 0 ? remaining : Long.MAX_VALUE;
+    }
+
+    /**
+     * One provider's side of the race.
+     *
+     * The leg owns its token. Losing cancels only the token, so the call
+     * still ends in run(), which reports the loss with whatever the call
+     * really produced. A cancel by the user also completes the future, so
+     * the caller returns at once; that is not a loss and is not reported.
+     */
+    private class Leg {
+        final String provider;
+        final IContentCurator curator;
+        final CircuitBreaker breaker;
+        final CancellationToken token = new CancellationToken();
+        Leg other;
+
+        volatile CompletableFuture<GenerationResult> future;
+        volatile Exception error;
+
+        // Guarded by this
+        private boolean started = false;
+        private boolean lost = false;
+        private boolean cancelled = false;
+        private boolean finished = false;
+        private boolean reported = false;
+        private GenerationResult result;
+        private Exception failure;
+
+        Leg(String provider, IContentCurator curator) {
+            this.provider = provider;
+            this.curator = curator;
+            this.breaker = CircuitBreaker.forProvider(provider);
+        }
+
+        /**
+         * Starts the leg unless the provider's circuit is open.
+         *
+         * @return Whether the leg was started
+         */
+        boolean start(Attempt attempt, StreamCallback callback, AtomicReference<Leg> streamOwner) {
+            if (!breaker.allowRequest()) {
+                return false;
+            }
+
+            StreamCallback legCallback = callback == null ? null : partialText -> {
+                if (streamOwner.compareAndSet(null, this)) {
+                    // First text in decides a streaming race
+                    Log.i(TAG, provider + " streamed first");
+                    other.lose();
+                }
+                if (streamOwner.get() == this) {
+                    callback.onPartialText(partialText);
+                }
+            };
+
+            CompletableFuture<GenerationResult> f = new CompletableFuture<>();
+            future = f;
+            synchronized (this) {
+                started = true;
+                if (lost) {
+                    // Lost the race while starting
+                    token.cancel();
+                }
+            }
+            executor.execute(() -> {
+                try {
+                    f.complete(run(attempt, legCallback));
+                } catch (Throwable t) {
+                    f.completeExceptionally(t);
+                }
+            });
+            return true;
+        }
+
+        private GenerationResult run(Attempt attempt, StreamCallback callback) throws Exception {
+            GenerationResult legResult = null;
+            Exception legFailure = null;
+            try {
+                legResult = attempt.run(curator, callback, token);
+                breaker.recordSuccess();
+                return legResult;
+            } catch (CancellationException ce) {
+                breaker.recordCancelled();
+                legFailure = ce;
+                throw ce;
+            } catch (RateLimitException rle) {
+                if (rle.isClientSide()) {
+                    breaker.recordCancelled();
+                } else {
+                    breaker.recordRateLimit(rle.getRetryDelayMs());
+                }
+                error = rle;
+                legFailure = rle;
+                throw rle;
+            } catch (Exception e) {
+                if (FailoverCurator.isProviderError(e)) {
+                    breaker.recordFailure();
+                } else {
+                    breaker.recordCancelled();
+                }
+                error = e;
+                legFailure = e;
+                throw e;
+            } finally {
+                finish(legResult, legFailure);
+            }
+        }
+
+        GenerationResult await(long timeoutMs) throws Exception {
+            return HedgedCurator.await(future, timeoutMs);
+        }
+
+        synchronized boolean isLost() {
+            return lost;
+        }
+
+        /**
+         * Clears a loss marked before the leg started, when it goes on to
+         * run on its own.
+         */
+        synchronized void reset() {
+            if (!started) {
+                lost = false;
+            }
+        }
+
+        /**
+         * Marks this leg as the loser. A running call is cancelled and
+         * reported when it ends; a finished one is reported now.
+         */
+        void lose() {
+            boolean reportNow;
+            synchronized (this) {
+                if (cancelled || lost) {
+                    return;
+                }
+                lost = true;
+                if (started) {
+                    token.cancel();
+                }
+                reportNow = claimReport();
+            }
+            if (reportNow) {
+                reportLoss();
+            }
+        }
+
+        /**
+         * Cancels the leg for the user; the caller stops waiting at once.
+         */
+        void cancel() {
+            synchronized (this) {
+                cancelled = true;
+            }
+            token.cancel();
+            CompletableFuture<GenerationResult> f = future;
+            if (f != null) {
+                f.cancel(true);
+            }
+        }
+
+        /**
+         * Records how the call ended, reporting it if the leg already lost.
+         */
+        private void finish(GenerationResult legResult, Exception legFailure) {
+            boolean reportNow;
+            synchronized (this) {
+                finished = true;
+                result = legResult;
+                failure = legFailure;
+                reportNow = claimReport();
+            }
+            if (reportNow) {
+                reportLoss();
+            }
+        }
+
+        private boolean claimReport() {
+            if (!lost || !finished || reported) {
+                return false;
+            }
+            reported = true;
+            return true;
+        }
+
+        /**
+         * Passes this leg's outcome to the listener.
+         */
+        private void reportLoss() {
+            GenerationResult legResult;
+            Exception cause;
+            synchronized (this) {
+                legResult = result;
+                cause = legResult != null ? null
+                        : failure != null ? failure : new CancellationException("Request cancelled");
+            }
+            Log.i(TAG, "Hedge loser " + provider + " ended: "
+                    + (legResult != null ? legResult.toString() : cause.getMessage()));
+            if (loserListener != null) {
+                loserListener.onLoserFinished(provider, legResult, cause);
+            }
+        }
+    }
+}
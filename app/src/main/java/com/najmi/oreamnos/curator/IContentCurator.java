@@ -1,11 +1,19 @@
 package com.najmi.oreamnos.curator;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Interface defining content curation contract.
  * Allows swapping between different AI providers (Gemini, OpenAI, Groq, etc.)
  * without changing the calling code.
+ *
+ * Results are returned as immutable GenerationResult objects, so a curator
+ * holds no per-request state and one instance can serve concurrent calls.
+ *
+ * Every operation has a blocking form that takes a CancellationToken and an
+ * async form that returns a CancellableFuture; cancelling either aborts the
+ * in-flight HTTP call and any retry sleep.
  */
 public interface IContentCurator {
 
@@ -15,10 +23,57 @@ public interface IContentCurator {
      * @param inputText     The text to curate
      * @param includeSource Whether to include source citation
      * @param keepStructure Whether to preserve original formatting/structure
-     * @return The curated post
+     * @return The curated post with its token usage
      * @throws Exception if curation fails
      */
-    String curatePost(String inputText, boolean includeSource, boolean keepStructure) throws Exception;
+    default GenerationResult curatePost(String inputText, boolean includeSource, boolean keepStructure)
+            throws Exception {
+        return curatePost(inputText, includeSource, keepStructure, new CancellationToken());
+    }
+
+    /**
+     * Curates the input text into a social media post.
+     *
+     * @param inputText     The text to curate
+     * @param includeSource Whether to include source citation
+     * @param keepStructure Whether to preserve original formatting/structure
+     * @param token         Cancels the request
+     * @return The curated post with its token usage
+     * @throws java.util.concurrent.CancellationException if cancelled
+     * @throws Exception                                  if curation fails
+     */
+    GenerationResult curatePost(String inputText, boolean includeSource, boolean keepStructure,
+            CancellationToken token) throws Exception;
+
+    /**
+     * Curates the input text, streaming partial output as it is generated.
+     *
+     * @param inputText     The text to curate
+     * @param includeSource Whether to include source citation
+     * @param keepStructure Whether to preserve original formatting/structure
+     * @param callback      Receives the accumulated text as tokens arrive
+     * @return The final curated post with its token usage
+     * @throws Exception if curation fails
+     */
+    default GenerationResult curatePostStreaming(String inputText, boolean includeSource, boolean keepStructure,
+            StreamCallback callback) throws Exception {
+        return curatePostStreaming(inputText, includeSource, keepStructure, callback, new CancellationToken());
+    }
+
+    /**
+     * Curates the input text, streaming partial output as it is generated.
+     *
+     * @param inputText     The text to curate
+     * @param includeSource Whether to include source citation
+     * @param keepStructure Whether to preserve original formatting/structure
+     * @param callback      Receives the accumulated text as tokens arrive
+     * @param token         Cancels the request
+     * @return The final curated post with its token usage
+     * @throws java.util.concurrent.CancellationException if cancelled
+     * @throws Exception                                  if curation fails
+     */
+    GenerationResult curatePostStreaming(String inputText, boolean includeSource, boolean keepStructure,
+            StreamCallback callback, CancellationToken token) throws Exception;
 
     /**
      * Refines an existing post based on selected refinement options.
@@ -26,23 +81,49 @@ public interface IContentCurator {
      * @param originalPost  The post to refine
      * @param refinements   List of refinement options (e.g., "rephrase", "formal")
      * @param includeSource Whether to include source citation
-     * @return The refined post
+     * @return The refined post with its token usage
      * @throws Exception if refinement fails
      */
-    String refinePost(String originalPost, List<String> refinements, boolean includeSource) throws Exception;
+    default GenerationResult refinePost(String originalPost, List<String> refinements, boolean includeSource)
+            throws Exception {
+        return refinePost(originalPost, refinements, includeSource, new CancellationToken());
+    }
 
     /**
-     * Gets the last prompt token count from API response.
+     * Refines an existing post based on selected refinement options.
+     *
+     * @param originalPost  The post to refine
+     * @param refinements   List of refinement options (e.g., "rephrase", "formal")
+     * @param includeSource Whether to include source citation
+     * @param token         Cancels the request
+     * @return The refined post with its token usage
+     * @throws java.util.concurrent.CancellationException if cancelled
+     * @throws Exception                                  if refinement fails
      */
-    int getLastPromptTokens();
+    GenerationResult refinePost(String originalPost, List<String> refinements, boolean includeSource,
+            CancellationToken token) throws Exception;
 
     /**
-     * Gets the last candidate (response) token count from API response.
+     * Curates asynchronously on the given executor.
+     *
+     * @param callback Receives streamed partial text, or null for a single response
+     * @return Future for the curated post; cancel() aborts the request
      */
-    int getLastCandidateTokens();
+    default CancellableFuture<GenerationResult> curatePostAsync(String inputText, boolean includeSource,
+            boolean keepStructure, StreamCallback callback, Executor executor) {
+        return CancellableFuture.supplyAsync(token -> callback != null
+                ? curatePostStreaming(inputText, includeSource, keepStructure, callback, token)
+                : curatePost(inputText, includeSource, keepStructure, token), executor);
+    }
 
     /**
-     * Gets the last total token count from API response.
+     * Refines asynchronously on the given executor.
+     *
+     * @return Future for the refined post; cancel() aborts the request
      */
-    int getLastTotalTokens();
+    default CancellableFuture<GenerationResult> refinePostAsync(String originalPost, List<String> refinements,
+            boolean includeSource, Executor executor) {
+        return CancellableFuture.supplyAsync(
+                token -> refinePost(originalPost, refinements, includeSource, token), executor);
+    }
 }
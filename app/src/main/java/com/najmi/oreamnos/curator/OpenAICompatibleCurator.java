@@ -4,18 +4,27 @@ import android.util.Log;
 
 import com.najmi.oreamnos.prompts.PromptManager;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
+import com.najmi.oreamnos.exceptions.ApiException;
 import com.najmi.oreamnos.exceptions.RateLimitException;
+import com.najmi.oreamnos.network.HttpClientProvider;
+import com.najmi.oreamnos.network.StreamingJsonBody;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
 
 /**
  * OpenAI-compatible API curator that works with both Groq and OpenRouter.
@@ -37,11 +46,9 @@ public class OpenAICompatibleCurator implements IContentCurator {
     private final String tone;
     private final boolean isOpenRouter;
     private final PromptManager promptManager;
-
-    // Token counts from last API call
-    private int lastPromptTokens = 0;
-    private int lastCandidateTokens = 0;
-    private int lastTotalTokens = 0;
+    private final OkHttpClient client;
+    private final ProviderRateLimiter rateLimiter;
+    private final long maxQueueMs; // Longest wait for a rate limiter slot
 
     /**
      * Creates an OpenAI-compatible curator.
@@ -55,47 +62,102 @@ public class OpenAICompatibleCurator implements IContentCurator {
      */
     public OpenAICompatibleCurator(String apiKey, String baseUrl, String modelId,
             String tone, boolean isOpenRouter) {
+        this(apiKey, baseUrl, modelId, tone, isOpenRouter, false);
+    }
+
+    /**
+     * Creates an OpenAI-compatible curator.
+     *
+     * @param failFastOnRateLimit Give up after a short wait for the client-side
+     *                            rate limiter, so a failover chain can move on
+     */
+    public OpenAICompatibleCurator(String apiKey, String baseUrl, String modelId,
+            String tone, boolean isOpenRouter, boolean failFastOnRateLimit) {
         this.apiKey = apiKey;
         this.baseUrl = baseUrl;
         this.modelId = modelId;
         this.tone = tone;
         this.isOpenRouter = isOpenRouter;
         this.promptManager = new PromptManager();
+        this.client = HttpClientProvider.getClientForUrl(baseUrl);
+        this.rateLimiter = ProviderRateLimiter.forProvider(getProviderName());
+        this.maxQueueMs = failFastOnRateLimit
+                ? ProviderRateLimiter.MAX_QUEUE_MS_IN_CHAIN
+                : ProviderRateLimiter.MAX_QUEUE_MS;
+    }
+
+    @Override
+    public GenerationResult curatePost(String inputText, boolean includeSource, boolean keepStructure,
+            CancellationToken token) throws Exception {
+        String systemPrompt = "You are a professional social media content writer for a Malaysian football club. " +
+                "Write in Malaysian Malay (Bahasa Malaysia) only. Do not include hashtags.";
+        String userPrompt = promptManager.buildInitialPrompt(tone, inputText, includeSource, keepStructure);
+
+        return callApi(systemPrompt, userPrompt, null, token);
     }
 
     @Override
-    public String curatePost(String inputText, boolean includeSource, boolean keepStructure) throws Exception {
+    public GenerationResult curatePostStreaming(String inputText, boolean includeSource, boolean keepStructure,
+            StreamCallback callback, CancellationToken token) throws Exception {
         String systemPrompt = "You are a professional social media content writer for a Malaysian football club. " +
                 "Write in Malaysian Malay (Bahasa Malaysia) only. Do not include hashtags.";
         String userPrompt = promptManager.buildInitialPrompt(tone, inputText, includeSource, keepStructure);
 
-        return callApi(systemPrompt, userPrompt);
+        return callApi(systemPrompt, userPrompt, callback, token);
     }
 
     @Override
-    public String refinePost(String originalPost, List<String> refinements, boolean includeSource) throws Exception {
+    public GenerationResult refinePost(String originalPost, List<String> refinements, boolean includeSource,
+            CancellationToken token) throws Exception {
         String systemPrompt = "You are refining a Malaysian Malay social media post about football. " +
                 "Apply improvements while maintaining Bahasa Malaysia. Do not include hashtags.";
         String userPrompt = promptManager.buildRefinementPrompt(originalPost, refinements, includeSource);
 
-        return callApi(systemPrompt, userPrompt);
+        return callApi(systemPrompt, userPrompt, null, token);
     }
 
     /**
      * Makes the API call with retry logic.
+     * Only network errors and provider-side errors (5xx) are retried.
+     * When a callback is given the response is streamed; retries only happen
+     * if nothing has been streamed yet.
      */
-    private String callApi(String systemPrompt, String userPrompt) throws Exception {
+    private GenerationResult callApi(String systemPrompt, String userPrompt, StreamCallback callback,
+            CancellationToken token) throws Exception {
+        long startTime = System.currentTimeMillis();
         int retryCount = 0;
         int delayMs = INITIAL_RETRY_DELAY_MS;
         Exception lastException = null;
+        int estimatedTokens = ProviderRateLimiter.estimateTokens(systemPrompt + userPrompt);
 
         while (retryCount < MAX_RETRIES) {
+            token.throwIfCancelled();
+            // Wait for quota client-side instead of sending a request that would 429
+            rateLimiter.acquire(estimatedTokens, maxQueueMs, token);
+            StringBuilder streamed = new StringBuilder();
+            GenerationResult.Builder result = new GenerationResult.Builder()
+                    .provider(getProviderName())
+                    .model(modelId)
+                    .attempts(retryCount + 1);
             try {
-                return executeRequest(systemPrompt, userPrompt);
-            } catch (RateLimitException rle) {
-                // Rate limit exceptions should be thrown immediately for fallback handling
-                throw rle;
+                String text = executeRequest(systemPrompt, userPrompt, callback, streamed, result, token);
+                GenerationResult built = result.text(text)
+                        .latencyMs(System.currentTimeMillis() - startTime)
+                        .build();
+                rateLimiter.recordSuccess(estimatedTokens, built.getTotalTokens());
+                return built;
+            } catch (RateLimitException | CancellationException e) {
+                // Rate limits are thrown immediately for fallback handling; cancellation is final
+                throw e;
             } catch (Exception e) {
+                if (streamed.length() > 0) {
+                    // Partial text was already delivered; don't restart the stream
+                    throw new Exception("Stream interrupted: " + e.getMessage(), e);
+                }
+                if (!FailoverCurator.isProviderError(e)) {
+                    // A rejected request fails the same way every time
+                    throw e;
+                }
                 lastException = e;
                 retryCount++;
                 Log.w(TAG, "API call failed (attempt " + retryCount + "/" + MAX_RETRIES + "): " + e.getMessage());
@@ -104,8 +166,8 @@ public class OpenAICompatibleCurator implements IContentCurator {
                     throw e;
                 }
 
-                // Exponential backoff
-                Thread.sleep(delayMs);
+                // Exponential backoff (wakes up early if cancelled)
+                token.sleep(delayMs);
                 delayMs *= 2;
             }
         }
@@ -115,138 +177,235 @@ public class OpenAICompatibleCurator implements IContentCurator {
 
     /**
      * Executes the HTTP request to the OpenAI-compatible API.
+     * Uses the shared pooled client so keep-alive and HTTP/2 connections are
+     * reused across calls; OkHttp transparently negotiates gzip responses.
+     *
+     * @param callback Stream callback, or null for a single blocking response
+     * @param streamed Receives the streamed text so far (streaming mode only)
+     * @param result   Receives the token usage of this request
+     * @param token    Cancelling it aborts the call
      */
-    private String executeRequest(String systemPrompt, String userPrompt) throws Exception {
-        URL url = new URL(baseUrl);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
-        try {
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setRequestProperty("Authorization", "Bearer " + apiKey);
-
-            // OpenRouter requires additional headers
-            if (isOpenRouter) {
-                conn.setRequestProperty("HTTP-Referer", "https://github.com/socurate-app");
-                conn.setRequestProperty("X-Title", "Socurate Football Content Curator");
-            }
-
-            conn.setDoOutput(true);
-            conn.setConnectTimeout(30000);
-            conn.setReadTimeout(60000);
-
-            // Build request body in OpenAI format
-            JSONObject requestBody = buildRequestBody(systemPrompt, userPrompt);
+    private String executeRequest(String systemPrompt, String userPrompt, StreamCallback callback,
+            StringBuilder streamed, GenerationResult.Builder result, CancellationToken token) throws Exception {
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(baseUrl)
+                .post(buildRequestBody(systemPrompt, userPrompt, callback != null))
+                .addHeader("Authorization", "Bearer " + apiKey);
+
+        // OpenRouter requires additional headers
+        if (isOpenRouter) {
+            requestBuilder.addHeader("HTTP-Referer", "https://github.com/socurate-app");
+            requestBuilder.addHeader("X-Title", "Socurate Football Content Curator");
+        }
 
-            Log.d(TAG, "Sending request to: " + baseUrl);
-            Log.d(TAG, "Model: " + modelId);
+        Log.d(TAG, "Sending request to: " + baseUrl);
+        Log.d(TAG, "Model: " + modelId);
 
-            // Write request
-            try (OutputStream os = conn.getOutputStream()) {
-                byte[] input = requestBody.toString().getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
-            }
+        Call call = token.register(client.newCall(requestBuilder.build()));
+        try (Response response = call.execute()) {
+            int responseCode = response.code();
+            Log.d(TAG, "Response code: " + responseCode + " (" + response.protocol() + ")");
 
-            int responseCode = conn.getResponseCode();
-            Log.d(TAG, "Response code: " + responseCode);
-
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                // Read response
-                StringBuilder response = new StringBuilder();
-                try (BufferedReader br = new BufferedReader(
-                        new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
-                    String line;
-                    while ((line = br.readLine()) != null) {
-                        response.append(line);
-                    }
+            ResponseBody body = response.body();
+            if (response.isSuccessful()) {
+                if (body == null) {
+                    throw new Exception("Empty response body");
                 }
+                return callback != null
+                        ? parseStream(body, streamed, result, callback, token)
+                        : parseResponse(body, result);
+            }
 
-                return parseResponse(response.toString());
-            } else {
-                // Read error response
-                StringBuilder errorResponse = new StringBuilder();
-                try (BufferedReader br = new BufferedReader(
-                        new InputStreamReader(conn.getErrorStream(), StandardCharsets.UTF_8))) {
-                    String line;
-                    while ((line = br.readLine()) != null) {
-                        errorResponse.append(line);
-                    }
-                }
-
-                Log.e(TAG, "API Error: " + errorResponse);
-
-                // Check for rate limit (429)
-                if (responseCode == 429) {
-                    String providerName = isOpenRouter ? "openrouter" : "groq";
-                    throw new RateLimitException(
-                            "Rate limit exceeded for " + providerName,
-                            0, // OpenAI-compatible APIs don't always provide retry delay
-                            providerName);
-                }
+            // Read error response
+            String errorResponse = body != null ? body.string() : "";
+            Log.e(TAG, "API Error: " + errorResponse);
+
+            // Check for rate limit (429)
+            if (responseCode == 429) {
+                String providerName = getProviderName();
+                // OpenAI-compatible APIs don't always provide a retry delay
+                long retryDelayMs = parseRetryAfter(response.header("Retry-After"));
+                rateLimiter.recordRateLimit(retryDelayMs);
+                throw new RateLimitException(
+                        "Rate limit exceeded for " + providerName,
+                        retryDelayMs,
+                        providerName);
+            }
 
-                throw new Exception("API error (" + responseCode + "): " + parseErrorMessage(errorResponse.toString()));
+            throw new ApiException("API error (" + responseCode + "): " + parseErrorMessage(errorResponse),
+                    responseCode);
+        } catch (IOException e) {
+            if (token.isCancelled()) {
+                throw new CancellationException("Request cancelled");
             }
+            throw e;
         } finally {
-            conn.disconnect();
+            token.unregister(call);
         }
     }
 
     /**
      * Builds the request body in OpenAI chat completions format.
+     * The JSON is streamed directly into the request sink.
      */
-    private JSONObject buildRequestBody(String systemPrompt, String userPrompt) throws Exception {
-        JSONObject body = new JSONObject();
-        body.put("model", modelId);
+    private RequestBody buildRequestBody(String systemPrompt, String userPrompt, boolean stream) {
+        return new StreamingJsonBody(writer -> {
+            writer.beginObject();
+            writer.name("model").value(modelId);
+
+            writer.name("messages").beginArray();
+            // System message
+            writer.beginObject();
+            writer.name("role").value("system");
+            writer.name("content").value(systemPrompt);
+            writer.endObject();
+            // User message
+            writer.beginObject();
+            writer.name("role").value("user");
+            writer.name("content").value(userPrompt);
+            writer.endObject();
+            writer.endArray();
+
+            writer.name("temperature").value(0.7);
+            writer.name("max_tokens").value(2048);
+            if (stream) {
+                writer.name("stream").value(true);
+                // Ask for a final usage chunk so token accounting still works
+                writer.name("stream_options").beginObject();
+                writer.name("include_usage").value(true);
+                writer.endObject();
+            }
+            writer.endObject();
+        });
+    }
 
-        JSONArray messages = new JSONArray();
+    /**
+     * Parses the OpenAI-format response straight from the body stream.
+     * Format: {"choices": [{"message": {"content": "..."}}], "usage": {...}}
+     */
+    private String parseResponse(ResponseBody body, GenerationResult.Builder result) throws Exception {
+        JsonObject response = JsonParser.parseReader(body.charStream()).getAsJsonObject();
 
-        // System message
-        JSONObject systemMessage = new JSONObject();
-        systemMessage.put("role", "system");
-        systemMessage.put("content", systemPrompt);
-        messages.put(systemMessage);
+        // Extract token usage
+        readUsage(response, result);
 
-        // User message
-        JSONObject userMessage = new JSONObject();
-        userMessage.put("role", "user");
-        userMessage.put("content", userPrompt);
-        messages.put(userMessage);
+        // Extract content
+        JsonArray choices = response.has("choices") ? response.getAsJsonArray("choices") : null;
+        if (choices == null || choices.size() == 0) {
+            throw new Exception("No choices in response");
+        }
 
-        body.put("messages", messages);
-        body.put("temperature", 0.7);
-        body.put("max_tokens", 2048);
+        JsonObject firstChoice = choices.get(0).getAsJsonObject();
+        JsonObject message = firstChoice.getAsJsonObject("message");
+        if (message == null || !message.has("content") || message.get("content").isJsonNull()) {
+            throw new Exception("No content in response");
+        }
+        String content = message.get("content").getAsString();
 
-        return body;
+        return content.trim();
     }
 
     /**
-     * Parses the OpenAI-format response.
-     * Format: {"choices": [{"message": {"content": "..."}}], "usage": {...}}
+     * Parses a server-sent events stream of chat completion chunks.
+     * Format: "data: {"choices": [{"delta": {"content": "..."}}]}" lines,
+     * terminated by "data: [DONE]".
      */
-    private String parseResponse(String responseJson) throws Exception {
-        JSONObject response = new JSONObject(responseJson);
+    private String parseStream(ResponseBody body, StringBuilder accumulated, GenerationResult.Builder result,
+            StreamCallback callback, CancellationToken token) throws Exception {
+        BufferedSource source = body.source();
+        PartialTextThrottle partials = new PartialTextThrottle(accumulated, callback, token);
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            // Skip blank separators and keep-alive comments (": OPENROUTER PROCESSING")
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring(5).trim();
+            if (data.isEmpty()) {
+                continue;
+            }
+            if ("[DONE]".equals(data)) {
+                break;
+            }
 
-        // Extract token usage
-        if (response.has("usage")) {
-            JSONObject usage = response.getJSONObject("usage");
-            lastPromptTokens = usage.optInt("prompt_tokens", 0);
-            lastCandidateTokens = usage.optInt("completion_tokens", 0);
-            lastTotalTokens = usage.optInt("total_tokens", 0);
-            Log.d(TAG, "Token usage - Prompt: " + lastPromptTokens +
-                    ", Completion: " + lastCandidateTokens + ", Total: " + lastTotalTokens);
+            JsonObject chunk = JsonParser.parseString(data).getAsJsonObject();
+            if (chunk.has("error") && chunk.get("error").isJsonObject()) {
+                throw new ApiException("API error (stream): " + parseErrorMessage(data), 0);
+            }
+
+            // Usage arrives on the final chunk (Groq also nests it under x_groq)
+            readUsage(chunk, result);
+            if (chunk.has("x_groq") && chunk.get("x_groq").isJsonObject()) {
+                readUsage(chunk.getAsJsonObject("x_groq"), result);
+            }
+
+            JsonArray choices = chunk.has("choices") && chunk.get("choices").isJsonArray()
+                    ? chunk.getAsJsonArray("choices")
+                    : null;
+            if (choices == null || choices.size() == 0) {
+                continue;
+            }
+            JsonObject delta = choices.get(0).getAsJsonObject().getAsJsonObject("delta");
+            if (delta == null || !delta.has("content") || delta.get("content").isJsonNull()) {
+                continue;
+            }
+
+            partials.append(delta.get("content").getAsString());
         }
+        partials.flush();
 
-        // Extract content
-        JSONArray choices = response.getJSONArray("choices");
-        if (choices.length() == 0) {
-            throw new Exception("No choices in response");
+        if (accumulated.length() == 0) {
+            throw new Exception("No content in response");
         }
+        return accumulated.toString().trim();
+    }
 
-        JSONObject firstChoice = choices.getJSONObject(0);
-        JSONObject message = firstChoice.getJSONObject("message");
-        String content = message.getString("content");
+    /**
+     * Reads token usage from an object holding a "usage" field, if present.
+     */
+    private void readUsage(JsonObject holder, GenerationResult.Builder result) {
+        if (holder.has("usage") && holder.get("usage").isJsonObject()) {
+            JsonObject usage = holder.getAsJsonObject("usage");
+            int promptTokens = optInt(usage, "prompt_tokens");
+            int completionTokens = optInt(usage, "completion_tokens");
+            int totalTokens = optInt(usage, "total_tokens");
+            result.promptTokens(promptTokens)
+                    .candidateTokens(completionTokens)
+                    .totalTokens(totalTokens);
+            Log.d(TAG, "Token usage - Prompt: " + promptTokens +
+                    ", Completion: " + completionTokens + ", Total: " + totalTokens);
+        }
+    }
 
-        return content.trim();
+    /**
+     * Gets the provider key used in results and rate limit errors.
+     */
+    private String getProviderName() {
+        return isOpenRouter ? "openrouter" : "groq";
+    }
+
+    /**
+     * Parses a Retry-After header given in seconds.
+     *
+     * @return Delay in milliseconds, or 0 if missing or not numeric
+     */
+    private static long parseRetryAfter(String header) {
+        if (header == null) {
+            return 0;
+        }
+        try {
+            return (long) (Double.parseDouble(header.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            return 0; // HTTP-date form is not used by these providers
+        }
+    }
+
+    /**
+     * Reads an int field, returning 0 if missing or null.
+     */
+    private static int optInt(JsonObject obj, String name) {
+        JsonElement element = obj.get(name);
+        return element != null && !element.isJsonNull() ? element.getAsInt() : 0;
     }
 
     /**
@@ -254,29 +413,14 @@ public class OpenAICompatibleCurator implements IContentCurator {
      */
     private String parseErrorMessage(String errorJson) {
         try {
-            JSONObject error = new JSONObject(errorJson);
-            if (error.has("error")) {
-                JSONObject errorObj = error.getJSONObject("error");
-                return errorObj.optString("message", "Unknown error");
+            JsonObject error = JsonParser.parseString(errorJson).getAsJsonObject();
+            if (error.has("error") && error.get("error").isJsonObject()) {
+                JsonObject errorObj = error.getAsJsonObject("error");
+                return errorObj.has("message") ? errorObj.get("message").getAsString() : "Unknown error";
             }
             return errorJson;
         } catch (Exception e) {
             return errorJson;
         }
     }
-
-    @Override
-    public int getLastPromptTokens() {
-        return lastPromptTokens;
-    }
-
-    @Override
-    public int getLastCandidateTokens() {
-        return lastCandidateTokens;
-    }
-
-    @Override
-    public int getLastTotalTokens() {
-        return lastTotalTokens;
-    }
 }
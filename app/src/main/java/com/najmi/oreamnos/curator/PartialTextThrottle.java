@@ -0,0 +1,62 @@
+package com.najmi.oreamnos.curator;
+
+/**
+ * Coalesces streamed deltas before they reach a StreamCallback.
+ *
+ * Providers send a chunk every few tokens; passing the whole text on for
+ * each one copies it again every time and floods the UI with broadcasts.
+ * Deltas are appended to the caller's buffer, and the accumulated text is
+ * only built and delivered once every INTERVAL_MS, plus once more on
+ * flush() so the last words are not held back.
+ */
+public class PartialTextThrottle {
+
+    // About three frames; fast enough to look live
+    static final long INTERVAL_MS = 50;
+
+    private final StringBuilder accumulated;
+    private final StreamCallback callback;
+    private final CancellationToken token;
+    private long lastSentAt = 0;
+    private int sentLength = 0;
+
+    /**
+     * @param accumulated Buffer the deltas are appended to
+     * @param callback    Receives the accumulated text, or null to only buffer
+     * @param token       No text is delivered once this is cancelled
+     */
+    public PartialTextThrottle(StringBuilder accumulated, StreamCallback callback, CancellationToken token) {
+        this.accumulated = accumulated;
+        this.callback = callback;
+        this.token = token;
+    }
+
+    /**
+     * Appends a delta, delivering the text if INTERVAL_MS has passed since
+     * the last delivery.
+     */
+    public void append(String delta) {
+        accumulated.append(delta);
+        if (System.currentTimeMillis() - lastSentAt >= INTERVAL_MS) {
+            send();
+        }
+    }
+
+    /**
+     * Delivers any text not yet delivered.
+     */
+    public void flush() {
+        if (accumulated.length() != sentLength) {
+            send();
+        }
+    }
+
+    private void send() {
+        if (callback == null || token.isCancelled()) {
+            return;
+        }
+        lastSentAt = System.currentTimeMillis();
+        sentLength = accumulated.length();
+        callback.onPartialText(accumulated.toString());
+    }
+}
@@ -0,0 +1,259 @@
+package com.najmi.oreamnos.curator;
+
+import android.util.Log;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.najmi.oreamnos.exceptions.RateLimitException;
+import com.najmi.oreamnos.utils.PreferencesManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Client-side admission control for one AI provider.
+ *
+ * Two token buckets are kept per provider: requests per minute and tokens per
+ * minute, seeded from the provider's free-tier limits. acquire() waits until
+ * both buckets have room before a request is sent, so requests that would be
+ * rejected with a 429 are delayed instead of burning retries.
+ *
+ * A 429 blocks the provider until its retry hint has passed and lowers the
+ * learned requests-per-minute limit; sustained successes raise it back
+ * towards the seed. The learned limit and block are persisted, so they
+ * survive process restarts.
+ */
+public class ProviderRateLimiter {
+
+    private static final String TAG = "ProviderRateLimiter";
+
+    private static final long WINDOW_MS = 60000L;
+    // Block applied after a 429 without a retry hint
+    private static final long DEFAULT_BLOCK_MS = 30000L;
+    // Longest a caller waits in acquire() before getting a RateLimitException
+    public static final long MAX_QUEUE_MS = 20000L;
+    // Shorter wait for curators in a failover chain, so the chain moves on
+    public static final long MAX_QUEUE_MS_IN_CHAIN = 3000L;
+    // Rough output size used to reserve tokens before the response is known
+    private static final int EXPECTED_OUTPUT_TOKENS = 1024;
+
+    private static final Map<String, ProviderRateLimiter> limiters = new ConcurrentHashMap<>();
+    private static volatile PreferencesManager store;
+
+    private final String provider;
+    private final int seedRpm;
+    private final int tpm; // 0 = no token limit
+    private final int rpd;
+
+    private int rpm;
+    private double requestLevel;
+    private double tokenLevel;
+    private long lastRefill;
+    private long blockedUntil = 0;
+    private int successesSinceAdjust = 0;
+
+    private ProviderRateLimiter(String provider) {
+        this.provider = provider;
+        switch (provider) {
+            case CuratorFactory.PROVIDER_GROQ:
+                // Llama 3.3 70B free tier
+                seedRpm = 30;
+                tpm = 12000;
+                rpd = 1000;
+                break;
+            case CuratorFactory.PROVIDER_OPENROUTER:
+                // Free models; no published token limit
+                seedRpm = 20;
+                tpm = 0;
+                rpd = 50;
+                break;
+            case CuratorFactory.PROVIDER_GEMINI:
+            default:
+                // Flash / Flash-Lite free tier
+                seedRpm = 15;
+                tpm = 250000;
+                rpd = 250;
+                break;
+        }
+        rpm = seedRpm;
+        restore();
+        requestLevel = rpm;
+        tokenLevel = tpm;
+        lastRefill = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the shared limiter for a provider.
+     */
+    public static ProviderRateLimiter forProvider(String provider) {
+        return limiters.computeIfAbsent(provider, ProviderRateLimiter::new);
+    }
+
+    /**
+     * Sets where learned limits are persisted. Limiters created before this
+     * call keep their in-memory state only.
+     */
+    public static void attach(PreferencesManager prefs) {
+        if (store == null) {
+            store = prefs;
+        }
+    }
+
+    /**
+     * Estimates the tokens a request will use from its prompt length
+     * (about four characters per token) plus the expected output.
+     */
+    public static int estimateTokens(String prompt) {
+        return (prompt != null ? prompt.length() / 4 : 0) + EXPECTED_OUTPUT_TOKENS;
+    }
+
+    /**
+     * Waits until a request of the given size may be sent and reserves it.
+     *
+     * @param estimatedTokens Tokens reserved for the request
+     * @param maxWaitMs       Longest acceptable wait
+     * @param token           Cancels the wait
+     * @throws RateLimitException if the wait would exceed maxWaitMs
+     * @throws java.util.concurrent.CancellationException if cancelled while waiting
+     */
+    public void acquire(int estimatedTokens, long maxWaitMs, CancellationToken token) throws Exception {
+        long deadline = System.currentTimeMillis() + maxWaitMs;
+        while (true) {
+            token.throwIfCancelled();
+            long waitMs = tryAcquire(estimatedTokens);
+            if (waitMs == 0) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (now + waitMs > deadline) {
+                Log.w(TAG, provider + " over its client-side limit, next slot in " + waitMs + "ms");
+                throw new RateLimitException("Rate limit reached for " + provider, waitMs, provider, true);
+            }
+            Log.i(TAG, provider + " queued for " + waitMs + "ms");
+            token.sleep(waitMs);
+        }
+    }
+
+    /**
+     * Reserves a slot if both buckets have room.
+     *
+     * @return 0 if reserved, otherwise milliseconds until one may be free
+     */
+    private synchronized long tryAcquire(int estimatedTokens) {
+        long now = System.currentTimeMillis();
+        if (now < blockedUntil) {
+            return blockedUntil - now;
+        }
+        refill(now);
+
+        long waitMs = 0;
+        if (requestLevel < 1) {
+            waitMs = (long) Math.ceil((1 - requestLevel) * WINDOW_MS / rpm);
+        }
+        int needed = tpm > 0 ? Math.min(estimatedTokens, tpm) : 0;
+        if (tpm > 0 && tokenLevel < needed) {
+            waitMs = Math.max(waitMs, (long) Math.ceil((needed - tokenLevel) * WINDOW_MS / tpm));
+        }
+        if (waitMs > 0) {
+            return waitMs;
+        }
+
+        requestLevel -= 1;
+        tokenLevel -= needed;
+        return 0;
+    }
+
+    /**
+     * Corrects the token reservation once the real usage is known, and
+     * slowly raises a lowered request limit back towards the seed.
+     *
+     * @param estimatedTokens Tokens reserved in acquire()
+     * @param actualTokens    Tokens the provider reported, or 0 if unknown
+     */
+    public synchronized void recordSuccess(int estimatedTokens, int actualTokens) {
+        if (tpm > 0 && actualTokens > 0) {
+            tokenLevel = Math.min(tpm, tokenLevel + Math.min(estimatedTokens, tpm) - actualTokens);
+        }
+        if (rpm < seedRpm && ++successesSinceAdjust >= rpm) {
+            rpm++;
+            successesSinceAdjust = 0;
+            Log.i(TAG, provider + " limit raised to " + rpm + " rpm");
+            persist();
+        }
+    }
+
+    /**
+     * Records a 429 from the provider: blocks it for the retry hint and
+     * lowers the learned requests-per-minute limit.
+     *
+     * @param retryDelayMs Provider's suggested delay, or 0 if unknown
+     */
+    public synchronized void recordRateLimit(long retryDelayMs) {
+        long now = System.currentTimeMillis();
+        blockedUntil = Math.max(blockedUntil, now + (retryDelayMs > 0 ? retryDelayMs : DEFAULT_BLOCK_MS));
+        requestLevel = 0;
+        rpm = Math.max(1, rpm * 3 / 4);
+        successesSinceAdjust = 0;
+        Log.w(TAG, provider + " rate limited; blocked " + (blockedUntil - now) + "ms, limit now " + rpm + " rpm");
+        persist();
+    }
+
+    /**
+     * Gets the provider's free-tier requests per day, for quota displays.
+     * Not enforced here; the provider's own 429 covers it.
+     */
+    public int getDailyRequestLimit() {
+        return rpd;
+    }
+
+    /**
+     * Gets milliseconds until the provider accepts requests again after a 429.
+     */
+    public synchronized long getBlockedMs() {
+        return Math.max(0, blockedUntil - System.currentTimeMillis());
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed <= 0) {
+            return;
+        }
+        requestLevel = Math.min(rpm, requestLevel + (double) elapsed * rpm / WINDOW_MS);
+        if (tpm > 0) {
+            tokenLevel = Math.min(tpm, tokenLevel + (double) elapsed * tpm / WINDOW_MS);
+        }
+        lastRefill = now;
+    }
+
+    // ==================== PERSISTENCE ====================
+
+    private void restore() {
+        PreferencesManager prefs = store;
+        if (prefs == null) {
+            return;
+        }
+        String json = prefs.getRateLimiterState(provider);
+        if (json == null) {
+            return;
+        }
+        try {
+            JsonObject state = JsonParser.parseString(json).getAsJsonObject();
+            rpm = Math.max(1, Math.min(seedRpm, state.get("rpm").getAsInt()));
+            blockedUntil = state.get("blockedUntil").getAsLong();
+            Log.i(TAG, "Restored " + provider + ": " + rpm + " rpm, blocked " + getBlockedMs() + "ms");
+        } catch (Exception e) {
+            Log.w(TAG, "Ignoring bad limiter state for " + provider, e);
+        }
+    }
+
+    private void persist() {
+        PreferencesManager prefs = store;
+        if (prefs == null) {
+            return;
+        }
+        JsonObject state = new JsonObject();
+        state.addProperty("rpm", rpm);
+        state.addProperty("blockedUntil", blockedUntil);
+        prefs.saveRateLimiterState(provider, state.toString());
+    }
+}
@@ -0,0 +1,16 @@
+package com.najmi.oreamnos.curator;
+
+/**
+ * Receives incremental output from a streaming curation call.
+ * Called on the worker thread that runs the request.
+ */
+public interface StreamCallback {
+
+    /**
+     * Called as new text arrives, coalesced to at most one call per
+     * PartialTextThrottle.INTERVAL_MS while streaming.
+     *
+     * @param accumulatedText All text received so far (raw, not yet cleaned up)
+     */
+    void onPartialText(String accumulatedText);
+}
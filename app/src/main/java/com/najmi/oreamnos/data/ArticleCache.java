@@ -0,0 +1,244 @@
+package com.najmi.oreamnos.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.net.Uri;
+import android.util.Log;
+
+import com.najmi.oreamnos.model.ExtractedArticle;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Two-level cache of fetched articles: a small in-memory LRU in front of a
+ * SQLite table in the app's cache directory, so Android may reclaim it.
+ *
+ * Entries are keyed by canonical URL (see canonicalize()) and keep the
+ * response's ETag and Last-Modified, so WebContentExtractor can revalidate
+ * a stale entry with a conditional request instead of downloading again.
+ */
+public class ArticleCache extends SQLiteOpenHelper {
+
+    private static final String TAG = "ArticleCache";
+
+    private static final String DATABASE_NAME = "article_cache.db";
+    private static final int DATABASE_VERSION = 2;
+
+    private static final String TABLE_ARTICLES = "articles";
+
+    private static final int MEMORY_ENTRIES = 16;
+    private static final int MAX_DISK_ENTRIES = 100;
+    // Entries not revalidated for this long are dropped
+    private static final long MAX_AGE_MS = 7 * 24 * 3600000L;
+
+    private static volatile ArticleCache instance;
+
+    // Most recently used entries, also guarding all access to itself
+    private final Map<String, Entry> memory = new LinkedHashMap<String, Entry>(MEMORY_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MEMORY_ENTRIES;
+        }
+    };
+
+    /**
+     * A fetched article with what it takes to revalidate it.
+     */
+    public static class Entry {
+        public final String url;
+        public final String etag;
+        public final String lastModified;
+        public final long fetchedAt;
+        public final ExtractedArticle article;
+
+        /**
+         * @param url Canonical URL the entry is stored under
+         */
+        public Entry(String url, String etag, String lastModified, long fetchedAt, ExtractedArticle article) {
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fetchedAt = fetchedAt;
+            this.article = article;
+        }
+
+        /**
+         * Gets a copy marked as fetched at the given time, after a 304.
+         */
+        public Entry revalidatedAt(long time) {
+            return new Entry(url, etag, lastModified, time, article);
+        }
+    }
+
+    /**
+     * Gets the process-wide article cache.
+     */
+    public static ArticleCache getInstance(Context context) {
+        ArticleCache result = instance;
+        if (result == null) {
+            synchronized (ArticleCache.class) {
+                result = instance;
+                if (result == null) {
+                    result = new ArticleCache(context.getApplicationContext());
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private ArticleCache(Context context) {
+        super(context, new File(context.getCacheDir(), DATABASE_NAME).getPath(), null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_ARTICLES + " ("
+                + "url TEXT PRIMARY KEY, "
+                + "etag TEXT, "
+                + "last_modified TEXT, "
+                + "fetched_at INTEGER NOT NULL, "
+                + "title TEXT, "
+                + "favicon_url TEXT, "
+                + "domain TEXT, "
+                + "content TEXT, "
+                + "language TEXT, "
+                + "source_url TEXT)");
+        db.execSQL("CREATE INDEX idx_articles_fetched ON " + TABLE_ARTICLES + " (fetched_at)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // A cache can always be rebuilt
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ARTICLES);
+        onCreate(db);
+    }
+
+    /**
+     * Gets the cached article for a canonical URL, from memory or disk.
+     *
+     * @return The entry, or null if never fetched or dropped
+     */
+    public Entry get(String url) {
+        synchronized (memory) {
+            Entry entry = memory.get(url);
+            if (entry != null) {
+                return entry;
+            }
+        }
+
+        Entry entry = null;
+        try (Cursor c = getReadableDatabase().rawQuery("SELECT url, etag, last_modified, fetched_at, source_url, "
+                + "title, favicon_url, domain, content, language FROM " + TABLE_ARTICLES + " WHERE url = ?",
+                new String[] {url})) {
+            if (c.moveToFirst()) {
+                ExtractedArticle article = new ExtractedArticle(c.getString(4), c.getString(5), c.getString(6),
+                        c.getString(7), c.getString(8), c.getString(9));
+                entry = new Entry(c.getString(0), c.getString(1), c.getString(2), c.getLong(3), article);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Disk cache read failed", e);
+        }
+
+        if (entry != null) {
+            synchronized (memory) {
+                memory.put(url, entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Stores an article in memory and on disk, dropping the oldest disk
+     * entries beyond MAX_DISK_ENTRIES or MAX_AGE_MS.
+     */
+    public void put(Entry entry) {
+        synchronized (memory) {
+            memory.put(entry.url, entry);
+        }
+
+        ContentValues values = new ContentValues();
+        values.put("url", entry.url);
+        values.put("etag", entry.etag);
+        values.put("last_modified", entry.lastModified);
+        values.put("fetched_at", entry.fetchedAt);
+        values.put("source_url", entry.article.getUrl());
+        values.put("title", entry.article.getTitle());
+        values.put("favicon_url", entry.article.getFaviconUrl());
+        values.put("domain", entry.article.getDomain());
+        values.put("content", entry.article.getContent());
+        values.put("language", entry.article.getLanguage());
+
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.insertWithOnConflict(TABLE_ARTICLES, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                db.delete(TABLE_ARTICLES, "fetched_at < ?",
+                        new String[] {String.valueOf(System.currentTimeMillis() - MAX_AGE_MS)});
+                db.delete(TABLE_ARTICLES, "url IN (SELECT url FROM " + TABLE_ARTICLES
+                        + " ORDER BY fetched_at DESC LIMIT -1 OFFSET " + MAX_DISK_ENTRIES + ")", null);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (Exception e) {
+            // The memory copy still serves this process
+            Log.w(TAG, "Disk cache write failed", e);
+        }
+    }
+
+    /**
+     * Drops every cached article, e.g. after the extraction settings change.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        try {
+            getWritableDatabase().delete(TABLE_ARTICLES, null, null);
+        } catch (Exception e) {
+            Log.w(TAG, "Disk cache clear failed", e);
+        }
+    }
+
+    /**
+     * Normalises a URL so variants of the same article share one entry:
+     * lowercase scheme and host, no fragment, no utm_* or fbclid tracking
+     * parameters, no trailing slash.
+     */
+    public static String canonicalize(String url) {
+        Uri uri = Uri.parse(url.trim());
+        if (uri.getScheme() == null || uri.getHost() == null) {
+            return url.trim();
+        }
+
+        Uri.Builder builder = uri.buildUpon()
+                .scheme(uri.getScheme().toLowerCase(Locale.ROOT))
+                .encodedAuthority(uri.getEncodedAuthority().toLowerCase(Locale.ROOT))
+                .fragment(null)
+                .clearQuery();
+        for (String name : uri.getQueryParameterNames()) {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (lower.startsWith("utm_") || lower.equals("fbclid") || lower.equals("gclid")) {
+                continue;
+            }
+            for (String value : uri.getQueryParameters(name)) {
+                builder.appendQueryParameter(name, value);
+            }
+        }
+
+        String canonical = builder.build().toString();
+        if (canonical.endsWith("/") && canonical.length() > uri.getScheme().length() + 3) {
+            canonical = canonical.substring(0, canonical.length() - 1);
+        }
+        return canonical;
+    }
+}
@@ -0,0 +1,268 @@
+package com.najmi.oreamnos.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.najmi.oreamnos.model.HistoryEntry;
+import com.najmi.oreamnos.utils.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * SQLite store of generated posts with full-text search.
+ *
+ * Each post is one row in history. history_fts is an FTS4 index over the
+ * title, body and input, kept in sync by triggers and pointing back at the
+ * rows (external content), so the text is stored once. Searches match word
+ * prefixes, so "salah" or "liver" find posts mentioning Liverpool's Salah.
+ *
+ * Posts are deduplicated by a SHA-256 of their text: generating the same
+ * post again moves the existing entry to the top instead of adding a copy.
+ */
+public class HistoryStore extends SQLiteOpenHelper {
+
+    private static final String TAG = "HistoryStore";
+
+    private static final String DATABASE_NAME = "history.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE_HISTORY = "history";
+    private static final String TABLE_FTS = "history_fts";
+
+    private static final String COLUMNS = "id, timestamp, input, title, body, source, provider, model, "
+            + "prompt_tokens, response_tokens, total_tokens, latency_ms, refinement";
+
+    private static volatile HistoryStore instance;
+
+    /**
+     * Gets the process-wide history store.
+     */
+    public static HistoryStore getInstance(Context context) {
+        HistoryStore result = instance;
+        if (result == null) {
+            synchronized (HistoryStore.class) {
+                result = instance;
+                if (result == null) {
+                    result = new HistoryStore(context.getApplicationContext());
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private HistoryStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_HISTORY + " ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "timestamp INTEGER NOT NULL, "
+                + "input TEXT, "
+                + "title TEXT, "
+                + "body TEXT, "
+                + "source TEXT, "
+                + "provider TEXT, "
+                + "model TEXT, "
+                + "prompt_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "response_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "total_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "latency_ms INTEGER NOT NULL DEFAULT 0, "
+                + "refinement INTEGER NOT NULL DEFAULT 0, "
+                + "content_hash TEXT NOT NULL UNIQUE)");
+
+        // FTS5 is missing from many Android SQLite builds; FTS4 is always there
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE_FTS + " USING fts4("
+                + "content=\"" + TABLE_HISTORY + "\", title, body, input)");
+
+        // External-content FTS needs the old text to delete it, hence BEFORE triggers
+        db.execSQL("CREATE TRIGGER history_ai AFTER INSERT ON " + TABLE_HISTORY + " BEGIN "
+                + "INSERT INTO " + TABLE_FTS + " (docid, title, body, input) "
+                + "VALUES (new.id, new.title, new.body, new.input); END");
+        db.execSQL("CREATE TRIGGER history_bd BEFORE DELETE ON " + TABLE_HISTORY + " BEGIN "
+                + "DELETE FROM " + TABLE_FTS + " WHERE docid = old.id; END");
+        db.execSQL("CREATE TRIGGER history_bu BEFORE UPDATE ON " + TABLE_HISTORY + " BEGIN "
+                + "DELETE FROM " + TABLE_FTS + " WHERE docid = old.id; END");
+        db.execSQL("CREATE TRIGGER history_au AFTER UPDATE ON " + TABLE_HISTORY + " BEGIN "
+                + "INSERT INTO " + TABLE_FTS + " (docid, title, body, input) "
+                + "VALUES (new.id, new.title, new.body, new.input); END");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // No schema changes yet
+    }
+
+    // ==================== WRITES ====================
+
+    /**
+     * Saves a generated post. If the same post text is already stored, that
+     * entry is moved to the top with the new input and usage instead.
+     *
+     * @param input The URL or text the post was generated from
+     * @param post  The full generated text
+     * @return The entry's id
+     */
+    public long record(String input, String post, String provider, String model, int promptTokens,
+            int responseTokens, int totalTokens, long latencyMs, boolean refinement) {
+        String[] parts = StringUtils.splitPost(post);
+        String hash = StringUtils.sha256(post.trim());
+
+        ContentValues values = new ContentValues();
+        values.put("timestamp", System.currentTimeMillis());
+        values.put("input", input);
+        values.put("title", parts[0]);
+        values.put("body", parts[1]);
+        values.put("source", parts[2]);
+        values.put("provider", provider);
+        values.put("model", model);
+        values.put("prompt_tokens", promptTokens);
+        values.put("response_tokens", responseTokens);
+        values.put("total_tokens", totalTokens);
+        values.put("latency_ms", latencyMs);
+        values.put("refinement", refinement ? 1 : 0);
+        values.put("content_hash", hash);
+
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            // Delete and re-insert so the entry gets a new id and sorts first
+            long existing = findIdByHash(db, hash);
+            if (existing > 0) {
+                db.delete(TABLE_HISTORY, "id = ?", new String[] {String.valueOf(existing)});
+                Log.d(TAG, "Duplicate post, replacing entry " + existing);
+            }
+            long id = db.insertOrThrow(TABLE_HISTORY, null, values);
+            db.setTransactionSuccessful();
+            return id;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static long findIdByHash(SQLiteDatabase db, String hash) {
+        try (Cursor c = db.rawQuery("SELECT id FROM " + TABLE_HISTORY + " WHERE content_hash = ?",
+                new String[] {hash})) {
+            return c.moveToFirst() ? c.getLong(0) : 0;
+        }
+    }
+
+    /**
+     * Deletes one entry.
+     */
+    public void delete(long id) {
+        getWritableDatabase().delete(TABLE_HISTORY, "id = ?", new String[] {String.valueOf(id)});
+    }
+
+    /**
+     * Deletes all entries.
+     */
+    public void clear() {
+        // The delete trigger clears the index row by row
+        getWritableDatabase().delete(TABLE_HISTORY, null, null);
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Loads entries newest first, optionally filtered by a search query.
+     *
+     * @param query    Words to match by prefix in title, body or input; null or blank for all
+     * @param beforeId Page.getNextBeforeId() of the previous page, or 0 for the first page
+     */
+    public Page<HistoryEntry> search(String query, long beforeId, int limit) {
+        String match = toMatchExpression(query);
+        List<String> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM " + TABLE_HISTORY);
+        List<String> where = new ArrayList<>();
+        if (match != null) {
+            where.add("id IN (SELECT docid FROM " + TABLE_FTS + " WHERE " + TABLE_FTS + " MATCH ?)");
+            args.add(match);
+        }
+        if (beforeId > 0) {
+            where.add("id < ?");
+            args.add(String.valueOf(beforeId));
+        }
+        if (!where.isEmpty()) {
+            sql.append(" WHERE ").append(TextUtils.join(" AND ", where));
+        }
+        // One extra row tells whether another page exists
+        sql.append(" ORDER BY id DESC LIMIT ").append(limit + 1);
+
+        List<HistoryEntry> items = new ArrayList<>(limit);
+        long lastId = 0;
+        boolean hasMore = false;
+        try (Cursor c = getReadableDatabase().rawQuery(sql.toString(), args.toArray(new String[0]))) {
+            while (c.moveToNext()) {
+                if (items.size() == limit) {
+                    hasMore = true;
+                    break;
+                }
+                HistoryEntry entry = fromCursor(c);
+                lastId = entry.getId();
+                items.add(entry);
+            }
+        }
+        return new Page<>(items, lastId, hasMore);
+    }
+
+    /**
+     * Gets the newest entry generated from an input, or null, so a repeated
+     * URL can reuse its earlier post.
+     */
+    public HistoryEntry findLatestForInput(String input) {
+        try (Cursor c = getReadableDatabase().rawQuery("SELECT " + COLUMNS + " FROM " + TABLE_HISTORY
+                + " WHERE input = ? AND refinement = 0 ORDER BY id DESC LIMIT 1", new String[] {input})) {
+            return c.moveToFirst() ? fromCursor(c) : null;
+        }
+    }
+
+    /**
+     * Gets one entry, or null if it was deleted.
+     */
+    public HistoryEntry get(long id) {
+        try (Cursor c = getReadableDatabase().rawQuery("SELECT " + COLUMNS + " FROM " + TABLE_HISTORY
+                + " WHERE id = ?", new String[] {String.valueOf(id)})) {
+            return c.moveToFirst() ? fromCursor(c) : null;
+        }
+    }
+
+    private static HistoryEntry fromCursor(Cursor c) {
+        return new HistoryEntry(c.getLong(0), c.getLong(1), c.getString(2), c.getString(3), c.getString(4),
+                c.getString(5), c.getString(6), c.getString(7), c.getInt(8), c.getInt(9), c.getInt(10),
+                c.getLong(11), c.getInt(12) == 1);
+    }
+
+    /**
+     * Turns free text into an FTS prefix query: every word must match the
+     * start of a word in the post. Punctuation and FTS operators are dropped.
+     *
+     * @return The MATCH expression, or null if the query has no words
+     */
+    static String toMatchExpression(String query) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        for (String word : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(word).append('*');
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+}
@@ -0,0 +1,248 @@
+package com.najmi.oreamnos.data;
+
+import com.najmi.oreamnos.model.UsageStats;
+import com.najmi.oreamnos.utils.RingBuffer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory usage totals held by UsageRepository.
+ *
+ * Counters are LongAdders and the per-key maps are ConcurrentHashMaps, so
+ * concurrent generations add tokens without locking and without losing
+ * updates. UsageStats snapshots are built from here without touching disk.
+ *
+ * Values written together (the last request) are published as one immutable
+ * object, so a snapshot never mixes fields of two requests. A snapshot taken
+ * while writers are running may count an event in one counter and not yet in
+ * another; once writers finish every total is exact.
+ *
+ * The newest sessions and logs live in small ring buffers, so snapshots stay
+ * cheap; the full history is paged from the database. Each buffer is
+ * guarded by its own monitor.
+ */
+final class LiveUsage {
+
+    /**
+     * Striped counters for one aggregate row.
+     */
+    static final class Counters {
+        final LongAdder promptTokens = new LongAdder();
+        final LongAdder responseTokens = new LongAdder();
+        final LongAdder totalTokens = new LongAdder();
+        final LongAdder successes = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        volatile String label;
+        volatile String provider;
+
+        void add(long prompt, long response, long total, long successCount, long failureCount) {
+            promptTokens.add(prompt);
+            responseTokens.add(response);
+            totalTokens.add(total);
+            successes.add(successCount);
+            failures.add(failureCount);
+        }
+    }
+
+    final Counters all = new Counters();
+    final ConcurrentHashMap<String, Counters> providers = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<String, Counters> models = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<String, Counters> days = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<String, Counters> weeks = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<String, Counters> months = new ConcurrentHashMap<>();
+
+    /**
+     * The last successful request, replaced as a whole.
+     */
+    private static final class LastRequest {
+        static final LastRequest NONE = new LastRequest(0, 0, 0, 0);
+
+        final long timestamp;
+        final int promptTokens;
+        final int responseTokens;
+        final int totalTokens;
+
+        LastRequest(long timestamp, int promptTokens, int responseTokens, int totalTokens) {
+            this.timestamp = timestamp;
+            this.promptTokens = promptTokens;
+            this.responseTokens = responseTokens;
+            this.totalTokens = totalTokens;
+        }
+
+        static LastRequest newer(LastRequest a, LastRequest b) {
+            return b.timestamp >= a.timestamp ? b : a;
+        }
+    }
+
+    private final AtomicReference<LastRequest> lastRequest = new AtomicReference<>(LastRequest.NONE);
+
+    private final RingBuffer<UsageStats.SessionEntry> sessions;
+    private final RingBuffer<UsageStats.LogEntry> logs;
+
+    LiveUsage(int maxSessions, int maxLogs) {
+        this.sessions = new RingBuffer<>(maxSessions);
+        this.logs = new RingBuffer<>(maxLogs);
+    }
+
+    /**
+     * Seeds live totals from a snapshot loaded from the database.
+     */
+    static LiveUsage fromSnapshot(UsageStats stats, int maxSessions, int maxLogs) {
+        LiveUsage live = new LiveUsage(maxSessions, maxLogs);
+        live.all.add(stats.getTotalPromptTokens(), stats.getTotalCandidateTokens(), stats.getTotalTokens(),
+                stats.getSuccessfulRequests(), stats.getFailedRequests());
+
+        for (Map.Entry<String, UsageStats.ProviderStats> entry : stats.getProviderStats().entrySet()) {
+            UsageStats.ProviderStats ps = entry.getValue();
+            counters(live.providers, entry.getKey()).add(ps.getPromptTokens(), ps.getResponseTokens(),
+                    ps.getTotalTokens(), ps.getSuccessfulRequests(), ps.getFailedRequests());
+        }
+        for (Map.Entry<String, UsageStats.ModelStats> entry : stats.getModelStats().entrySet()) {
+            UsageStats.ModelStats ms = entry.getValue();
+            Counters c = counters(live.models, entry.getKey());
+            c.label = ms.getModelName();
+            c.provider = ms.getProvider();
+            c.add(0, 0, ms.getTotalTokens(), ms.getRequests(), 0);
+        }
+
+        long now = System.currentTimeMillis();
+        counters(live.days, UsageDatabase.dayKey(now)).add(0, 0, stats.getTodayTokens(),
+                stats.getTodayRequests(), 0);
+        counters(live.weeks, UsageDatabase.weekKey(now)).add(0, 0, stats.getWeekTokens(),
+                stats.getWeekRequests(), 0);
+        counters(live.months, UsageDatabase.monthKey(now)).add(0, 0, stats.getMonthTokens(),
+                stats.getMonthRequests(), 0);
+
+        live.lastRequest.set(new LastRequest(stats.getLastRequestTimestamp(), stats.getLastPromptTokens(),
+                stats.getLastCandidateTokens(), stats.getLastTotalTokens()));
+
+        // Snapshot lists are newest first; push oldest first
+        List<UsageStats.SessionEntry> storedSessions = stats.getRecentSessions();
+        for (int i = Math.min(storedSessions.size(), maxSessions) - 1; i >= 0; i--) {
+            live.sessions.push(storedSessions.get(i));
+        }
+        List<UsageStats.LogEntry> storedLogs = stats.getLogs();
+        for (int i = Math.min(storedLogs.size(), maxLogs) - 1; i >= 0; i--) {
+            live.logs.push(storedLogs.get(i));
+        }
+        return live;
+    }
+
+    /**
+     * Adds one API call to every matching aggregate.
+     */
+    void recordEvent(long timestamp, String provider, String modelId, String modelName,
+            int prompt, int response, int total, boolean success, String error) {
+        long s = success ? 1 : 0;
+        long f = success ? 0 : 1;
+        all.add(prompt, response, total, s, f);
+        period(days, UsageDatabase.dayKey(timestamp)).add(prompt, response, total, s, f);
+        period(weeks, UsageDatabase.weekKey(timestamp)).add(prompt, response, total, s, f);
+        period(months, UsageDatabase.monthKey(timestamp)).add(prompt, response, total, s, f);
+        if (provider != null) {
+            counters(providers, provider).add(prompt, response, total, s, f);
+        }
+        if (modelId != null && success) {
+            Counters c = counters(models, modelId);
+            if (modelName != null) {
+                c.label = modelName;
+            }
+            c.provider = provider;
+            c.add(prompt, response, total, 1, 0);
+        }
+
+        if (success) {
+            // Out-of-order finishes must not replace a newer request
+            lastRequest.accumulateAndGet(new LastRequest(timestamp, prompt, response, total),
+                    LastRequest::newer);
+        }
+
+        UsageStats.SessionEntry session = new UsageStats.SessionEntry(timestamp, provider, modelId, modelName,
+                prompt, response, total, success, error);
+        synchronized (sessions) {
+            sessions.push(session);
+        }
+    }
+
+    void addLog(UsageStats.LogEntry entry) {
+        synchronized (logs) {
+            logs.push(entry);
+        }
+    }
+
+    void clearLogs() {
+        synchronized (logs) {
+            logs.clear();
+        }
+    }
+
+    /**
+     * Builds a UsageStats snapshot for the current day, week and month.
+     */
+    UsageStats toSnapshot() {
+        UsageStats stats = new UsageStats();
+        stats.applyTotals(all.promptTokens.sum(), all.responseTokens.sum(), all.totalTokens.sum(),
+                (int) all.successes.sum(), (int) all.failures.sum());
+        LastRequest last = lastRequest.get();
+        stats.applyLastRequest(last.timestamp, last.promptTokens, last.responseTokens, last.totalTokens);
+
+        for (Map.Entry<String, Counters> entry : providers.entrySet()) {
+            Counters c = entry.getValue();
+            stats.applyProviderStats(entry.getKey(), c.promptTokens.sum(), c.responseTokens.sum(),
+                    c.totalTokens.sum(), (int) c.successes.sum(), (int) c.failures.sum());
+        }
+        for (Map.Entry<String, Counters> entry : models.entrySet()) {
+            Counters c = entry.getValue();
+            stats.applyModelStats(entry.getKey(), c.label, c.provider, c.totalTokens.sum(),
+                    (int) c.successes.sum());
+        }
+
+        long now = System.currentTimeMillis();
+        Counters today = days.get(UsageDatabase.dayKey(now));
+        if (today != null) {
+            stats.applyTodayStats(today.totalTokens.sum(), (int) (today.successes.sum() + today.failures.sum()));
+        }
+        Counters week = weeks.get(UsageDatabase.weekKey(now));
+        if (week != null) {
+            stats.applyWeekStats(week.totalTokens.sum(), (int) (week.successes.sum() + week.failures.sum()));
+        }
+        Counters month = months.get(UsageDatabase.monthKey(now));
+        if (month != null) {
+            stats.applyMonthStats(month.totalTokens.sum(), (int) (month.successes.sum() + month.failures.sum()));
+        }
+
+        synchronized (sessions) {
+            stats.getRecentSessions().addAll(sessions);
+        }
+        synchronized (logs) {
+            stats.getLogs().addAll(logs);
+        }
+        return stats;
+    }
+
+    private static Counters counters(ConcurrentHashMap<String, Counters> map, String key) {
+        // get() first: computeIfAbsent locks the bin even when the key exists
+        Counters c = map.get(key);
+        return c != null ? c : map.computeIfAbsent(key, k -> new Counters());
+    }
+
+    /**
+     * Gets the counters for a period, dropping earlier periods when a new
+     * one starts. Only the current period is shown and the database keeps
+     * the history, so the maps stay at one entry.
+     */
+    private static Counters period(ConcurrentHashMap<String, Counters> map, String key) {
+        Counters c = map.get(key);
+        if (c != null) {
+            return c;
+        }
+        c = map.computeIfAbsent(key, k -> new Counters());
+        // Keys sort chronologically; keep any later period another thread started
+        map.keySet().removeIf(k -> k.compareTo(key) < 0);
+        return c;
+    }
+}
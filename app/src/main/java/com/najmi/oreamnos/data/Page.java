@@ -0,0 +1,33 @@
+package com.najmi.oreamnos.data;
+
+import java.util.List;
+
+/**
+ * One page of rows, newest first, loaded by id keyset.
+ */
+public final class Page<T> {
+    private final List<T> items;
+    private final long nextBeforeId;
+    private final boolean hasMore;
+
+    Page(List<T> items, long nextBeforeId, boolean hasMore) {
+        this.items = items;
+        this.nextBeforeId = nextBeforeId;
+        this.hasMore = hasMore;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the key to pass when loading the following page.
+     */
+    public long getNextBeforeId() {
+        return nextBeforeId;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
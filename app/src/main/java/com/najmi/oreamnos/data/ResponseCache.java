@@ -0,0 +1,152 @@
+package com.najmi.oreamnos.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import com.najmi.oreamnos.curator.GenerationResult;
+
+/**
+ * Persistent cache of curator responses, keyed by a hash of everything that
+ * shapes the prompt (see CachingCurator).
+ *
+ * Entries expire TTL_MS after they were generated. Once more than
+ * MAX_ENTRIES are stored, the least recently used ones are evicted; a hit
+ * refreshes an entry's last use.
+ */
+public class ResponseCache extends SQLiteOpenHelper {
+
+    private static final String TAG = "ResponseCache";
+
+    private static final String DATABASE_NAME = "response_cache.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE_RESPONSES = "responses";
+
+    // A day is long enough to cover re-runs of the same story
+    public static final long TTL_MS = 24 * 3600000L;
+    public static final int MAX_ENTRIES = 200;
+
+    private static volatile ResponseCache instance;
+
+    /**
+     * Gets the process-wide response cache.
+     */
+    public static ResponseCache getInstance(Context context) {
+        ResponseCache result = instance;
+        if (result == null) {
+            synchronized (ResponseCache.class) {
+                result = instance;
+                if (result == null) {
+                    result = new ResponseCache(context.getApplicationContext());
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private ResponseCache(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_RESPONSES + " ("
+                + "cache_key TEXT PRIMARY KEY, "
+                + "text TEXT NOT NULL, "
+                + "provider TEXT, "
+                + "model TEXT, "
+                + "prompt_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "response_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "total_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "created_at INTEGER NOT NULL, "
+                + "last_used_at INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_responses_last_used ON " + TABLE_RESPONSES + " (last_used_at)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // A cache can always be rebuilt
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_RESPONSES);
+        onCreate(db);
+    }
+
+    /**
+     * Gets a cached response and marks it as just used.
+     *
+     * @return The response as originally generated, or null if missing or expired
+     */
+    public GenerationResult get(String key) {
+        long now = System.currentTimeMillis();
+        SQLiteDatabase db = getWritableDatabase();
+        try (Cursor c = db.rawQuery("SELECT text, provider, model, prompt_tokens, response_tokens, "
+                + "total_tokens, created_at FROM " + TABLE_RESPONSES + " WHERE cache_key = ?",
+                new String[] {key})) {
+            if (!c.moveToFirst()) {
+                return null;
+            }
+            if (now - c.getLong(6) > TTL_MS) {
+                db.delete(TABLE_RESPONSES, "cache_key = ?", new String[] {key});
+                return null;
+            }
+
+            ContentValues touch = new ContentValues();
+            touch.put("last_used_at", now);
+            db.update(TABLE_RESPONSES, touch, "cache_key = ?", new String[] {key});
+
+            return new GenerationResult.Builder()
+                    .text(c.getString(0))
+                    .provider(c.getString(1))
+                    .model(c.getString(2))
+                    .promptTokens(c.getInt(3))
+                    .candidateTokens(c.getInt(4))
+                    .totalTokens(c.getInt(5))
+                    .build();
+        }
+    }
+
+    /**
+     * Stores a response, replacing any entry under the same key, and evicts
+     * expired and least recently used entries beyond MAX_ENTRIES.
+     */
+    public void put(String key, GenerationResult result) {
+        long now = System.currentTimeMillis();
+        ContentValues values = new ContentValues();
+        values.put("cache_key", key);
+        values.put("text", result.getText());
+        values.put("provider", result.getProvider());
+        values.put("model", result.getModel());
+        values.put("prompt_tokens", result.getPromptTokens());
+        values.put("response_tokens", result.getCandidateTokens());
+        values.put("total_tokens", result.getTotalTokens());
+        values.put("created_at", now);
+        values.put("last_used_at", now);
+
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.insertWithOnConflict(TABLE_RESPONSES, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            int expired = db.delete(TABLE_RESPONSES, "created_at < ?", new String[] {String.valueOf(now - TTL_MS)});
+            int evicted = db.delete(TABLE_RESPONSES, "cache_key IN (SELECT cache_key FROM " + TABLE_RESPONSES
+                    + " ORDER BY last_used_at DESC LIMIT -1 OFFSET " + MAX_ENTRIES + ")", null);
+            db.setTransactionSuccessful();
+            if (expired + evicted > 0) {
+                Log.d(TAG, "Dropped " + expired + " expired and " + evicted + " least recently used responses");
+            }
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Drops every cached response.
+     */
+    public void clear() {
+        getWritableDatabase().delete(TABLE_RESPONSES, null, null);
+    }
+}
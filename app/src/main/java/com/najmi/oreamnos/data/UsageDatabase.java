@@ -0,0 +1,807 @@
+package com.najmi.oreamnos.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.najmi.oreamnos.model.UsageSeries;
+import com.najmi.oreamnos.model.UsageStats;
+
+import java.io.Closeable;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Append-only SQLite store for usage events and logs.
+ *
+ * Every API call is appended as one row to usage_events and every log line to
+ * logs. Totals are kept in the aggregates table, which is updated
+ * incrementally in the same transaction as the append, so recording costs a
+ * handful of indexed writes no matter how much history exists.
+ *
+ * Aggregate rows are keyed by (scope, key):
+ * - all / ""             all-time totals
+ * - provider / "groq"    per provider
+ * - model / model id     per model (label holds the display name)
+ * - day / "2025-12-13", week / "2025-W50", month / "2025-12"
+ *
+ * usage_buckets holds the time series behind range charts and rolling
+ * quotas: one row per (resolution, slot start, provider, model). Events add
+ * to an hourly row; hourly rows older than HOURLY_RETENTION_DAYS are folded
+ * into daily rows, so the table grows by a few rows per day at most.
+ *
+ * counters holds row counts maintained on every insert, trim and clear,
+ * such as the number of log lines the Usage screen shows.
+ */
+public class UsageDatabase extends SQLiteOpenHelper implements UsageStore {
+
+    private static final String TAG = "UsageDatabase";
+
+    private static final String DATABASE_NAME = "usage.db";
+    private static final int DATABASE_VERSION = 3;
+
+    // Tables
+    static final String TABLE_EVENTS = "usage_events";
+    static final String TABLE_LOGS = "logs";
+    static final String TABLE_AGGREGATES = "aggregates";
+    static final String TABLE_BUCKETS = "usage_buckets";
+    static final String TABLE_COUNTERS = "counters";
+
+    // Row counts kept in TABLE_COUNTERS, so reading them never scans
+    private static final String COUNTER_LOGS = "logs";
+
+    // Aggregate scopes
+    public static final String SCOPE_ALL = "all";
+    public static final String SCOPE_PROVIDER = "provider";
+    public static final String SCOPE_MODEL = "model";
+    public static final String SCOPE_DAY = "day";
+    public static final String SCOPE_WEEK = "week";
+    public static final String SCOPE_MONTH = "month";
+
+    private static final long HOUR_MS = 3600000L;
+    // Hourly buckets kept before being folded into days
+    private static final int HOURLY_RETENTION_DAYS = 14;
+
+    private static volatile UsageDatabase instance;
+
+    // Upserts shared by the writes of the current runInTransaction() batch
+    private final ThreadLocal<AggregateWriter> batchWriter = new ThreadLocal<>();
+
+    /**
+     * Gets the process-wide usage database.
+     */
+    public static UsageDatabase getInstance(Context context) {
+        UsageDatabase result = instance;
+        if (result == null) {
+            synchronized (UsageDatabase.class) {
+                result = instance;
+                if (result == null) {
+                    result = new UsageDatabase(context.getApplicationContext());
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private UsageDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // Readers (Usage screen) don't block the writer
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_EVENTS + " ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "timestamp INTEGER NOT NULL, "
+                + "provider TEXT, "
+                + "model_id TEXT, "
+                + "model_name TEXT, "
+                + "prompt_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "response_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "total_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "success INTEGER NOT NULL, "
+                + "error TEXT)");
+
+        db.execSQL("CREATE TABLE " + TABLE_LOGS + " ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "timestamp INTEGER NOT NULL, "
+                + "level TEXT NOT NULL, "
+                + "tag TEXT, "
+                + "message TEXT, "
+                + "details TEXT)");
+
+        db.execSQL("CREATE TABLE " + TABLE_AGGREGATES + " ("
+                + "scope TEXT NOT NULL, "
+                + "key TEXT NOT NULL, "
+                + "label TEXT, "
+                + "provider TEXT, "
+                + "prompt_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "response_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "total_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "successes INTEGER NOT NULL DEFAULT 0, "
+                + "failures INTEGER NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (scope, key))");
+
+        createBuckets(db);
+        createCounters(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            createBuckets(db);
+            // Backfill hourly buckets from the event log; compaction folds old hours later
+            db.execSQL("INSERT INTO " + TABLE_BUCKETS + " SELECT " + UsageSeries.RESOLUTION_HOUR + ", "
+                    + "timestamp - timestamp % " + HOUR_MS + " AS slot, IFNULL(provider, ''), "
+                    + "CASE WHEN success = 1 THEN IFNULL(model_id, '') ELSE '' END AS model, "
+                    + "SUM(prompt_tokens), SUM(response_tokens), SUM(total_tokens), COUNT(*), "
+                    + "SUM(1 - success) FROM " + TABLE_EVENTS
+                    + " GROUP BY slot, IFNULL(provider, ''), model");
+        }
+        if (oldVersion < 3) {
+            createCounters(db);
+            // One last full count; the counter is maintained from here on
+            db.execSQL("UPDATE " + TABLE_COUNTERS + " SET value = (SELECT COUNT(*) FROM " + TABLE_LOGS
+                    + ") WHERE name = ?", new Object[] {COUNTER_LOGS});
+        }
+    }
+
+    private static void createBuckets(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_BUCKETS + " ("
+                + "resolution INTEGER NOT NULL, "
+                + "start INTEGER NOT NULL, "
+                + "provider TEXT NOT NULL DEFAULT '', "
+                + "model_id TEXT NOT NULL DEFAULT '', "
+                + "prompt_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "response_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "total_tokens INTEGER NOT NULL DEFAULT 0, "
+                + "requests INTEGER NOT NULL DEFAULT 0, "
+                + "failures INTEGER NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (resolution, start, provider, model_id))");
+    }
+
+    private static void createCounters(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_COUNTERS + " ("
+                + "name TEXT PRIMARY KEY, "
+                + "value INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("INSERT INTO " + TABLE_COUNTERS + " (name) VALUES (?)", new Object[] {COUNTER_LOGS});
+    }
+
+    private static void addToCounter(SQLiteDatabase db, String name, long delta) {
+        db.execSQL("UPDATE " + TABLE_COUNTERS + " SET value = value + ? WHERE name = ?",
+                new Object[] {delta, name});
+    }
+
+    // ==================== APPENDS ====================
+
+    /**
+     * Appends a usage event and updates the aggregates in one transaction.
+     *
+     * @param error Error message for failed calls, null for successes
+     */
+    @Override
+    public void appendEvent(long timestamp, String provider, String modelId, String modelName,
+            int promptTokens, int responseTokens, int totalTokens, boolean success, String error) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        AggregateWriter writer = writerFor(db);
+        try {
+            ContentValues values = new ContentValues();
+            values.put("timestamp", timestamp);
+            values.put("provider", provider);
+            values.put("model_id", modelId);
+            values.put("model_name", modelName);
+            values.put("prompt_tokens", promptTokens);
+            values.put("response_tokens", responseTokens);
+            values.put("total_tokens", totalTokens);
+            values.put("success", success ? 1 : 0);
+            values.put("error", error);
+            db.insert(TABLE_EVENTS, null, values);
+
+            int successes = success ? 1 : 0;
+            int failures = success ? 0 : 1;
+            writer.addToAggregate(SCOPE_ALL, "", null, null,
+                    promptTokens, responseTokens, totalTokens, successes, failures);
+            writer.addToAggregate(SCOPE_DAY, dayKey(timestamp), null, null,
+                    promptTokens, responseTokens, totalTokens, successes, failures);
+            writer.addToAggregate(SCOPE_WEEK, weekKey(timestamp), null, null,
+                    promptTokens, responseTokens, totalTokens, successes, failures);
+            writer.addToAggregate(SCOPE_MONTH, monthKey(timestamp), null, null,
+                    promptTokens, responseTokens, totalTokens, successes, failures);
+            if (provider != null) {
+                writer.addToAggregate(SCOPE_PROVIDER, provider, null, provider,
+                        promptTokens, responseTokens, totalTokens, successes, failures);
+            }
+            if (modelId != null && success) {
+                // Like UsageStats, per-model stats only count successful calls
+                writer.addToAggregate(SCOPE_MODEL, modelId, modelName, provider,
+                        promptTokens, responseTokens, totalTokens, 1, 0);
+            }
+            // Failures count towards the provider only, matching the model aggregate
+            writer.addToBucket(UsageSeries.RESOLUTION_HOUR, timestamp - timestamp % HOUR_MS, provider,
+                    success ? modelId : null, promptTokens, responseTokens, totalTokens, 1, failures);
+            db.setTransactionSuccessful();
+        } finally {
+            release(writer);
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Appends a log line.
+     */
+    @Override
+    public void appendLog(long timestamp, String level, String tag, String message, String details) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        AggregateWriter writer = writerFor(db);
+        try {
+            ContentValues values = new ContentValues();
+            values.put("timestamp", timestamp);
+            values.put("level", level);
+            values.put("tag", tag);
+            values.put("message", message);
+            values.put("details", details);
+            db.insert(TABLE_LOGS, null, values);
+            writer.addToCounter(COUNTER_LOGS, 1);
+            db.setTransactionSuccessful();
+        } finally {
+            release(writer);
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * The aggregate and bucket upserts, compiled once per writer transaction
+     * and reused for every event in it.
+     */
+    private static final class AggregateWriter implements Closeable {
+        private final SQLiteStatement insertAggregate;
+        private final SQLiteStatement updateAggregate;
+        private final SQLiteStatement updateAggregateLabel;
+        private final SQLiteStatement insertBucket;
+        private final SQLiteStatement updateBucket;
+        private final SQLiteStatement updateCounter;
+
+        AggregateWriter(SQLiteDatabase db) {
+            // INSERT ... ON CONFLICT needs SQLite 3.24 (API 30), so insert-or-ignore then update
+            insertAggregate = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_AGGREGATES
+                    + " (scope, key, label, provider) VALUES (?, ?, ?, ?)");
+            String addTotals = "UPDATE " + TABLE_AGGREGATES + " SET "
+                    + "prompt_tokens = prompt_tokens + ?, response_tokens = response_tokens + ?, "
+                    + "total_tokens = total_tokens + ?, successes = successes + ?, failures = failures + ?";
+            updateAggregate = db.compileStatement(addTotals + " WHERE scope = ? AND key = ?");
+            updateAggregateLabel = db.compileStatement(addTotals + ", label = ? WHERE scope = ? AND key = ?");
+            insertBucket = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_BUCKETS
+                    + " (resolution, start, provider, model_id) VALUES (?, ?, ?, ?)");
+            updateBucket = db.compileStatement("UPDATE " + TABLE_BUCKETS + " SET "
+                    + "prompt_tokens = prompt_tokens + ?, response_tokens = response_tokens + ?, "
+                    + "total_tokens = total_tokens + ?, requests = requests + ?, failures = failures + ?"
+                    + " WHERE resolution = ? AND start = ? AND provider = ? AND model_id = ?");
+            updateCounter = db.compileStatement("UPDATE " + TABLE_COUNTERS
+                    + " SET value = value + ? WHERE name = ?");
+        }
+
+        void addToAggregate(String scope, String key, String label, String provider,
+                long promptTokens, long responseTokens, long totalTokens, int successes, int failures) {
+            insertAggregate.clearBindings();
+            insertAggregate.bindString(1, scope);
+            insertAggregate.bindString(2, key);
+            bindNullable(insertAggregate, 3, label);
+            bindNullable(insertAggregate, 4, provider);
+            insertAggregate.executeInsert();
+
+            SQLiteStatement update = label != null ? updateAggregateLabel : updateAggregate;
+            update.clearBindings();
+            int i = 1;
+            update.bindLong(i++, promptTokens);
+            update.bindLong(i++, responseTokens);
+            update.bindLong(i++, totalTokens);
+            update.bindLong(i++, successes);
+            update.bindLong(i++, failures);
+            if (label != null) {
+                update.bindString(i++, label);
+            }
+            update.bindString(i++, scope);
+            update.bindString(i, key);
+            update.executeUpdateDelete();
+        }
+
+        void addToBucket(int resolution, long start, String provider, String modelId,
+                long promptTokens, long responseTokens, long totalTokens, int requests, int failures) {
+            String providerKey = provider != null ? provider : "";
+            String modelKey = modelId != null ? modelId : "";
+            insertBucket.clearBindings();
+            insertBucket.bindLong(1, resolution);
+            insertBucket.bindLong(2, start);
+            insertBucket.bindString(3, providerKey);
+            insertBucket.bindString(4, modelKey);
+            insertBucket.executeInsert();
+
+            updateBucket.clearBindings();
+            updateBucket.bindLong(1, promptTokens);
+            updateBucket.bindLong(2, responseTokens);
+            updateBucket.bindLong(3, totalTokens);
+            updateBucket.bindLong(4, requests);
+            updateBucket.bindLong(5, failures);
+            updateBucket.bindLong(6, resolution);
+            updateBucket.bindLong(7, start);
+            updateBucket.bindString(8, providerKey);
+            updateBucket.bindString(9, modelKey);
+            updateBucket.executeUpdateDelete();
+        }
+
+        void addToCounter(String name, long delta) {
+            updateCounter.bindLong(1, delta);
+            updateCounter.bindString(2, name);
+            updateCounter.executeUpdateDelete();
+        }
+
+        @Override
+        public void close() {
+            insertAggregate.close();
+            updateAggregate.close();
+            updateAggregateLabel.close();
+            insertBucket.close();
+            updateBucket.close();
+            updateCounter.close();
+        }
+    }
+
+    /**
+     * Gets the writer of the enclosing runInTransaction() batch, or a new
+     * one the caller must close.
+     */
+    private AggregateWriter writerFor(SQLiteDatabase db) {
+        AggregateWriter shared = batchWriter.get();
+        return shared != null ? shared : new AggregateWriter(db);
+    }
+
+    private void release(AggregateWriter writer) {
+        if (writer != batchWriter.get()) {
+            writer.close();
+        }
+    }
+
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        } else {
+            statement.bindNull(index);
+        }
+    }
+
+    /**
+     * Runs a batch of writes in one transaction. The append and maintenance
+     * methods nest inside it, so a batch costs a single commit.
+     */
+    @Override
+    public void runInTransaction(Runnable writes) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try (AggregateWriter writer = new AggregateWriter(db)) {
+            batchWriter.set(writer);
+            writes.run();
+            db.setTransactionSuccessful();
+        } finally {
+            batchWriter.remove();
+            db.endTransaction();
+        }
+    }
+
+    // ==================== MAINTENANCE ====================
+
+    /**
+     * Deletes all usage events and aggregates. Logs are kept, as before.
+     */
+    @Override
+    public void resetUsage() {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_EVENTS, null, null);
+            db.delete(TABLE_AGGREGATES, null, null);
+            db.delete(TABLE_BUCKETS, null, null);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Folds hourly buckets older than HOURLY_RETENTION_DAYS into daily
+     * buckets. Totals are unchanged; only the resolution of old data drops.
+     */
+    @Override
+    public void compactBuckets(long now) {
+        Calendar cutoff = Calendar.getInstance();
+        cutoff.setTimeInMillis(now);
+        cutoff.add(Calendar.DAY_OF_YEAR, -HOURLY_RETENTION_DAYS);
+        long cutoffMs = startOfDay(cutoff.getTimeInMillis());
+        String[] args = {String.valueOf(UsageSeries.RESOLUTION_HOUR), String.valueOf(cutoffMs)};
+
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        AggregateWriter writer = writerFor(db);
+        try {
+            int folded = 0;
+            try (Cursor c = db.rawQuery("SELECT start, provider, model_id, prompt_tokens, response_tokens, "
+                    + "total_tokens, requests, failures FROM " + TABLE_BUCKETS
+                    + " WHERE resolution = ? AND start < ?", args)) {
+                while (c.moveToNext()) {
+                    writer.addToBucket(UsageSeries.RESOLUTION_DAY, startOfDay(c.getLong(0)), c.getString(1),
+                            c.getString(2), c.getLong(3), c.getLong(4), c.getLong(5), c.getInt(6), c.getInt(7));
+                    folded++;
+                }
+            }
+            db.delete(TABLE_BUCKETS, "resolution = ? AND start < ?", args);
+            db.setTransactionSuccessful();
+            if (folded > 0) {
+                Log.i(TAG, "Folded " + folded + " hourly buckets into days");
+            }
+        } finally {
+            release(writer);
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Deletes all but the newest event and log rows. Aggregates and buckets
+     * are kept, so totals and charts are unaffected.
+     *
+     * Ids are AUTOINCREMENT and only ever removed oldest first, so they are
+     * contiguous: the cutoff comes from MAX(id), one index lookup, and the
+     * delete is a range scan over the rows removed. A flush with nothing to
+     * trim costs the lookup only, however large the limits are.
+     */
+    @Override
+    public void trimHistory(int maxEvents, int maxLogs) {
+        SQLiteDatabase db = getWritableDatabase();
+        trimTable(db, TABLE_EVENTS, maxEvents);
+        int logsRemoved = trimTable(db, TABLE_LOGS, maxLogs);
+        if (logsRemoved > 0) {
+            addToCounter(db, COUNTER_LOGS, -logsRemoved);
+        }
+    }
+
+    private static int trimTable(SQLiteDatabase db, String table, int keep) {
+        // Newest id past the limit; everything up to it goes
+        long cutoff = DatabaseUtils.longForQuery(db, "SELECT IFNULL(MAX(id), 0) FROM " + table, null) - keep;
+        if (cutoff <= 0) {
+            return 0;
+        }
+        return db.delete(table, "id <= ?", new String[] {String.valueOf(cutoff)});
+    }
+
+    /**
+     * Deletes all logs.
+     */
+    @Override
+    public void clearLogs() {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_LOGS, null, null);
+            db.execSQL("UPDATE " + TABLE_COUNTERS + " SET value = 0 WHERE name = ?", new Object[] {COUNTER_LOGS});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Imports the usage stats that used to be stored as one JSON blob in
+     * preferences. Aggregates are copied as-is; the stored sessions and logs
+     * become events and log rows without being counted again.
+     */
+    public void importLegacy(UsageStats legacy) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        AggregateWriter writer = writerFor(db);
+        try {
+            writer.addToAggregate(SCOPE_ALL, "", null, null,
+                    legacy.getTotalPromptTokens(), legacy.getTotalCandidateTokens(), legacy.getTotalTokens(),
+                    legacy.getSuccessfulRequests(), legacy.getFailedRequests());
+
+            long now = System.currentTimeMillis();
+            // Legacy period counters have no success/failure split; count them as successes
+            writer.addToAggregate(SCOPE_DAY, dayKey(now), null, null,
+                    0, 0, legacy.getTodayTokens(), legacy.getTodayRequests(), 0);
+            writer.addToAggregate(SCOPE_WEEK, weekKey(now), null, null,
+                    0, 0, legacy.getWeekTokens(), legacy.getWeekRequests(), 0);
+            writer.addToAggregate(SCOPE_MONTH, monthKey(now), null, null,
+                    0, 0, legacy.getMonthTokens(), legacy.getMonthRequests(), 0);
+
+            for (Map.Entry<String, UsageStats.ProviderStats> entry : legacy.getProviderStats().entrySet()) {
+                UsageStats.ProviderStats ps = entry.getValue();
+                writer.addToAggregate(SCOPE_PROVIDER, entry.getKey(), null, entry.getKey(),
+                        ps.getPromptTokens(), ps.getResponseTokens(), ps.getTotalTokens(),
+                        ps.getSuccessfulRequests(), ps.getFailedRequests());
+            }
+            for (Map.Entry<String, UsageStats.ModelStats> entry : legacy.getModelStats().entrySet()) {
+                UsageStats.ModelStats ms = entry.getValue();
+                writer.addToAggregate(SCOPE_MODEL, entry.getKey(), ms.getModelName(), ms.getProvider(),
+                        0, 0, ms.getTotalTokens(), ms.getRequests(), 0);
+            }
+
+            // Oldest first so row ids keep chronological order
+            java.util.List<UsageStats.SessionEntry> sessions = legacy.getRecentSessions();
+            for (int i = sessions.size() - 1; i >= 0; i--) {
+                UsageStats.SessionEntry s = sessions.get(i);
+                ContentValues values = new ContentValues();
+                values.put("timestamp", s.getTimestamp());
+                values.put("provider", s.getProvider());
+                values.put("model_id", s.getModelId());
+                values.put("model_name", s.getModelName());
+                values.put("prompt_tokens", s.getPromptTokens());
+                values.put("response_tokens", s.getResponseTokens());
+                values.put("total_tokens", s.getTotalTokens());
+                values.put("success", s.isSuccess() ? 1 : 0);
+                values.put("error", s.getErrorMessage());
+                db.insert(TABLE_EVENTS, null, values);
+            }
+            java.util.List<UsageStats.LogEntry> logs = legacy.getLogs();
+            for (int i = logs.size() - 1; i >= 0; i--) {
+                UsageStats.LogEntry l = logs.get(i);
+                ContentValues values = new ContentValues();
+                values.put("timestamp", l.getTimestamp());
+                values.put("level", l.getLevel());
+                values.put("tag", l.getTag());
+                values.put("message", l.getMessage());
+                values.put("details", l.getDetails());
+                db.insert(TABLE_LOGS, null, values);
+            }
+            writer.addToCounter(COUNTER_LOGS, logs.size());
+            db.setTransactionSuccessful();
+            Log.i(TAG, "Imported legacy usage stats: " + sessions.size() + " sessions, " + logs.size() + " logs");
+        } finally {
+            release(writer);
+            db.endTransaction();
+        }
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Loads usage events as sessions, newest first, by id keyset so each
+     * page costs the same however deep it is.
+     *
+     * @param beforeId Load rows older than this id; 0 for the newest page
+     */
+    @Override
+    public Page<UsageStats.SessionEntry> loadSessions(long beforeId, int limit) {
+        List<UsageStats.SessionEntry> items = new ArrayList<>(limit);
+        long lastId = 0;
+        boolean hasMore = false;
+        // One extra row tells whether another page exists
+        try (Cursor c = getReadableDatabase().rawQuery("SELECT id, timestamp, provider, model_id, model_name, "
+                + "prompt_tokens, response_tokens, total_tokens, success, error FROM " + TABLE_EVENTS
+                + keysetClause(beforeId) + " ORDER BY id DESC LIMIT " + (limit + 1), null)) {
+            while (c.moveToNext()) {
+                if (items.size() == limit) {
+                    hasMore = true;
+                    break;
+                }
+                lastId = c.getLong(0);
+                items.add(new UsageStats.SessionEntry(c.getLong(1), c.getString(2), c.getString(3),
+                        c.getString(4), c.getInt(5), c.getInt(6), c.getInt(7), c.getInt(8) == 1,
+                        c.getString(9)));
+            }
+        }
+        return new Page<>(items, lastId, hasMore);
+    }
+
+    /**
+     * Loads log lines, newest first, by id keyset.
+     *
+     * @param beforeId Load rows older than this id; 0 for the newest page
+     */
+    @Override
+    public Page<UsageStats.LogEntry> loadLogs(long beforeId, int limit) {
+        List<UsageStats.LogEntry> items = new ArrayList<>(limit);
+        long lastId = 0;
+        boolean hasMore = false;
+        try (Cursor c = getReadableDatabase().rawQuery("SELECT id, timestamp, level, tag, message, details FROM "
+                + TABLE_LOGS + keysetClause(beforeId) + " ORDER BY id DESC LIMIT " + (limit + 1), null)) {
+            while (c.moveToNext()) {
+                if (items.size() == limit) {
+                    hasMore = true;
+                    break;
+                }
+                lastId = c.getLong(0);
+                items.add(new UsageStats.LogEntry(c.getLong(1), c.getString(2), c.getString(3),
+                        c.getString(4), c.getString(5)));
+            }
+        }
+        return new Page<>(items, lastId, hasMore);
+    }
+
+    private static String keysetClause(long beforeId) {
+        return beforeId > 0 ? " WHERE id < " + beforeId : "";
+    }
+
+    /**
+     * Counts stored log lines from the maintained counter, without scanning
+     * the logs table.
+     */
+    @Override
+    public long countLogs() {
+        return DatabaseUtils.longForQuery(getReadableDatabase(), "SELECT value FROM " + TABLE_COUNTERS
+                + " WHERE name = ?", new String[] {COUNTER_LOGS});
+    }
+
+    /**
+     * Builds a UsageStats snapshot from the aggregates and the most recent
+     * sessions and logs.
+     *
+     * @param maxSessions Most recent events loaded as sessions
+     * @param maxLogs     Most recent log rows loaded
+     */
+    @Override
+    public UsageStats loadUsageStats(int maxSessions, int maxLogs) {
+        SQLiteDatabase db = getReadableDatabase();
+        UsageStats stats = new UsageStats();
+        long now = System.currentTimeMillis();
+        String today = dayKey(now);
+        String week = weekKey(now);
+        String month = monthKey(now);
+
+        try (Cursor c = db.rawQuery("SELECT scope, key, label, provider, prompt_tokens, response_tokens, "
+                + "total_tokens, successes, failures FROM " + TABLE_AGGREGATES
+                + " WHERE scope IN (?, ?, ?) OR (scope = ? AND key = ?) OR (scope = ? AND key = ?)"
+                + " OR (scope = ? AND key = ?)",
+                new String[] { SCOPE_ALL, SCOPE_PROVIDER, SCOPE_MODEL, SCOPE_DAY, today, SCOPE_WEEK, week,
+                        SCOPE_MONTH, month })) {
+            while (c.moveToNext()) {
+                String key = c.getString(1);
+                long prompt = c.getLong(4);
+                long response = c.getLong(5);
+                long total = c.getLong(6);
+                int successes = c.getInt(7);
+                int failures = c.getInt(8);
+                switch (c.getString(0)) {
+                    case SCOPE_ALL:
+                        stats.applyTotals(prompt, response, total, successes, failures);
+                        break;
+                    case SCOPE_PROVIDER:
+                        stats.applyProviderStats(key, prompt, response, total, successes, failures);
+                        break;
+                    case SCOPE_MODEL:
+                        stats.applyModelStats(key, c.getString(2), c.getString(3), total, successes);
+                        break;
+                    case SCOPE_DAY:
+                        stats.applyTodayStats(total, successes + failures);
+                        break;
+                    case SCOPE_WEEK:
+                        stats.applyWeekStats(total, successes + failures);
+                        break;
+                    case SCOPE_MONTH:
+                        stats.applyMonthStats(total, successes + failures);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        // Latest event drives the "last request" fields
+        try (Cursor c = db.rawQuery("SELECT timestamp, prompt_tokens, response_tokens, total_tokens FROM "
+                + TABLE_EVENTS + " WHERE success = 1 ORDER BY id DESC LIMIT 1", null)) {
+            if (c.moveToFirst()) {
+                stats.applyLastRequest(c.getLong(0), c.getInt(1), c.getInt(2), c.getInt(3));
+            }
+        }
+
+        try (Cursor c = db.rawQuery("SELECT timestamp, provider, model_id, model_name, prompt_tokens, "
+                + "response_tokens, total_tokens, success, error FROM " + TABLE_EVENTS
+                + " ORDER BY id DESC LIMIT " + maxSessions, null)) {
+            while (c.moveToNext()) {
+                stats.getRecentSessions().add(new UsageStats.SessionEntry(c.getLong(0), c.getString(1),
+                        c.getString(2), c.getString(3), c.getInt(4), c.getInt(5), c.getInt(6),
+                        c.getInt(7) == 1, c.getString(8)));
+            }
+        }
+
+        try (Cursor c = db.rawQuery("SELECT timestamp, level, tag, message, details FROM " + TABLE_LOGS
+                + " ORDER BY id DESC LIMIT " + maxLogs, null)) {
+            while (c.moveToNext()) {
+                stats.getLogs().add(new UsageStats.LogEntry(c.getLong(0), c.getString(1), c.getString(2),
+                        c.getString(3), c.getString(4)));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Loads usage between two instants into hourly or daily slots.
+     *
+     * Days are local calendar days. Data older than the hourly retention
+     * only exists per day, so in an hourly series it lands in the slot
+     * holding that day's midnight.
+     *
+     * @param provider Provider to count, or null for all providers
+     */
+    @Override
+    public UsageSeries querySeries(long from, long to, int resolution, String provider) {
+        List<Long> starts = new ArrayList<>();
+        if (resolution == UsageSeries.RESOLUTION_HOUR) {
+            for (long t = from - from % HOUR_MS; t < to; t += HOUR_MS) {
+                starts.add(t);
+            }
+        } else {
+            Calendar cal = Calendar.getInstance();
+            cal.setTimeInMillis(startOfDay(from));
+            while (cal.getTimeInMillis() < to) {
+                starts.add(cal.getTimeInMillis());
+                cal.add(Calendar.DAY_OF_YEAR, 1);
+            }
+        }
+        long[] slotStarts = new long[starts.size()];
+        for (int i = 0; i < slotStarts.length; i++) {
+            slotStarts[i] = starts.get(i);
+        }
+        UsageSeries series = new UsageSeries(resolution, slotStarts);
+        if (slotStarts.length == 0) {
+            return series;
+        }
+
+        String selection = "start >= ? AND start < ?" + (provider != null ? " AND provider = ?" : "");
+        String[] args = provider != null
+                ? new String[] {String.valueOf(slotStarts[0]), String.valueOf(to), provider}
+                : new String[] {String.valueOf(slotStarts[0]), String.valueOf(to)};
+        try (Cursor c = getReadableDatabase().rawQuery("SELECT start, SUM(total_tokens), SUM(requests), "
+                + "SUM(failures) FROM " + TABLE_BUCKETS + " WHERE " + selection
+                + " GROUP BY start", args)) {
+            while (c.moveToNext()) {
+                int slot = Arrays.binarySearch(slotStarts, c.getLong(0));
+                if (slot < 0) {
+                    // Falls inside a slot rather than on its start
+                    slot = -slot - 2;
+                }
+                series.add(slot, c.getLong(1), c.getInt(2), c.getInt(3));
+            }
+        }
+        return series;
+    }
+
+    // ==================== PERIOD KEYS ====================
+
+    static long startOfDay(long timestamp) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(timestamp);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        return cal.getTimeInMillis();
+    }
+
+    static String dayKey(long timestamp) {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date(timestamp));
+    }
+
+    static String weekKey(long timestamp) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(timestamp);
+        // Week-based year so the last days of December land in week 1 correctly
+        int year = cal.getWeekYear();
+        return String.format(Locale.US, "%d-W%02d", year, cal.get(Calendar.WEEK_OF_YEAR));
+    }
+
+    static String monthKey(long timestamp) {
+        return new SimpleDateFormat("yyyy-MM", Locale.US).format(new Date(timestamp));
+    }
+}
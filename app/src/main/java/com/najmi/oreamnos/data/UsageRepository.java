@@ -0,0 +1,349 @@
+package com.najmi.oreamnos.data;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.najmi.oreamnos.model.UsageSeries;
+import com.najmi.oreamnos.model.UsageStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Process-wide owner of usage statistics.
+ *
+ * Mutations update live in-memory totals (LiveUsage) immediately and are
+ * queued as pending writes. The queue is flushed to UsageDatabase in one
+ * transaction on a background thread, a short while after the first pending
+ * write, or right away when the app goes to the background. Reads are served
+ * from memory, so recording usage never blocks on disk and the Usage screen
+ * never re-reads the database. A flush that fails is rolled back and its
+ * writes are retried with backoff, ahead of anything queued since.
+ *
+ * Any number of threads may record at once. A record updates memory and
+ * queues its write under a shared lock; reset and clear take it exclusively,
+ * so a record is never split across a reset (counted in memory but wiped
+ * from disk, or the reverse).
+ */
+public class UsageRepository {
+
+    private static final String TAG = "UsageRepository";
+
+    // Coalescing window: writes within it go to disk in one transaction
+    private static final long FLUSH_DELAY_MS = 2000L;
+    // First retry delay after a failed flush, doubled on each further failure
+    private static final long RETRY_DELAY_MS = 1000L;
+    // Consecutive failed flushes before a batch is given up on
+    private static final int MAX_FLUSH_ATTEMPTS = 5;
+    // Newest entries kept in memory for snapshots; older ones are paged from disk
+    private static final int RECENT_SESSIONS = 20;
+    private static final int RECENT_LOGS = 100;
+
+    /**
+     * A pending write, applied on the writer thread.
+     */
+    private interface PendingWrite {
+        void apply(UsageStore db);
+    }
+
+    private static volatile UsageRepository instance;
+
+    private final UsageStore database;
+    private final int maxSessions;
+    private final int maxLogs;
+    private volatile LiveUsage live;
+    // Shared by records, exclusive for reset and clear
+    private final ReadWriteLock resetLock = new ReentrantReadWriteLock();
+    private final ConcurrentLinkedQueue<PendingWrite> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    // Writes of a failed flush, retried ahead of newer ones; writer thread only
+    private final List<PendingWrite> retry = new ArrayList<>();
+    private int failedFlushes = 0;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "usage-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Gets the process-wide repository, loading totals from the database on
+     * first use.
+     *
+     * @param maxSessions Sessions kept on disk; read on first use only
+     * @param maxLogs     Log lines kept on disk; read on first use only
+     */
+    public static UsageRepository getInstance(Context context, int maxSessions, int maxLogs) {
+        UsageRepository result = instance;
+        if (result == null) {
+            synchronized (UsageRepository.class) {
+                result = instance;
+                if (result == null) {
+                    result = new UsageRepository(context.getApplicationContext(), maxSessions, maxLogs);
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private UsageRepository(Context appContext, int maxSessions, int maxLogs) {
+        this(UsageDatabase.getInstance(appContext), maxSessions, maxLogs);
+
+        // Flush when the UI is hidden; the process may be killed soon after
+        appContext.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+                    flushNow();
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(@NonNull Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                flushNow();
+            }
+        });
+    }
+
+    /**
+     * Creates a repository over any store. Only getInstance() hooks up
+     * flushing when the app goes to the background.
+     */
+    UsageRepository(UsageStore store, int maxSessions, int maxLogs) {
+        this.database = store;
+        this.maxSessions = Math.max(1, maxSessions);
+        this.maxLogs = Math.max(1, maxLogs);
+        this.live = LiveUsage.fromSnapshot(database.loadUsageStats(RECENT_SESSIONS, RECENT_LOGS),
+                RECENT_SESSIONS, RECENT_LOGS);
+        writer.execute(this::compact);
+    }
+
+    // ==================== WRITES ====================
+
+    /**
+     * Records a successful API call.
+     */
+    public void recordSuccess(int promptTokens, int candidateTokens, int totalTokens,
+            String provider, String modelId, String modelName) {
+        long now = System.currentTimeMillis();
+        resetLock.readLock().lock();
+        try {
+            live.recordEvent(now, provider, modelId, modelName, promptTokens, candidateTokens, totalTokens,
+                    true, null);
+            enqueue(db -> db.appendEvent(now, provider, modelId, modelName,
+                    promptTokens, candidateTokens, totalTokens, true, null));
+        } finally {
+            resetLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records a failed API call.
+     */
+    public void recordFailure(String provider, String modelId, String modelName, String error) {
+        long now = System.currentTimeMillis();
+        resetLock.readLock().lock();
+        try {
+            live.recordEvent(now, provider, modelId, modelName, 0, 0, 0, false, error);
+            enqueue(db -> db.appendEvent(now, provider, modelId, modelName, 0, 0, 0, false, error));
+        } finally {
+            resetLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a log entry.
+     */
+    public void addLog(UsageStats.LogEntry entry) {
+        resetLock.readLock().lock();
+        try {
+            live.addLog(entry);
+            enqueue(db -> db.appendLog(entry.getTimestamp(), entry.getLevel(), entry.getTag(),
+                    entry.getMessage(), entry.getDetails()));
+        } finally {
+            resetLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Resets all usage statistics. Logs are kept.
+     */
+    public void resetUsage() {
+        resetLock.writeLock().lock();
+        try {
+            LiveUsage fresh = new LiveUsage(RECENT_SESSIONS, RECENT_LOGS);
+            // Logs survive a stats reset
+            List<UsageStats.LogEntry> logs = live.toSnapshot().getLogs();
+            for (int i = logs.size() - 1; i >= 0; i--) {
+                fresh.addLog(logs.get(i));
+            }
+            live = fresh;
+            enqueue(UsageStore::resetUsage);
+        } finally {
+            resetLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Clears all logs.
+     */
+    public void clearLogs() {
+        resetLock.writeLock().lock();
+        try {
+            live.clearLogs();
+            enqueue(UsageStore::clearLogs);
+        } finally {
+            resetLock.writeLock().unlock();
+        }
+    }
+
+    // ==================== READS ====================
+
+    /**
+     * Gets a snapshot of the current usage statistics from memory.
+     */
+    public UsageStats getUsageStats() {
+        return live.toSnapshot();
+    }
+
+    /**
+     * Loads a usage time series. Pending writes are flushed first so the
+     * series includes them. Blocks on disk; call off the main thread.
+     *
+     * @param provider Provider to count, or null for all providers
+     */
+    public UsageSeries querySeries(long from, long to, int resolution, String provider) throws Exception {
+        return onWriter(() -> database.querySeries(from, to, resolution, provider));
+    }
+
+    /**
+     * Loads a page of sessions, newest first, including pending writes.
+     * Blocks on disk; call off the main thread.
+     *
+     * @param beforeId Page.getNextBeforeId() of the previous page, or 0 for the first page
+     */
+    public Page<UsageStats.SessionEntry> loadSessions(long beforeId, int limit) throws Exception {
+        return onWriter(() -> database.loadSessions(beforeId, limit));
+    }
+
+    /**
+     * Loads a page of log lines, newest first, including pending writes.
+     * Blocks on disk; call off the main thread.
+     *
+     * @param beforeId Page.getNextBeforeId() of the previous page, or 0 for the first page
+     */
+    public Page<UsageStats.LogEntry> loadLogs(long beforeId, int limit) throws Exception {
+        return onWriter(() -> database.loadLogs(beforeId, limit));
+    }
+
+    /**
+     * Counts stored log lines, including pending writes. Blocks on disk.
+     */
+    public long countLogs() throws Exception {
+        return onWriter(database::countLogs);
+    }
+
+    /**
+     * Flushes pending writes, then runs a read on the writer thread so it
+     * sees them.
+     */
+    private <T> T onWriter(Callable<T> read) throws Exception {
+        try {
+            return writer.submit(() -> {
+                flush();
+                return read.call();
+            }).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    // ==================== PERSISTENCE ====================
+
+    private void enqueue(PendingWrite write) {
+        pending.add(write);
+        if (flushScheduled.compareAndSet(false, true)) {
+            writer.schedule(this::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes pending changes to the database in the background without
+     * waiting for the coalescing window.
+     */
+    public void flushNow() {
+        writer.execute(this::flush);
+    }
+
+    /**
+     * Drains the queue into one transaction. Runs on the writer thread only.
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        List<PendingWrite> batch = new ArrayList<>(retry);
+        retry.clear();
+        PendingWrite write;
+        while ((write = pending.poll()) != null) {
+            batch.add(write);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            database.runInTransaction(() -> {
+                for (PendingWrite w : batch) {
+                    w.apply(database);
+                }
+                database.trimHistory(maxSessions, maxLogs);
+            });
+            Log.d(TAG, "Flushed " + batch.size() + " usage write(s)");
+            failedFlushes = 0;
+        } catch (Exception e) {
+            failedFlushes++;
+            if (failedFlushes >= MAX_FLUSH_ATTEMPTS) {
+                // Keep the in-memory totals; the writes are lost from disk only
+                Log.e(TAG, "Giving up on " + batch.size() + " usage write(s) after " + failedFlushes
+                        + " failed flushes", e);
+                failedFlushes = 0;
+                return;
+            }
+            // The transaction rolled back, so the whole batch can be applied again
+            long delayMs = RETRY_DELAY_MS << (failedFlushes - 1);
+            Log.w(TAG, "Failed to flush " + batch.size() + " usage write(s), retrying in " + delayMs + "ms", e);
+            retry.addAll(batch);
+            if (flushScheduled.compareAndSet(false, true)) {
+                writer.schedule(this::flush, delayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Downsamples old hourly buckets. Runs once per process on the writer
+     * thread.
+     */
+    private void compact() {
+        try {
+            database.compactBuckets(System.currentTimeMillis());
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to compact usage buckets", e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.najmi.oreamnos.data;
+
+import com.najmi.oreamnos.model.UsageSeries;
+import com.najmi.oreamnos.model.UsageStats;
+
+/**
+ * Storage behind UsageRepository. UsageDatabase is the real one; tests
+ * drive the repository over an in-memory store.
+ *
+ * The repository calls it from its single writer thread only.
+ */
+interface UsageStore {
+
+    void appendEvent(long timestamp, String provider, String modelId, String modelName,
+            int promptTokens, int responseTokens, int totalTokens, boolean success, String error);
+
+    void appendLog(long timestamp, String level, String tag, String message, String details);
+
+    /**
+     * Runs a batch of writes atomically: if it throws, none of them stick.
+     */
+    void runInTransaction(Runnable writes);
+
+    void resetUsage();
+
+    void clearLogs();
+
+    void compactBuckets(long now);
+
+    void trimHistory(int maxEvents, int maxLogs);
+
+    Page<UsageStats.SessionEntry> loadSessions(long beforeId, int limit);
+
+    Page<UsageStats.LogEntry> loadLogs(long beforeId, int limit);
+
+    long countLogs();
+
+    UsageStats loadUsageStats(int maxSessions, int maxLogs);
+
+    UsageSeries querySeries(long from, long to, int resolution, String provider);
+}
@@ -0,0 +1,40 @@
+package com.najmi.oreamnos.exceptions;
+
+/**
+ * Exception thrown when an AI provider answers with an error response.
+ * Carries the HTTP status so callers can tell provider-side failures (5xx)
+ * from problems with the request itself (4xx).
+ */
+public class ApiException extends Exception {
+
+    private final int statusCode;
+
+    /**
+     * Creates a new ApiException.
+     *
+     * @param message    Error message
+     * @param statusCode HTTP status, or 0 for an error reported inside a
+     *                   successful (streamed) response
+     */
+    public ApiException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Gets the HTTP status of the error response.
+     *
+     * @return Status code, or 0 if the error arrived inside a stream
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Checks whether the provider, not the request, is at fault: a server
+     * error, a rate limit, or an error reported mid-stream.
+     */
+    public boolean isProviderError() {
+        return statusCode == 0 || statusCode == 429 || statusCode >= 500;
+    }
+}
@@ -9,6 +9,7 @@ public class RateLimitException extends Exception {
 
     private final long retryDelayMs;
     private final String providerName;
+    private final boolean clientSide;
 
     /**
      * Creates a new RateLimitException.
@@ -18,9 +19,20 @@ public class RateLimitException extends Exception {
      * @param providerName Name of the provider that hit the rate limit
      */
     public RateLimitException(String message, long retryDelayMs, String providerName) {
+        this(message, retryDelayMs, providerName, false);
+    }
+
+    /**
+     * Creates a new RateLimitException.
+     *
+     * @param clientSide Whether our own rate limiter refused to wait, rather
+     *                   than the provider answering 429
+     */
+    public RateLimitException(String message, long retryDelayMs, String providerName, boolean clientSide) {
         super(message);
         this.retryDelayMs = retryDelayMs;
         this.providerName = providerName;
+        this.clientSide = clientSide;
     }
 
     /**
@@ -41,6 +53,16 @@ public class RateLimitException extends Exception {
         return providerName;
     }
 
+    /**
+     * Checks whether the limit was applied on our side. The provider never
+     * saw the request, so this says nothing about its health.
+     *
+     * @return true if ProviderRateLimiter refused the request
+     */
+    public boolean isClientSide() {
+        return clientSide;
+    }
+
     /**
      * Gets a user-friendly wait time message.
      * 
@@ -0,0 +1,104 @@
+package com.najmi.oreamnos.extraction;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+/**
+ * The original selector cascade for pages without a SiteRule.
+ *
+ * Page furniture is removed by selector, then the first strategy that
+ * yields enough text wins: <article> elements, the common main-content
+ * containers, the meta description plus every substantial paragraph, and
+ * finally the whole body text.
+ */
+public final class ClassicExtractor {
+
+    private ClassicExtractor() {
+    }
+
+    /**
+     * Extracts the main content of a page. Removes the furniture from doc.
+     *
+     * @return The text, not yet cleaned up
+     */
+    public static String extract(Document doc) {
+        // Remove unwanted elements
+        removeUnwantedElements(doc);
+
+        // Try different content extraction strategies
+        String content = null;
+
+        // Strategy 1: Look for article tag
+        Elements articles = doc.select("article");
+        if (!articles.isEmpty()) {
+            content = extractTextFromElements(articles);
+        }
+
+        // Strategy 2: Look for main content div
+        if (content == null || content.length() < 200) {
+            Elements mainContent = doc
+                    .select("div[role=main], main, #main-content, .article-body, .post-content, .entry-content");
+            if (!mainContent.isEmpty()) {
+                content = extractTextFromElements(mainContent);
+            }
+        }
+
+        // Strategy 3: Look for meta description and combine with paragraphs
+        if (content == null || content.length() < 200) {
+            StringBuilder sb = new StringBuilder();
+
+            // Get meta description
+            Element metaDesc = doc.selectFirst("meta[name=description], meta[property=og:description]");
+            if (metaDesc != null) {
+                String desc = metaDesc.attr("content");
+                if (desc != null && !desc.isEmpty()) {
+                    sb.append(desc).append("\n\n");
+                }
+            }
+
+            // Get all paragraphs
+            Elements paragraphs = doc.select("p");
+            for (Element p : paragraphs) {
+                String text = p.text().trim();
+                // Only include substantial paragraphs
+                if (text.length() > 50) {
+                    sb.append(text).append("\n\n");
+                }
+            }
+
+            content = sb.toString().trim();
+        }
+
+        // Strategy 4: Fallback to body text
+        if (content == null || content.length() < 100) {
+            content = doc.body().text();
+        }
+
+        return content;
+    }
+
+    /**
+     * Removes unwanted elements from the document.
+     */
+    private static void removeUnwantedElements(Document doc) {
+        // Remove scripts, styles, navigation, ads, etc.
+        doc.select(
+                "script, style, nav, header, footer, aside, .advertisement, .ad, .social-share, .comments, #comments, .related-posts")
+                .remove();
+    }
+
+    /**
+     * Extracts text from a collection of elements.
+     */
+    private static String extractTextFromElements(Elements elements) {
+        StringBuilder sb = new StringBuilder();
+        for (Element element : elements) {
+            String text = element.text().trim();
+            if (!text.isEmpty()) {
+                sb.append(text).append("\n\n");
+            }
+        }
+        return sb.toString().trim();
+    }
+}
@@ -0,0 +1,375 @@
+package com.najmi.oreamnos.extraction;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Main-content finder in the spirit of Mozilla Readability.
+ *
+ * One post-order walk of the DOM gathers text length, link text length
+ * and comma counts for every element and rolls them up to the
+ * ancestors. Each paragraph scores its parent (and half that for its
+ * grandparent) by length and commas. As in Readability, a div with no
+ * block children counts as a paragraph, and text loose in a div beside
+ * blocks counts as a paragraph of that div. An element's final score is
+ * that sum plus a class/id bonus or penalty, scaled down by its link
+ * density, so menus, cookie banners and "related" lists lose to the story
+ * body. The best element and its strong siblings are then read out
+ * paragraph by paragraph, splitting div text at line breaks and skipping
+ * link-heavy blocks.
+ */
+public final class ReadabilityExtractor {
+
+    // Subtrees that never hold the story
+    private static final Set<String> SKIP_TAGS = new HashSet<>(Arrays.asList(
+            "script", "style", "noscript", "nav", "aside", "footer", "form", "iframe", "svg", "button",
+            "select", "template", "figure"));
+    // Elements that score their ancestors
+    private static final Set<String> SCORING_TAGS = new HashSet<>(Arrays.asList(
+            "p", "pre", "td", "blockquote"));
+    // Elements read out as paragraphs
+    private static final Set<String> BLOCK_TAGS = new HashSet<>(Arrays.asList(
+            "p", "pre", "blockquote", "h2", "h3", "h4", "li"));
+    // Elements that keep a div from reading as a single paragraph
+    private static final Set<String> BLOCK_LEVEL_TAGS = new HashSet<>(Arrays.asList(
+            "address", "article", "blockquote", "div", "dl", "h1", "h2", "h3", "h4", "h5", "h6", "header",
+            "hr", "img", "li", "main", "ol", "p", "pre", "section", "table", "ul"));
+
+    private static final Pattern POSITIVE = Pattern.compile(
+            "(?i)article|body|content|entry|main|page|post|story|text|blog");
+    private static final Pattern NEGATIVE = Pattern.compile(
+            "(?i)comment|contact|cookie|consent|footer|footnote|masthead|menu|modal|nav|outbrain|promo|"
+                    + "related|share|sidebar|social|sponsor|subscribe|newsletter|taboola|widget|advert|banner");
+
+    private static final int MIN_PARAGRAPH_CHARS = 25;
+    private static final double MAX_BLOCK_LINK_DENSITY = 0.5;
+
+    /**
+     * Per-element counts, rolled up from descendants.
+     */
+    private static final class Stats {
+        final Element element;
+        int textChars;
+        int linkChars;
+        int commas;
+        // Text outside any block-level descendant
+        int looseChars;
+        int looseCommas;
+        boolean hasBlock;
+        double score;
+
+        Stats(Element element) {
+            this.element = element;
+        }
+
+        double linkDensity() {
+            return textChars == 0 ? 0 : (double) linkChars / textChars;
+        }
+    }
+
+    private ReadabilityExtractor() {
+    }
+
+    /**
+     * Finds and reads out the main content of a page.
+     *
+     * @return The text, paragraphs separated by blank lines, or null if no
+     *         element scored
+     */
+    public static String extract(Document doc) {
+        if (doc.body() == null) {
+            return null;
+        }
+
+        Map<Element, Stats> stats = new IdentityHashMap<>();
+        List<Stats> candidates = new ArrayList<>();
+        score(doc.body(), stats, candidates);
+
+        Stats top = null;
+        double topScore = 0;
+        for (Stats candidate : candidates) {
+            double finalScore = finalScore(candidate);
+            if (finalScore > topScore) {
+                top = candidate;
+                topScore = finalScore;
+            }
+        }
+        if (top == null) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (Element element : withSiblings(top, topScore, stats)) {
+            readOut(element, stats, sb);
+        }
+        String text = sb.toString().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * The single scoring walk. Stats for open elements sit on a stack; when
+     * an element closes its counts are added to its parent's.
+     */
+    private static void score(Element body, Map<Element, Stats> stats, List<Stats> candidates) {
+        Deque<Stats> open = new ArrayDeque<>();
+        int[] linkDepth = {0};
+
+        NodeTraversor.filter(new NodeFilter() {
+            @Override
+            public FilterResult head(Node node, int depth) {
+                if (node instanceof TextNode) {
+                    Stats current = open.peek();
+                    if (current != null) {
+                        String text = ((TextNode) node).text();
+                        int chars = text.trim().length();
+                        current.textChars += chars;
+                        current.looseChars += chars;
+                        if (linkDepth[0] > 0) {
+                            current.linkChars += chars;
+                        }
+                        for (int i = 0; i < text.length(); i++) {
+                            if (text.charAt(i) == ',') {
+                                current.commas++;
+                                current.looseCommas++;
+                            }
+                        }
+                    }
+                    return FilterResult.CONTINUE;
+                }
+                if (!(node instanceof Element)) {
+                    return FilterResult.CONTINUE;
+                }
+
+                Element element = (Element) node;
+                if (SKIP_TAGS.contains(element.normalName())) {
+                    return FilterResult.SKIP_ENTIRELY;
+                }
+                if ("a".equals(element.normalName())) {
+                    linkDepth[0]++;
+                }
+                Stats s = new Stats(element);
+                stats.put(element, s);
+                open.push(s);
+                return FilterResult.CONTINUE;
+            }
+
+            @Override
+            public FilterResult tail(Node node, int depth) {
+                if (!(node instanceof Element)) {
+                    return FilterResult.CONTINUE;
+                }
+                Element element = (Element) node;
+                Stats s = stats.get(element);
+                if (s == null || open.peek() != s) {
+                    return FilterResult.CONTINUE; // Skipped subtree
+                }
+                open.pop();
+                if ("a".equals(element.normalName())) {
+                    linkDepth[0]--;
+                }
+
+                Stats parent = open.peek();
+                if (isParagraph(element, s)) {
+                    if (s.textChars >= MIN_PARAGRAPH_CHARS && parent != null) {
+                        double contentScore = contentScore(s.textChars, s.commas);
+                        parent.score += contentScore;
+                        Stats grandparent = null;
+                        for (Stats ancestor : open) {
+                            if (ancestor != parent) {
+                                grandparent = ancestor;
+                                break;
+                            }
+                        }
+                        if (grandparent != null) {
+                            grandparent.score += contentScore / 2;
+                        }
+                    }
+                } else if ("div".equals(element.normalName()) && s.looseChars >= MIN_PARAGRAPH_CHARS) {
+                    // Readability wraps loose text in a paragraph of its own
+                    double contentScore = contentScore(s.looseChars, s.looseCommas);
+                    s.score += contentScore;
+                    if (parent != null) {
+                        parent.score += contentScore / 2;
+                    }
+                }
+
+                if (parent != null) {
+                    parent.textChars += s.textChars;
+                    parent.linkChars += s.linkChars;
+                    parent.commas += s.commas;
+                    if (BLOCK_LEVEL_TAGS.contains(element.normalName())) {
+                        parent.hasBlock = true;
+                    } else {
+                        parent.looseChars += s.looseChars;
+                        parent.looseCommas += s.looseCommas;
+                        parent.hasBlock |= s.hasBlock;
+                    }
+                }
+                if (s.score > 0) {
+                    candidates.add(s);
+                }
+                return FilterResult.CONTINUE;
+            }
+        }, body);
+    }
+
+    /**
+     * Checks whether an element scores as a paragraph: a scoring tag, or a
+     * div with no block-level descendants.
+     */
+    private static boolean isParagraph(Element element, Stats s) {
+        String tag = element.normalName();
+        return SCORING_TAGS.contains(tag) || ("div".equals(tag) && !s.hasBlock);
+    }
+
+    private static double contentScore(int chars, int commas) {
+        return 1 + commas + Math.min(chars / 100, 3);
+    }
+
+    private static boolean isDiv(Node node) {
+        return node instanceof Element && "div".equals(((Element) node).normalName());
+    }
+
+    private static double finalScore(Stats s) {
+        return (s.score + classWeight(s.element)) * (1 - s.linkDensity());
+    }
+
+    /**
+     * Gets +25 for a class or id that suggests content, -25 for one that
+     * suggests page furniture.
+     */
+    private static int classWeight(Element element) {
+        int weight = 0;
+        String className = element.className();
+        String id = element.id();
+        if (!className.isEmpty()) {
+            if (NEGATIVE.matcher(className).find()) {
+                weight -= 25;
+            }
+            if (POSITIVE.matcher(className).find()) {
+                weight += 25;
+            }
+        }
+        if (!id.isEmpty()) {
+            if (NEGATIVE.matcher(id).find()) {
+                weight -= 25;
+            }
+            if (POSITIVE.matcher(id).find()) {
+                weight += 25;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Gets the top element plus siblings that are likely part of the same
+     * story, in document order: strong scorers and plain text paragraphs,
+ * whether in a p or a div.
+     */
+    private static List<Element> withSiblings(Stats top, double topScore, Map<Element, Stats> stats) {
+        List<Element> result = new ArrayList<>();
+        Element parent = top.element.parent();
+        if (parent == null) {
+            result.add(top.element);
+            return result;
+        }
+
+        double threshold = Math.max(10, topScore * 0.2);
+        for (Element sibling : parent.children()) {
+            Stats s = stats.get(sibling);
+            if (sibling == top.element) {
+                result.add(sibling);
+            } else if (s != null && s.score > 0 && finalScore(s) >= threshold) {
+                result.add(sibling);
+            } else if (s != null && ("p".equals(sibling.normalName()) || isDiv(sibling) && !s.hasBlock)
+                    && s.textChars > 80 && s.linkDensity() < 0.25) {
+                result.add(sibling);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Appends an element's paragraphs, skipping furniture and link lists.
+     * Text loose in a div is gathered into runs that end at a line break
+     * or the next block.
+     */
+    private static void readOut(Element root, Map<Element, Stats> stats, StringBuilder sb) {
+        NodeTraversor.filter(new NodeFilter() {
+            private final StringBuilder run = new StringBuilder();
+            private int runLinkChars;
+
+            @Override
+            public FilterResult head(Node node, int depth) {
+                if (node instanceof TextNode) {
+                    if (isDiv(node.parent())) {
+                        run.append(((TextNode) node).text());
+                    }
+                    return FilterResult.CONTINUE;
+                }
+                if (!(node instanceof Element)) {
+                    return FilterResult.SKIP_CHILDREN;
+                }
+                Element element = (Element) node;
+                Stats s = stats.get(element);
+                if (s == null) {
+                    return FilterResult.SKIP_ENTIRELY; // Skipped while scoring
+                }
+                if (element != root && classWeight(element) < 0 && s.linkDensity() > 0.2) {
+                    return FilterResult.SKIP_ENTIRELY;
+                }
+                String tag = element.normalName();
+                if (isDiv(element.parent()) && !s.hasBlock && !BLOCK_LEVEL_TAGS.contains(tag)
+                        && !"br".equals(tag)) {
+                    // Inline markup within a div's text
+                    run.append(element.text());
+                    runLinkChars += s.linkChars;
+                    return FilterResult.SKIP_ENTIRELY;
+                }
+                flushRun();
+                if (BLOCK_TAGS.contains(tag)) {
+                    if (s.linkDensity() <= MAX_BLOCK_LINK_DENSITY) {
+                        String text = element.text().trim();
+                        if (!text.isEmpty()) {
+                            sb.append(text).append("\n\n");
+                        }
+                    }
+                    return FilterResult.SKIP_CHILDREN;
+                }
+                return FilterResult.CONTINUE;
+            }
+
+            @Override
+            public FilterResult tail(Node node, int depth) {
+                if (isDiv(node)) {
+                    flushRun();
+                }
+                return FilterResult.CONTINUE;
+            }
+
+            private void flushRun() {
+                String text = run.toString().replaceAll("\\s+", " ").trim();
+                if (!text.isEmpty() && (double) runLinkChars / text.length() <= MAX_BLOCK_LINK_DENSITY) {
+                    sb.append(text).append("\n\n");
+                }
+                run.setLength(0);
+                runLinkChars = 0;
+            }
+        }, root);
+    }
+}
@@ -0,0 +1,113 @@
+package com.najmi.oreamnos.extraction;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.QueryParser;
+
+import java.util.Locale;
+
+/**
+ * How to pull the story out of one site's article pages.
+ *
+ * Selectors are compiled to jsoup Evaluators once, when the rule is built,
+ * rather than re-parsed for every page. Extraction finds the container,
+ * then walks its subtree once: excluded subtrees (ads, embeds, related
+ * links) are skipped whole and each matching text block is taken as a
+ * paragraph without descending into it.
+ */
+public class SiteRule {
+
+    private final String name;
+    private final String[] hosts;
+    private final String pathPrefix;
+    private final Evaluator container;
+    private final Evaluator paragraphs;
+    private final Evaluator exclude;
+
+    /**
+     * Creates a rule.
+     *
+     * @param name       Display name for logs, e.g. "BBC Sport"
+     * @param hosts      Hosts the rule applies to; subdomains match too
+     * @param pathPrefix Path the URL must start with, e.g. "/sport", or null for any
+     * @param container  Selector for the element holding the story
+     * @param paragraphs Selector for text blocks inside the container
+     * @param exclude    Selector for subtrees to skip inside the container, or null
+     */
+    public SiteRule(String name, String[] hosts, String pathPrefix, String container, String paragraphs,
+            String exclude) {
+        this.name = name;
+        this.hosts = hosts;
+        this.pathPrefix = pathPrefix;
+        this.container = QueryParser.parse(container);
+        this.paragraphs = QueryParser.parse(paragraphs);
+        this.exclude = exclude != null ? QueryParser.parse(exclude) : null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    String[] getHosts() {
+        return hosts;
+    }
+
+    /**
+     * Gets the container selector, e.g. to stop a streaming parse once the
+     * container is complete.
+     */
+    public Evaluator getContainer() {
+        return container;
+    }
+
+    /**
+     * Checks the path part of a URL on one of this rule's hosts.
+     */
+    boolean matchesPath(String path) {
+        return pathPrefix == null || (path != null && path.toLowerCase(Locale.ROOT).startsWith(pathPrefix));
+    }
+
+    /**
+     * Extracts the story text, one paragraph per block.
+     *
+     * @return The text, or null if the page has no container
+     */
+    public String extract(Document doc) {
+        Element root = doc.selectFirst(container);
+        if (root == null) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        NodeTraversor.filter(new NodeFilter() {
+            @Override
+            public FilterResult head(Node node, int depth) {
+                if (!(node instanceof Element)) {
+                    return FilterResult.SKIP_CHILDREN;
+                }
+                Element element = (Element) node;
+                if (exclude != null && exclude.matches(root, element)) {
+                    return FilterResult.SKIP_ENTIRELY;
+                }
+                if (paragraphs.matches(root, element)) {
+                    String text = element.text().trim();
+                    if (!text.isEmpty()) {
+                        sb.append(text).append("\n\n");
+                    }
+                    return FilterResult.SKIP_CHILDREN;
+                }
+                return FilterResult.CONTINUE;
+            }
+
+            @Override
+            public FilterResult tail(Node node, int depth) {
+                return FilterResult.CONTINUE;
+            }
+        }, root);
+        return sb.toString().trim();
+    }
+}
@@ -0,0 +1,119 @@
+package com.najmi.oreamnos.extraction;
+
+import java.net.URL;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of SiteRules, looked up by host.
+ *
+ * Comes with rules for the football sites we see most; more can be added
+ * with register(). Pages without a rule, or whose rule finds nothing, go
+ * through WebContentExtractor's generic cascade.
+ */
+public final class SiteRules {
+
+    // Rules by host; a host can have several rules for different paths
+    private static final Map<String, List<SiteRule>> rulesByHost = new ConcurrentHashMap<>();
+
+    static {
+        register(new SiteRule("BBC Sport",
+                new String[] {"bbc.com", "bbc.co.uk"}, "/sport",
+                "article, #main-content",
+                "[data-component=text-block] p, [data-component=subheadline-block] h2",
+                "figure, aside, [data-component=links-block], [data-component=topic-list]"));
+
+        register(new SiteRule("Sky Sports",
+                new String[] {"skysports.com"}, null,
+                ".sdc-article-body, .article__body",
+                "p, h2, h3",
+                "figure, aside, .sdc-article-widget, .sdc-site-video, .sdc-article-related-stories"));
+
+        register(new SiteRule("ESPN",
+                new String[] {"espn.com", "espn.co.uk", "espnfc.com"}, null,
+                ".article-body, .story-body",
+                "p, h2",
+                "figure, aside, .article-meta, .inline-track, .editorial"));
+
+        register(new SiteRule("The Athletic",
+                new String[] {"theathletic.com"}, null,
+                "[class*=article-content-container], .bodytext, article",
+                "p, h2",
+                "figure, aside, [class*=ad-container], [class*=newsletter]"));
+
+        register(new SiteRule("The Athletic",
+                new String[] {"nytimes.com"}, "/athletic",
+                "[class*=article-content-container], section[name=articleBody], article",
+                "p, h2",
+                "figure, aside, [class*=ad-container], [class*=newsletter]"));
+
+        register(new SiteRule("The Guardian",
+                new String[] {"theguardian.com"}, "/football",
+                "[data-gu-name=body], .article-body-commercial-selector",
+                "p, h2",
+                "figure, aside, [data-spacefinder-role=inline]"));
+
+        register(new SiteRule("Goal",
+                new String[] {"goal.com"}, null,
+                "[class*=article_body], .article-body, article",
+                "p, h2",
+                "figure, aside, [class*=related], [class*=embed]"));
+
+        register(new SiteRule("Reach plc",
+                new String[] {"mirror.co.uk", "football.london"}, null,
+                ".article-body",
+                "p, h3",
+                "figure, aside, .read-more-links, .related-column, .inline-poll"));
+    }
+
+    private SiteRules() {
+    }
+
+    /**
+     * Adds a rule. Rules added later for the same host are tried first.
+     */
+    public static void register(SiteRule rule) {
+        for (String host : rule.getHosts()) {
+            rulesByHost.computeIfAbsent(host.toLowerCase(Locale.ROOT), h -> new CopyOnWriteArrayList<>())
+                    .add(0, rule);
+        }
+    }
+
+    /**
+     * Finds the rule for a URL, matching its host and then each parent
+     * domain, so www.bbc.co.uk finds the bbc.co.uk rule.
+     *
+     * @return The rule, or null if the site has none
+     */
+    public static SiteRule forUrl(String url) {
+        String host;
+        String path;
+        try {
+            URL parsed = new URL(url);
+            host = parsed.getHost().toLowerCase(Locale.ROOT);
+            path = parsed.getPath();
+        } catch (Exception e) {
+            return null;
+        }
+
+        while (!host.isEmpty()) {
+            List<SiteRule> rules = rulesByHost.get(host);
+            if (rules != null) {
+                for (SiteRule rule : rules) {
+                    if (rule.matchesPath(path)) {
+                        return rule;
+                    }
+                }
+            }
+            int dot = host.indexOf('.');
+            if (dot < 0) {
+                break;
+            }
+            host = host.substring(dot + 1);
+        }
+        return null;
+    }
+}
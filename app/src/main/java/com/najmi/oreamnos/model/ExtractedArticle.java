@@ -0,0 +1,92 @@
+package com.najmi.oreamnos.model;
+
+/**
+ * Everything taken from one fetch and parse of an article URL: the preview
+ * card's title, favicon and domain, the cleaned text sent for generation,
+ * and its language and length.
+ */
+public class ExtractedArticle {
+
+    // Average adult reading speed, for the reading time estimate
+    private static final int WORDS_PER_MINUTE = 200;
+
+    private final String url;
+    private final String title;
+    private final String faviconUrl;
+    private final String domain;
+    private final String content;
+    private final String language;
+    private final int wordCount;
+
+    /**
+     * @param language ISO 639-1 code such as "en" or "ms", or null if unknown
+     */
+    public ExtractedArticle(String url, String title, String faviconUrl, String domain, String content,
+            String language) {
+        this.url = url;
+        this.title = title;
+        this.faviconUrl = faviconUrl;
+        this.domain = domain;
+        this.content = content != null ? content : "";
+        this.language = language;
+        this.wordCount = countWords(this.content);
+    }
+
+    private static int countWords(String text) {
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            boolean whitespace = Character.isWhitespace(text.charAt(i));
+            if (!whitespace && !inWord) {
+                words++;
+            }
+            inWord = !whitespace;
+        }
+        return words;
+    }
+
+    // ==================== GETTERS ====================
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getFaviconUrl() {
+        return faviconUrl;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public boolean hasContent() {
+        return !content.trim().isEmpty();
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public int getCharCount() {
+        return content.length();
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Gets the estimated reading time, at least one minute.
+     */
+    public int getReadingMinutes() {
+        return Math.max(1, (wordCount + WORDS_PER_MINUTE - 1) / WORDS_PER_MINUTE);
+    }
+}
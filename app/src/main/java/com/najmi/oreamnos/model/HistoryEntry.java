@@ -0,0 +1,119 @@
+package com.najmi.oreamnos.model;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * A generated post kept in the history store, with the input it came from
+ * and what it cost.
+ */
+public class HistoryEntry {
+
+    private final long id;
+    private final long timestamp;
+    private final String input;
+    private final String title;
+    private final String body;
+    private final String source;
+    private final String provider;
+    private final String model;
+    private final int promptTokens;
+    private final int responseTokens;
+    private final int totalTokens;
+    private final long latencyMs;
+    private final boolean refinement;
+
+    public HistoryEntry(long id, long timestamp, String input, String title, String body, String source,
+            String provider, String model, int promptTokens, int responseTokens, int totalTokens,
+            long latencyMs, boolean refinement) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.input = input;
+        this.title = title;
+        this.body = body;
+        this.source = source;
+        this.provider = provider;
+        this.model = model;
+        this.promptTokens = promptTokens;
+        this.responseTokens = responseTokens;
+        this.totalTokens = totalTokens;
+        this.latencyMs = latencyMs;
+        this.refinement = refinement;
+    }
+
+    // ==================== GETTERS ====================
+
+    public long getId() {
+        return id;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public int getPromptTokens() {
+        return promptTokens;
+    }
+
+    public int getResponseTokens() {
+        return responseTokens;
+    }
+
+    public int getTotalTokens() {
+        return totalTokens;
+    }
+
+    public long getLatencyMs() {
+        return latencyMs;
+    }
+
+    public boolean isRefinement() {
+        return refinement;
+    }
+
+    /**
+     * Gets the post as generated: title, body and source separated by blank
+     * lines.
+     */
+    public String getText() {
+        StringBuilder text = new StringBuilder();
+        if (title != null && !title.isEmpty()) {
+            text.append(title).append("\n\n");
+        }
+        text.append(body != null ? body : "");
+        if (source != null && !source.isEmpty()) {
+            text.append("\n\n").append(source);
+        }
+        return text.toString();
+    }
+
+    public String getFormattedDate() {
+        SimpleDateFormat sdf = new SimpleDateFormat("MMM dd, HH:mm", Locale.getDefault());
+        return sdf.format(new Date(timestamp));
+    }
+}
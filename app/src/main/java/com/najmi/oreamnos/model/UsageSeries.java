@@ -0,0 +1,102 @@
+package com.najmi.oreamnos.model;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Token and request counts over a time range, one slot per hour or day.
+ * Slots are plain arrays, so a series costs the same whatever the history.
+ */
+public class UsageSeries {
+
+    // ==================== RESOLUTIONS ====================
+
+    public static final int RESOLUTION_HOUR = 0;
+    public static final int RESOLUTION_DAY = 1;
+
+    private final int resolution;
+    private final long[] slotStarts;
+    private final long[] tokens;
+    private final int[] requests;
+    private final int[] failures;
+
+    /**
+     * @param resolution RESOLUTION_HOUR or RESOLUTION_DAY
+     * @param slotStarts Start of each slot in epoch millis, ascending
+     */
+    public UsageSeries(int resolution, long[] slotStarts) {
+        this.resolution = resolution;
+        this.slotStarts = slotStarts;
+        this.tokens = new long[slotStarts.length];
+        this.requests = new int[slotStarts.length];
+        this.failures = new int[slotStarts.length];
+    }
+
+    /**
+     * Adds counts to a slot (used when loading from the usage database).
+     */
+    public void add(int slot, long slotTokens, int slotRequests, int slotFailures) {
+        tokens[slot] += slotTokens;
+        requests[slot] += slotRequests;
+        failures[slot] += slotFailures;
+    }
+
+    // ==================== GETTERS ====================
+
+    public int getResolution() {
+        return resolution;
+    }
+
+    public int size() {
+        return slotStarts.length;
+    }
+
+    public long getSlotStart(int slot) {
+        return slotStarts[slot];
+    }
+
+    public long getTokens(int slot) {
+        return tokens[slot];
+    }
+
+    public int getRequests(int slot) {
+        return requests[slot];
+    }
+
+    public int getFailures(int slot) {
+        return failures[slot];
+    }
+
+    public long getMaxTokens() {
+        long max = 0;
+        for (long t : tokens) {
+            max = Math.max(max, t);
+        }
+        return max;
+    }
+
+    public long getTotalTokens() {
+        long sum = 0;
+        for (long t : tokens) {
+            sum += t;
+        }
+        return sum;
+    }
+
+    public int getTotalRequests() {
+        int sum = 0;
+        for (int r : requests) {
+            sum += r;
+        }
+        return sum;
+    }
+
+    /**
+     * Gets a short label for a slot, e.g. "14:00" or "Dec 13".
+     */
+    public String getSlotLabel(int slot) {
+        String pattern = resolution == RESOLUTION_HOUR ? "HH:mm" : "MMM dd";
+        return new SimpleDateFormat(pattern, Locale.getDefault()).format(new Date(slotStarts[slot]));
+    }
+}
@@ -2,6 +2,7 @@ package com.najmi.oreamnos.model;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import com.najmi.oreamnos.utils.RingBuffer;
 
 import java.lang.reflect.Type;
 import java.text.SimpleDateFormat;
@@ -61,7 +62,8 @@ public class UsageStats {
     // ==================== SESSION HISTORY ====================
 
     private List<SessionEntry> recentSessions;
-    private static final int MAX_SESSIONS = 20;
+    public static final int DEFAULT_MAX_SESSIONS = 10000;
+    private transient int maxSessions = DEFAULT_MAX_SESSIONS;
 
     // ==================== NESTED CLASSES ====================
 
@@ -178,6 +180,19 @@ public class UsageStats {
         public SessionEntry() {
         }
 
+        public SessionEntry(long timestamp, String provider, String modelId, String modelName,
+                int prompt, int response, int total, boolean success, String errorMessage) {
+            this.timestamp = timestamp;
+            this.provider = provider;
+            this.modelId = modelId;
+            this.modelName = modelName;
+            this.promptTokens = prompt;
+            this.responseTokens = response;
+            this.totalTokens = total;
+            this.success = success;
+            this.errorMessage = errorMessage;
+        }
+
         public SessionEntry(String provider, String modelId, String modelName,
                 int prompt, int response, int total, boolean success) {
             this.timestamp = System.currentTimeMillis();
@@ -262,7 +277,11 @@ public class UsageStats {
         }
 
         public LogEntry(String level, String tag, String message, String details) {
-            this.timestamp = System.currentTimeMillis();
+            this(System.currentTimeMillis(), level, tag, message, details);
+        }
+
+        public LogEntry(long timestamp, String level, String tag, String message, String details) {
+            this.timestamp = timestamp;
             this.level = level;
             this.tag = tag;
             this.message = message;
@@ -319,7 +338,8 @@ public class UsageStats {
     // ==================== LOG ENTRIES ====================
 
     private List<LogEntry> logs;
-    private static final int MAX_LOGS = 100;
+    public static final int DEFAULT_MAX_LOGS = 10000;
+    private transient int maxLogs = DEFAULT_MAX_LOGS;
 
     // ==================== CONSTRUCTOR ====================
 
@@ -508,13 +528,25 @@ public class UsageStats {
     }
 
     private void addSession(SessionEntry session) {
-        if (recentSessions == null) {
-            recentSessions = new ArrayList<>();
+        if (!(recentSessions instanceof RingBuffer)) {
+            // Created on first add, so snapshots don't allocate a full buffer
+            recentSessions = RingBuffer.fromNewestFirst(recentSessions, maxSessions);
         }
-        recentSessions.add(0, session); // Add at beginning
-        // Keep only last MAX_SESSIONS
-        while (recentSessions.size() > MAX_SESSIONS) {
-            recentSessions.remove(recentSessions.size() - 1);
+        ((RingBuffer<SessionEntry>) recentSessions).push(session);
+    }
+
+    /**
+     * Sets how many sessions and logs are kept. Applies from the next add.
+     */
+    public void setHistoryLimits(int maxSessions, int maxLogs) {
+        this.maxSessions = Math.max(1, maxSessions);
+        this.maxLogs = Math.max(1, maxLogs);
+        if (recentSessions instanceof RingBuffer
+                && ((RingBuffer<SessionEntry>) recentSessions).capacity() != this.maxSessions) {
+            recentSessions = RingBuffer.fromNewestFirst(recentSessions, this.maxSessions);
+        }
+        if (logs instanceof RingBuffer && ((RingBuffer<LogEntry>) logs).capacity() != this.maxLogs) {
+            logs = RingBuffer.fromNewestFirst(logs, this.maxLogs);
         }
     }
 
@@ -549,20 +581,104 @@ public class UsageStats {
         // Note: logs are NOT reset when resetting stats - use clearLogs() separately
     }
 
+    // ==================== LOADING FROM STORE ====================
+
+    /**
+     * Sets the all-time totals (used when building a snapshot from the
+     * usage database).
+     */
+    public void applyTotals(long promptTokens, long candidateTokens, long totalTokensUsed,
+            int successes, int failures) {
+        this.totalPromptTokens = promptTokens;
+        this.totalCandidateTokens = candidateTokens;
+        this.totalTokens = totalTokensUsed;
+        this.successfulRequests = successes;
+        this.failedRequests = failures;
+        this.totalRequests = successes + failures;
+    }
+
+    /**
+     * Sets the recent sessions, newest first.
+     */
+    public void applyRecentSessions(List<SessionEntry> sessions) {
+        this.recentSessions = sessions;
+    }
+
+    /**
+     * Sets the logs, newest first.
+     */
+    public void applyLogs(List<LogEntry> entries) {
+        this.logs = entries;
+    }
+
+    /**
+     * Sets the most recent successful request.
+     */
+    public void applyLastRequest(long timestamp, int promptTokens, int candidateTokens, int totalTokensUsed) {
+        this.lastRequestTimestamp = timestamp;
+        this.lastPromptTokens = promptTokens;
+        this.lastCandidateTokens = candidateTokens;
+        this.lastTotalTokens = totalTokensUsed;
+    }
+
+    /**
+     * Sets one provider's totals.
+     */
+    public void applyProviderStats(String provider, long prompt, long response, long total,
+            int successes, int failures) {
+        ProviderStats ps = new ProviderStats();
+        ps.promptTokens = prompt;
+        ps.responseTokens = response;
+        ps.totalTokens = total;
+        ps.successfulRequests = successes;
+        ps.failedRequests = failures;
+        providerStats.put(provider, ps);
+    }
+
+    /**
+     * Sets one model's totals.
+     */
+    public void applyModelStats(String modelId, String modelName, String provider, long total, int requests) {
+        ModelStats ms = new ModelStats(modelName, provider);
+        ms.totalTokens = total;
+        ms.requests = requests;
+        modelStats.put(modelId, ms);
+    }
+
+    /**
+     * Sets today's totals.
+     */
+    public void applyTodayStats(long tokens, int requests) {
+        this.todayTokens = tokens;
+        this.todayRequests = requests;
+    }
+
+    /**
+     * Sets this week's totals.
+     */
+    public void applyWeekStats(long tokens, int requests) {
+        this.weekTokens = tokens;
+        this.weekRequests = requests;
+    }
+
+    /**
+     * Sets this month's totals.
+     */
+    public void applyMonthStats(long tokens, int requests) {
+        this.monthTokens = tokens;
+        this.monthRequests = requests;
+    }
+
     // ==================== LOG METHODS ====================
 
     /**
      * Adds a log entry.
      */
     public void addLog(LogEntry entry) {
-        if (logs == null) {
-            logs = new ArrayList<>();
-        }
-        logs.add(0, entry); // Add at beginning (newest first)
-        // Keep only last MAX_LOGS
-        while (logs.size() > MAX_LOGS) {
-            logs.remove(logs.size() - 1);
+        if (!(logs instanceof RingBuffer)) {
+            logs = RingBuffer.fromNewestFirst(logs, maxLogs);
         }
+        ((RingBuffer<LogEntry>) logs).push(entry);
     }
 
     /**
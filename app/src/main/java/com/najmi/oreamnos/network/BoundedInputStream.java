@@ -0,0 +1,84 @@
+package com.najmi.oreamnos.network;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream that reports end of stream after a fixed number of bytes, so
+ * a parser reading an oversized page stops there instead of buffering all
+ * of it. isLimitReached() tells a cut-off apart from a real end.
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long remaining;
+    private long mark = -1;
+
+    public BoundedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+        this.remaining = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int b = super.read();
+        if (b >= 0) {
+            remaining--;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int n = super.read(b, off, (int) Math.min(len, remaining));
+        if (n > 0) {
+            remaining -= n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(Math.min(n, remaining));
+        remaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(super.available(), remaining);
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        super.mark(readLimit);
+        mark = remaining;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        super.reset();
+        if (mark >= 0) {
+            remaining = mark;
+        }
+    }
+
+    /**
+     * Whether reading stopped at the limit rather than the end of the data.
+     */
+    public boolean isLimitReached() {
+        return remaining <= 0;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,158 @@
+package com.najmi.oreamnos.network;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Process-wide HTTP client subsystem.
+ * All curators and extractors share one connection pool and dispatcher, so
+ * back-to-back generate/refine calls reuse warm (TLS-established) connections
+ * and HTTP/2 streams instead of paying a fresh handshake every time.
+ *
+ * Each host family gets its own timeout profile. Profile clients are derived
+ * from the shared base client via newBuilder(), which keeps the pool and
+ * dispatcher shared.
+ */
+public final class HttpClientProvider {
+
+    // Connection pool sizing: enough idle sockets for the AI hosts plus a few
+    // article sites, kept alive long enough to cover generate -> refine flows.
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    // Dispatcher limits for async calls
+    private static final int MAX_REQUESTS = 32;
+    private static final int MAX_REQUESTS_PER_HOST = 6;
+
+    /**
+     * Timeout profiles per host family (seconds).
+     */
+    public enum HostProfile {
+        /** generativelanguage.googleapis.com */
+        GEMINI(10, 20, 10),
+        /** api.groq.com */
+        GROQ(30, 60, 30),
+        /** openrouter.ai */
+        OPENROUTER(30, 60, 30),
+        /** Any article/news site fetched by WebContentExtractor */
+        ARTICLE(10, 15, 10);
+
+        private final long connectTimeoutSec;
+        private final long readTimeoutSec;
+        private final long writeTimeoutSec;
+
+        HostProfile(long connectTimeoutSec, long readTimeoutSec, long writeTimeoutSec) {
+            this.connectTimeoutSec = connectTimeoutSec;
+            this.readTimeoutSec = readTimeoutSec;
+            this.writeTimeoutSec = writeTimeoutSec;
+        }
+
+        public long getConnectTimeoutSec() {
+            return connectTimeoutSec;
+        }
+
+        public long getReadTimeoutSec() {
+            return readTimeoutSec;
+        }
+
+        public long getWriteTimeoutSec() {
+            return writeTimeoutSec;
+        }
+    }
+
+    private static volatile OkHttpClient baseClient;
+    private static final Map<HostProfile, OkHttpClient> profileClients = new EnumMap<>(HostProfile.class);
+
+    private HttpClientProvider() {
+    }
+
+    /**
+     * Gets the shared base client (shared pool, dispatcher, HTTP/2 enabled).
+     */
+    public static OkHttpClient getBaseClient() {
+        OkHttpClient client = baseClient;
+        if (client == null) {
+            synchronized (HttpClientProvider.class) {
+                client = baseClient;
+                if (client == null) {
+                    Dispatcher dispatcher = new Dispatcher();
+                    dispatcher.setMaxRequests(MAX_REQUESTS);
+                    dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+                    client = new OkHttpClient.Builder()
+                            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES,
+                                    TimeUnit.MINUTES))
+                            .dispatcher(dispatcher)
+                            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                            .retryOnConnectionFailure(true)
+                            .followRedirects(true)
+                            .build();
+                    baseClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Gets the client configured with the timeout profile for a host family.
+     * The returned client shares the pool and dispatcher with every other
+     * profile client.
+     *
+     * @param profile Host profile
+     * @return Shared OkHttpClient for that profile
+     */
+    public static OkHttpClient getClient(HostProfile profile) {
+        synchronized (profileClients) {
+            OkHttpClient client = profileClients.get(profile);
+            if (client == null) {
+                client = getBaseClient().newBuilder()
+                        .connectTimeout(profile.getConnectTimeoutSec(), TimeUnit.SECONDS)
+                        .readTimeout(profile.getReadTimeoutSec(), TimeUnit.SECONDS)
+                        .writeTimeout(profile.getWriteTimeoutSec(), TimeUnit.SECONDS)
+                        .build();
+                profileClients.put(profile, client);
+            }
+            return client;
+        }
+    }
+
+    /**
+     * Gets the client whose timeout profile matches the host of the given URL.
+     *
+     * @param url Request URL
+     * @return Shared OkHttpClient for that host
+     */
+    public static OkHttpClient getClientForUrl(String url) {
+        return getClient(profileForUrl(url));
+    }
+
+    /**
+     * Resolves the host profile for a URL. Unknown hosts use ARTICLE.
+     */
+    public static HostProfile profileForUrl(String url) {
+        HttpUrl httpUrl = url != null ? HttpUrl.parse(url) : null;
+        if (httpUrl == null) {
+            return HostProfile.ARTICLE;
+        }
+
+        String host = httpUrl.host().toLowerCase(Locale.US);
+        if (host.endsWith("generativelanguage.googleapis.com")) {
+            return HostProfile.GEMINI;
+        } else if (host.endsWith("groq.com")) {
+            return HostProfile.GROQ;
+        } else if (host.endsWith("openrouter.ai")) {
+            return HostProfile.OPENROUTER;
+        }
+        return HostProfile.ARTICLE;
+    }
+}
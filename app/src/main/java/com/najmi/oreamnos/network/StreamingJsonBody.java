@@ -0,0 +1,48 @@
+package com.najmi.oreamnos.network;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * RequestBody that encodes JSON straight into the HTTP sink with Gson's
+ * JsonWriter, instead of building a JSON tree and an intermediate String.
+ * The writer may be invoked more than once if OkHttp retries the request, so
+ * implementations must be deterministic.
+ */
+public class StreamingJsonBody extends RequestBody {
+
+    public static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    /**
+     * Writes the JSON document.
+     */
+    public interface JsonContent {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    private final JsonContent content;
+
+    public StreamingJsonBody(JsonContent content) {
+        this.content = content;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(sink.outputStream(), StandardCharsets.UTF_8));
+        content.write(writer);
+        // Flush only; OkHttp owns and closes the sink
+        writer.flush();
+    }
+}
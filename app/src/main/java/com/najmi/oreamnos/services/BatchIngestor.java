@@ -0,0 +1,239 @@
+package com.najmi.oreamnos.services;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.najmi.oreamnos.curator.CancellationToken;
+import com.najmi.oreamnos.curator.CuratorFactory;
+import com.najmi.oreamnos.curator.GenerationResult;
+import com.najmi.oreamnos.curator.IContentCurator;
+import com.najmi.oreamnos.exceptions.RateLimitException;
+import com.najmi.oreamnos.model.ExtractedArticle;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Turns a list of article URLs into posts.
+ *
+ * Articles are fetched and extracted in parallel, at most
+ * MAX_FETCHES_PER_HOST at a time from any one site, and URLs are queued
+ * round-robin across sites so one slow host doesn't hold up the rest. Each
+ * extracted article goes straight on to curation. Curation runs on a couple
+ * of threads and each request waits for its provider's ProviderRateLimiter;
+ * when the limiter's queue is full the item backs off for the suggested
+ * delay and tries again, so a long batch drains at the provider's pace
+ * instead of failing.
+ *
+ * Results are reported to the Listener as each item finishes, in completion
+ * order, one call at a time.
+ */
+public class BatchIngestor {
+
+    private static final String TAG = "BatchIngestor";
+
+    private static final int FETCH_THREADS = 6;
+    private static final int MAX_FETCHES_PER_HOST = 2;
+    // Concurrent curation requests; the rate limiter does the real pacing
+    private static final int CURATION_THREADS = 2;
+    // Times an item waits out a rate limit before it is reported as failed
+    private static final int MAX_RATE_LIMIT_WAITS = 3;
+    private static final long DEFAULT_RATE_LIMIT_WAIT_MS = 10000L;
+
+    /**
+     * Outcome of one URL in a batch.
+     */
+    public static class Item {
+        public final int index;
+        public final String url;
+        public final GenerationResult result;
+        public final Exception error;
+
+        Item(int index, String url, GenerationResult result, Exception error) {
+            this.index = index;
+            this.url = url;
+            this.result = result;
+            this.error = error;
+        }
+
+        public boolean isSuccess() {
+            return result != null;
+        }
+    }
+
+    /**
+     * Receives batch results as they complete.
+     */
+    public interface Listener {
+        /**
+         * Called once per URL, never concurrently.
+         *
+         * @param item      The finished item
+         * @param completed Items finished so far, this one included
+         * @param total     Items in the batch
+         */
+        void onItemComplete(Item item, int completed, int total);
+    }
+
+    private final Context context;
+    private final Listener listener;
+    private final Map<String, Semaphore> hostSlots = new ConcurrentHashMap<>();
+    private int completed = 0;
+
+    public BatchIngestor(Context context, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.listener = listener;
+    }
+
+    /**
+     * Processes a batch, blocking until every URL has been reported.
+     *
+     * @param urls          Article URLs, reported with their index in this list
+     * @param includeSource Whether posts cite their source
+     * @param keepStructure Whether posts keep the article's structure
+     * @param token         Cancels the whole batch
+     */
+    public void run(List<String> urls, boolean includeSource, boolean keepStructure, CancellationToken token) {
+        ExecutorService fetchPool = Executors.newFixedThreadPool(FETCH_THREADS);
+        ExecutorService curationPool = Executors.newFixedThreadPool(CURATION_THREADS);
+
+        WebContentExtractor extractor = new WebContentExtractor(context);
+        IContentCurator curator = CuratorFactory.create(context);
+        int total = urls.size();
+
+        // The pools stay open until every item is done, even after a cancel:
+        // a queued task dropped by shutdownNow() would never complete its
+        // future and join() would wait forever. Cancelled items run instead,
+        // fail the token check at once and are reported as cancelled.
+        List<CompletableFuture<Void>> items = new ArrayList<>();
+        for (int index : roundRobinByHost(urls)) {
+            String url = urls.get(index);
+            CompletableFuture<Void> item = CompletableFuture
+                    .supplyAsync(() -> fetch(extractor, url, token), fetchPool)
+                    .thenApplyAsync(article -> curate(curator, article, includeSource, keepStructure, token),
+                            curationPool)
+                    .handle((result, error) -> {
+                        report(new Item(index, url, result, unwrap(error)), total);
+                        return null;
+                    });
+            items.add(item);
+        }
+
+        try {
+            CompletableFuture.allOf(items.toArray(new CompletableFuture[0])).join();
+        } finally {
+            fetchPool.shutdown();
+            curationPool.shutdown();
+        }
+    }
+
+    /**
+     * Fetches and extracts one article, holding one of its host's slots.
+     */
+    private ExtractedArticle fetch(WebContentExtractor extractor, String url, CancellationToken token) {
+        Semaphore slots = hostSlots.computeIfAbsent(hostOf(url), h -> new Semaphore(MAX_FETCHES_PER_HOST));
+        try {
+            token.throwIfCancelled();
+            slots.acquire();
+            try {
+                token.throwIfCancelled();
+                ExtractedArticle article = extractor.extract(url, token);
+                if (!article.hasContent()) {
+                    throw new Exception("Could not extract meaningful content from URL");
+                }
+                return article;
+            } finally {
+                slots.release();
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Curates one article, waiting out client-side rate limits.
+     */
+    private GenerationResult curate(IContentCurator curator, ExtractedArticle article, boolean includeSource,
+            boolean keepStructure, CancellationToken token) {
+        try {
+            for (int attempt = 0; ; attempt++) {
+                token.throwIfCancelled();
+                try {
+                    return curator.curatePost(article.getContent(), includeSource, keepStructure, token);
+                } catch (RateLimitException rle) {
+                    if (attempt >= MAX_RATE_LIMIT_WAITS) {
+                        throw rle;
+                    }
+                    long waitMs = rle.getRetryDelayMs() > 0 ? rle.getRetryDelayMs() : DEFAULT_RATE_LIMIT_WAIT_MS;
+                    Log.i(TAG, "Rate limited, waiting " + waitMs + "ms for " + article.getUrl());
+                    token.sleep(waitMs);
+                }
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private synchronized void report(Item item, int total) {
+        completed++;
+        try {
+            listener.onItemComplete(item, completed, total);
+        } catch (Exception e) {
+            Log.e(TAG, "Batch listener failed", e);
+        }
+    }
+
+    private static Exception unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error == null) {
+            return null;
+        }
+        return error instanceof Exception ? (Exception) error : new Exception(error);
+    }
+
+    /**
+     * Orders URL indexes so consecutive entries come from different hosts
+     * where possible.
+     */
+    private static List<Integer> roundRobinByHost(List<String> urls) {
+        Map<String, List<Integer>> byHost = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            byHost.computeIfAbsent(hostOf(urls.get(i)), h -> new ArrayList<>()).add(i);
+        }
+
+        List<Integer> order = new ArrayList<>(urls.size());
+        for (int round = 0; order.size() < urls.size(); round++) {
+            for (List<Integer> indexes : byHost.values()) {
+                if (round < indexes.size()) {
+                    order.add(indexes.get(round));
+                }
+            }
+        }
+        return order;
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = new URL(url.trim()).getHost().toLowerCase(Locale.ROOT);
+            return host.startsWith("www.") ? host.substring(4) : host;
+        } catch (Exception e) {
+            return "";
+        }
+    }
+}
@@ -3,18 +3,26 @@ package com.najmi.oreamnos.services;
 import android.app.Service;
 import android.content.Intent;
 import android.os.IBinder;
+import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
 import com.najmi.oreamnos.R;
+import com.najmi.oreamnos.curator.CancellableFuture;
 import com.najmi.oreamnos.curator.CuratorFactory;
+import com.najmi.oreamnos.curator.GenerationResult;
 import com.najmi.oreamnos.curator.IContentCurator;
+import com.najmi.oreamnos.data.HistoryStore;
+import com.najmi.oreamnos.model.ExtractedArticle;
 import com.najmi.oreamnos.utils.NotificationHelper;
 import com.najmi.oreamnos.utils.PreferencesManager;
 
 import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -31,9 +39,13 @@ public class ContentGenerationService extends Service {
     // Intent actions
     public static final String ACTION_GENERATE = "com.najmi.oreamnos.ACTION_GENERATE";
     public static final String ACTION_REFINE = "com.najmi.oreamnos.ACTION_REFINE";
+    public static final String ACTION_CANCEL = "com.najmi.oreamnos.ACTION_CANCEL";
+    public static final String ACTION_GENERATE_BATCH = "com.najmi.oreamnos.ACTION_GENERATE_BATCH";
 
     // Broadcast actions for results
     public static final String BROADCAST_RESULT = "com.najmi.oreamnos.BROADCAST_RESULT";
+    public static final String BROADCAST_PARTIAL = "com.najmi.oreamnos.BROADCAST_PARTIAL";
+    public static final String BROADCAST_BATCH_ITEM = "com.najmi.oreamnos.BROADCAST_BATCH_ITEM";
 
     // Intent extras
     public static final String EXTRA_INPUT_TEXT = "extra_input_text";
@@ -41,6 +53,8 @@ public class ContentGenerationService extends Service {
     public static final String EXTRA_REFINEMENTS = "extra_refinements";
     public static final String EXTRA_INCLUDE_SOURCE = "extra_include_source";
     public static final String EXTRA_KEEP_STRUCTURE = "extra_keep_structure";
+    public static final String EXTRA_FORCE_REFRESH = "extra_force_refresh";
+    public static final String EXTRA_URLS = "extra_urls";
 
     // Result extras
     public static final String EXTRA_SUCCESS = "extra_success";
@@ -50,8 +64,16 @@ public class ContentGenerationService extends Service {
     public static final String EXTRA_IS_RATE_LIMIT = "extra_is_rate_limit";
     public static final String EXTRA_RATE_LIMIT_PROVIDER = "extra_rate_limit_provider";
     public static final String EXTRA_RETRY_DELAY_MS = "extra_retry_delay_ms";
+    public static final String EXTRA_PARTIAL_TEXT = "extra_partial_text";
+    public static final String EXTRA_BATCH_INDEX = "extra_batch_index";
+    public static final String EXTRA_BATCH_URL = "extra_batch_url";
+    public static final String EXTRA_BATCH_COMPLETED = "extra_batch_completed";
+    public static final String EXTRA_BATCH_FAILED = "extra_batch_failed";
+    public static final String EXTRA_BATCH_TOTAL = "extra_batch_total";
 
     private ExecutorService executor;
+    // Tasks queued or running; each removes itself when done
+    private final Set<CancellableFuture<Void>> liveTasks = ConcurrentHashMap.newKeySet();
     private NotificationHelper notificationHelper;
     private PreferencesManager prefsManager;
 
@@ -61,7 +83,7 @@ public class ContentGenerationService extends Service {
         Log.i(TAG, "Service created");
         executor = Executors.newSingleThreadExecutor();
         notificationHelper = new NotificationHelper(this);
-        prefsManager = new PreferencesManager(this);
+        prefsManager = PreferencesManager.getInstance(this);
     }
 
     @Override
@@ -79,6 +101,13 @@ public class ContentGenerationService extends Service {
             return START_NOT_STICKY;
         }
 
+        if (ACTION_CANCEL.equals(action)) {
+            // Sent with startService(); never promoted to foreground
+            cancelAllTasks();
+            stopSelf(startId);
+            return START_NOT_STICKY;
+        }
+
         // Start foreground immediately
         startForeground(NotificationHelper.FOREGROUND_NOTIFICATION_ID,
                 notificationHelper.buildForegroundNotification(
@@ -87,10 +116,13 @@ public class ContentGenerationService extends Service {
 
         switch (action) {
             case ACTION_GENERATE:
-                handleGenerate(intent);
+                handleGenerate(intent, startId);
                 break;
             case ACTION_REFINE:
-                handleRefine(intent);
+                handleRefine(intent, startId);
+                break;
+            case ACTION_GENERATE_BATCH:
+                handleGenerateBatch(intent, startId);
                 break;
             default:
                 Log.w(TAG, "Unknown action: " + action);
@@ -103,10 +135,11 @@ public class ContentGenerationService extends Service {
     /**
      * Handles content generation request.
      */
-    private void handleGenerate(Intent intent) {
+    private void handleGenerate(Intent intent, int startId) {
         String inputText = intent.getStringExtra(EXTRA_INPUT_TEXT);
         boolean includeSource = intent.getBooleanExtra(EXTRA_INCLUDE_SOURCE, false);
         boolean keepStructure = intent.getBooleanExtra(EXTRA_KEEP_STRUCTURE, false);
+        boolean forceRefresh = intent.getBooleanExtra(EXTRA_FORCE_REFRESH, false);
 
         if (inputText == null || inputText.isEmpty()) {
             broadcastError("Input text is required", false);
@@ -114,7 +147,8 @@ public class ContentGenerationService extends Service {
             return;
         }
 
-        executor.execute(() -> {
+        track(CancellableFuture.supplyAsync(token -> {
+            boolean cancelled = false;
             try {
                 Log.i(TAG, "Starting content generation...");
                 String content = inputText;
@@ -122,9 +156,17 @@ public class ContentGenerationService extends Service {
                 // Check if input is a URL
                 if (WebContentExtractor.isUrl(inputText)) {
                     Log.i(TAG, "Input is URL, extracting content...");
-                    WebContentExtractor extractor = new WebContentExtractor();
-                    content = extractor.extractContent(inputText);
+                    WebContentExtractor extractor = new WebContentExtractor(ContentGenerationService.this);
+                    ExtractedArticle article = extractor.extract(inputText, token);
+                    if (!article.hasContent()) {
+                        throw new Exception("Could not extract meaningful content from URL");
+                    }
+                    content = article.getContent();
+                    prefsManager.logInfo("Extractor", "Extracted " + article.getWordCount() + " words from "
+                            + article.getDomain() + (article.getLanguage() != null
+                                    ? " (" + article.getLanguage() + ")" : ""));
                 }
+                token.throwIfCancelled();
 
                 // Get provider name for logging
                 String provider = prefsManager.getProvider();
@@ -133,23 +175,28 @@ public class ContentGenerationService extends Service {
                 // Log the API request start
                 prefsManager.logInfo("API", "Request started via " + providerDisplay);
 
-                // Generate post using curator abstraction
-                IContentCurator curator = CuratorFactory.create(ContentGenerationService.this);
-                String result = curator.curatePost(content, includeSource, keepStructure);
-
-                // Record token usage
-                int promptTokens = curator.getLastPromptTokens();
-                int candidateTokens = curator.getLastCandidateTokens();
-                int totalTokens = curator.getLastTotalTokens();
-                prefsManager.recordApiSuccess(promptTokens, candidateTokens, totalTokens);
-
-                // Log success
-                prefsManager.logInfo("API",
-                        "Request successful via " + providerDisplay + " (" + totalTokens + " tokens)");
+                // Generate post using curator abstraction, streaming partial text to the UI
+                IContentCurator curator = CuratorFactory.create(ContentGenerationService.this, forceRefresh);
+                GenerationResult result = curator.curatePostStreaming(content, includeSource, keepStructure,
+                        partialText -> broadcastPartial(partialText), token);
+
+                // Record token usage and keep the post
+                recordHistory(inputText, result, false);
+                if (result.isCached()) {
+                    prefsManager.logInfo("API", "Served from response cache, no tokens used");
+                } else {
+                    recordSuccess(result);
+                    prefsManager.logInfo("API", "Request successful via " + providerDisplay + " ("
+                            + result.getTotalTokens() + " tokens, " + result.getLatencyMs() + "ms)");
+                }
 
-                Log.i(TAG, "Content generation successful");
-                broadcastSuccess(result, false);
+                Log.i(TAG, "Content generation successful: " + result);
+                broadcastSuccess(result.getText(), false);
 
+            } catch (CancellationException ce) {
+                cancelled = true;
+                Log.i(TAG, "Content generation cancelled");
+                prefsManager.logInfo("API", "Request cancelled");
             } catch (RateLimitException rle) {
                 Log.w(TAG, "Rate limit hit: " + rle.getMessage());
                 prefsManager.recordApiFailure();
@@ -172,18 +219,91 @@ public class ContentGenerationService extends Service {
                 broadcastError(e.getMessage(), false);
             } finally {
                 // Show completion notification and stop service
+                if (!cancelled) {
+                    notificationHelper.showCompletedNotification(
+                            getString(R.string.notification_complete_title),
+                            getString(R.string.notification_complete_message));
+                }
+                stopSelf(startId);
+            }
+            return null;
+        }, executor));
+    }
+
+    /**
+     * Handles a batch of article URLs. Each finished item is saved to
+     * history and broadcast with BROADCAST_BATCH_ITEM; the foreground
+     * notification shows overall progress.
+     */
+    private void handleGenerateBatch(Intent intent, int startId) {
+        ArrayList<String> urls = intent.getStringArrayListExtra(EXTRA_URLS);
+        boolean includeSource = intent.getBooleanExtra(EXTRA_INCLUDE_SOURCE, false);
+        boolean keepStructure = intent.getBooleanExtra(EXTRA_KEEP_STRUCTURE, false);
+
+        if (urls == null || urls.isEmpty()) {
+            broadcastError("At least one URL is required", false);
+            stopSelf();
+            return;
+        }
+
+        int total = urls.size();
+        String title = getString(R.string.notification_batch_title, total);
+        notificationHelper.updateForegroundProgress(title,
+                getString(R.string.notification_batch_progress, 0, total), 0, total);
+
+        track(CancellableFuture.supplyAsync(token -> {
+            // Only touched by the listener, which BatchIngestor never runs concurrently
+            int[] failed = {0};
+            try {
+                Log.i(TAG, "Starting batch of " + total + " URLs");
+                prefsManager.logInfo("Batch", "Started batch of " + total + " links via "
+                        + CuratorFactory.getProviderDisplayName(prefsManager.getProvider()));
+
+                BatchIngestor ingestor = new BatchIngestor(ContentGenerationService.this,
+                        (item, completed, count) -> {
+                            if (token.isCancelled()) {
+                                return;
+                            }
+                            if (item.isSuccess()) {
+                                recordHistory(item.url, item.result, false);
+                                if (!item.result.isCached()) {
+                                    recordSuccess(item.result);
+                                }
+                            } else {
+                                failed[0]++;
+                                prefsManager.recordApiFailure();
+                                String errorMsg = item.error != null && item.error.getMessage() != null
+                                        ? item.error.getMessage() : "Unknown error";
+                                prefsManager.logError("Batch", "Failed: " + item.url, errorMsg);
+                            }
+                            broadcastBatchItem(item, completed, failed[0], count);
+                            notificationHelper.updateForegroundProgress(title,
+                                    getString(R.string.notification_batch_progress, completed, count),
+                                    completed, count);
+                        });
+                ingestor.run(urls, includeSource, keepStructure, token);
+                token.throwIfCancelled();
+
+                Log.i(TAG, "Batch finished, " + failed[0] + " of " + total + " failed");
+                prefsManager.logInfo("Batch", "Finished: " + (total - failed[0]) + " posts, "
+                        + failed[0] + " failed");
                 notificationHelper.showCompletedNotification(
-                        getString(R.string.notification_complete_title),
-                        getString(R.string.notification_complete_message));
-                stopSelf();
+                        getString(R.string.notification_batch_complete_title),
+                        getString(R.string.notification_batch_complete_message, total - failed[0], failed[0]));
+            } catch (CancellationException ce) {
+                Log.i(TAG, "Batch cancelled");
+                prefsManager.logInfo("Batch", "Batch cancelled");
+            } finally {
+                stopSelf(startId);
             }
-        });
+            return null;
+        }, executor));
     }
 
     /**
      * Handles content refinement request.
      */
-    private void handleRefine(Intent intent) {
+    private void handleRefine(Intent intent, int startId) {
         String originalPost = intent.getStringExtra(EXTRA_ORIGINAL_POST);
         ArrayList<String> refinements = intent.getStringArrayListExtra(EXTRA_REFINEMENTS);
         boolean includeSource = intent.getBooleanExtra(EXTRA_INCLUDE_SOURCE, false);
@@ -200,7 +320,8 @@ public class ContentGenerationService extends Service {
             return;
         }
 
-        executor.execute(() -> {
+        track(CancellableFuture.supplyAsync(token -> {
+            boolean cancelled = false;
             try {
                 Log.i(TAG, "Starting content refinement with options: " + refinements);
 
@@ -214,21 +335,23 @@ public class ContentGenerationService extends Service {
 
                 // Refine post using curator abstraction
                 IContentCurator curator = CuratorFactory.create(ContentGenerationService.this);
-                String result = curator.refinePost(originalPost, refinements, includeSource);
+                GenerationResult result = curator.refinePost(originalPost, refinements, includeSource, token);
 
-                // Record token usage
-                int promptTokens = curator.getLastPromptTokens();
-                int candidateTokens = curator.getLastCandidateTokens();
-                int totalTokens = curator.getLastTotalTokens();
-                prefsManager.recordApiSuccess(promptTokens, candidateTokens, totalTokens);
+                // Record token usage and keep the post
+                recordSuccess(result);
+                recordHistory("Refinement: " + TextUtils.join(", ", refinements), result, true);
 
                 // Log success
-                prefsManager.logInfo("API",
-                        "Refinement successful via " + providerDisplay + " (" + totalTokens + " tokens)");
+                prefsManager.logInfo("API", "Refinement successful via " + providerDisplay + " ("
+                        + result.getTotalTokens() + " tokens, " + result.getLatencyMs() + "ms)");
 
-                Log.i(TAG, "Content refinement successful");
-                broadcastSuccess(result, true);
+                Log.i(TAG, "Content refinement successful: " + result);
+                broadcastSuccess(result.getText(), true);
 
+            } catch (CancellationException ce) {
+                cancelled = true;
+                Log.i(TAG, "Content refinement cancelled");
+                prefsManager.logInfo("API", "Refinement cancelled");
             } catch (RateLimitException rle) {
                 Log.w(TAG, "Rate limit hit during refinement: " + rle.getMessage());
                 prefsManager.recordApiFailure();
@@ -252,12 +375,64 @@ public class ContentGenerationService extends Service {
                 broadcastError(e.getMessage(), true);
             } finally {
                 // Show completion notification and stop service
-                notificationHelper.showCompletedNotification(
-                        getString(R.string.notification_complete_title),
-                        getString(R.string.notification_complete_message));
-                stopSelf();
+                if (!cancelled) {
+                    notificationHelper.showCompletedNotification(
+                            getString(R.string.notification_complete_title),
+                            getString(R.string.notification_complete_message));
+                }
+                stopSelf(startId);
             }
-        });
+            return null;
+        }, executor));
+    }
+
+    /**
+     * Records token usage of a finished request against its provider/model.
+     */
+    private void recordSuccess(GenerationResult result) {
+        String selectedProvider = prefsManager.getProvider();
+        if (!result.getProvider().isEmpty() && !result.getProvider().equals(selectedProvider)) {
+            prefsManager.logWarning("API", "Failed over from "
+                    + CuratorFactory.getProviderDisplayName(selectedProvider) + " to "
+                    + CuratorFactory.getProviderDisplayName(result.getProvider()), null);
+        }
+        String model = result.getModel().isEmpty() ? null : result.getModel();
+        prefsManager.recordApiSuccess(result.getPromptTokens(), result.getCandidateTokens(),
+                result.getTotalTokens(), result.getProvider(), model, model);
+    }
+
+    /**
+     * Saves a finished post to the history store. Failures are logged only;
+     * the post has already been generated.
+     */
+    private void recordHistory(String input, GenerationResult result, boolean isRefinement) {
+        try {
+            HistoryStore.getInstance(this).record(input, result.getText(), result.getProvider(),
+                    result.getModel(), result.getPromptTokens(), result.getCandidateTokens(),
+                    result.getTotalTokens(), result.getLatencyMs(), isRefinement);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to save post to history", e);
+        }
+    }
+
+    /**
+     * Keeps a task in liveTasks until it finishes, so a cancel reaches it.
+     */
+    private void track(CancellableFuture<Void> task) {
+        liveTasks.add(task);
+        task.whenComplete((result, error) -> liveTasks.remove(task));
+    }
+
+    /**
+     * Cancels the running task and every queued one, aborting their HTTP
+     * calls.
+     */
+    private void cancelAllTasks() {
+        for (CancellableFuture<Void> task : liveTasks) {
+            Log.i(TAG, "Cancelling task");
+            task.cancel(true);
+        }
+        liveTasks.clear();
     }
 
     /**
@@ -271,6 +446,35 @@ public class ContentGenerationService extends Service {
         LocalBroadcastManager.getInstance(this).sendBroadcast(broadcast);
     }
 
+    /**
+     * Broadcasts streamed partial text to MainActivity.
+     */
+    private void broadcastPartial(String partialText) {
+        Intent broadcast = new Intent(BROADCAST_PARTIAL);
+        broadcast.putExtra(EXTRA_PARTIAL_TEXT, partialText);
+        LocalBroadcastManager.getInstance(this).sendBroadcast(broadcast);
+    }
+
+    /**
+     * Broadcasts one finished batch item.
+     */
+    private void broadcastBatchItem(BatchIngestor.Item item, int completed, int failed, int total) {
+        Intent broadcast = new Intent(BROADCAST_BATCH_ITEM);
+        broadcast.putExtra(EXTRA_BATCH_INDEX, item.index);
+        broadcast.putExtra(EXTRA_BATCH_URL, item.url);
+        broadcast.putExtra(EXTRA_SUCCESS, item.isSuccess());
+        if (item.isSuccess()) {
+            broadcast.putExtra(EXTRA_RESULT, item.result.getText());
+        } else {
+            broadcast.putExtra(EXTRA_ERROR, item.error != null ? item.error.getMessage() : "Unknown error");
+            broadcast.putExtra(EXTRA_IS_RATE_LIMIT, item.error instanceof RateLimitException);
+        }
+        broadcast.putExtra(EXTRA_BATCH_COMPLETED, completed);
+        broadcast.putExtra(EXTRA_BATCH_FAILED, failed);
+        broadcast.putExtra(EXTRA_BATCH_TOTAL, total);
+        LocalBroadcastManager.getInstance(this).sendBroadcast(broadcast);
+    }
+
     /**
      * Broadcasts error to MainActivity.
      */
@@ -313,9 +517,12 @@ public class ContentGenerationService extends Service {
     @Override
     public void onDestroy() {
         Log.i(TAG, "Service destroyed");
+        cancelAllTasks();
         if (executor != null) {
             executor.shutdown();
         }
+        // The process may go away with the service; persist usage now
+        prefsManager.flushUsage();
         super.onDestroy();
     }
 }
@@ -5,18 +5,27 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import okhttp3.Call;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.BufferedSource;
 import java.io.IOException;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.CancellationException;
+
+import com.najmi.oreamnos.curator.CancellationToken;
+import com.najmi.oreamnos.curator.GenerationResult;
+import com.najmi.oreamnos.curator.PartialTextThrottle;
+import com.najmi.oreamnos.curator.ProviderRateLimiter;
+import com.najmi.oreamnos.curator.StreamCallback;
+import com.najmi.oreamnos.exceptions.ApiException;
 import com.najmi.oreamnos.exceptions.RateLimitException;
+import com.najmi.oreamnos.network.HttpClientProvider;
 
 /**
  * Handles communication with the Google Gemini API for content curation.
@@ -39,11 +48,10 @@ public class GeminiService {
     private final String apiKey;
     private final String endpoint;
     private final String tone; // "formal" or "casual"
-
-    // Last request usage metadata
-    private int lastPromptTokens = 0;
-    private int lastCandidateTokens = 0;
-    private int lastTotalTokens = 0;
+    private final String model; // Model ID parsed from the endpoint, for results
+    private final boolean failFastOnRateLimit; // Throw 429s immediately instead of sleeping
+    private final ProviderRateLimiter rateLimiter;
+    private final long maxQueueMs; // Longest wait for a rate limiter slot
 
     /**
      * Creates a new GeminiService instance.
@@ -53,17 +61,32 @@ public class GeminiService {
      * @param tone     Post tone ("formal" or "casual")
      */
     public GeminiService(String apiKey, String endpoint, String tone) {
+        this(apiKey, endpoint, tone, false);
+    }
+
+    /**
+     * Creates a new GeminiService instance.
+     *
+     * @param apiKey              Gemini API key
+     * @param endpoint            API endpoint URL
+     * @param tone                Post tone ("formal" or "casual")
+     * @param failFastOnRateLimit Throw a 429 right away instead of waiting out
+     *                            the quota, so a failover chain can move on
+     */
+    public GeminiService(String apiKey, String endpoint, String tone, boolean failFastOnRateLimit) {
         this.apiKey = apiKey;
         this.endpoint = endpoint;
         this.tone = tone != null ? tone : "formal";
+        this.model = modelFromEndpoint(endpoint);
+        this.failFastOnRateLimit = failFastOnRateLimit;
+        this.rateLimiter = ProviderRateLimiter.forProvider("gemini");
+        this.maxQueueMs = failFastOnRateLimit
+                ? ProviderRateLimiter.MAX_QUEUE_MS_IN_CHAIN
+                : ProviderRateLimiter.MAX_QUEUE_MS;
         this.gson = new Gson();
 
-        // Configure OkHttp client with timeouts
-        this.client = new OkHttpClient.Builder()
-                .connectTimeout(10, TimeUnit.SECONDS)
-                .readTimeout(20, TimeUnit.SECONDS)
-                .writeTimeout(10, TimeUnit.SECONDS)
-                .build();
+        // Shared, pooled client (Gemini timeout profile)
+        this.client = HttpClientProvider.getClient(HttpClientProvider.HostProfile.GEMINI);
     }
 
     /**
@@ -72,10 +95,22 @@ public class GeminiService {
      * 
      * @param inputText     The text to curate
      * @param includeSource Whether to include source citation
-     * @return The curated post
+     * @return The curated post with its token usage
      * @throws Exception if API call fails after retries
      */
-    public String curatePost(String inputText, boolean includeSource, boolean keepStructure) throws Exception {
+    public GenerationResult curatePost(String inputText, boolean includeSource, boolean keepStructure)
+            throws Exception {
+        return curatePost(inputText, includeSource, keepStructure, new CancellationToken());
+    }
+
+    /**
+     * Same as {@link #curatePost(String, boolean, boolean)}, aborting the
+     * in-flight call and any retry sleep when the token is cancelled.
+     *
+     * @throws java.util.concurrent.CancellationException if cancelled
+     */
+    public GenerationResult curatePost(String inputText, boolean includeSource, boolean keepStructure,
+            CancellationToken token) throws Exception {
         long startTime = System.currentTimeMillis();
         String requestId = UUID.randomUUID().toString().substring(0, 8);
 
@@ -100,26 +135,22 @@ public class GeminiService {
                 includeSource, keepStructure);
 
         // Build request JSON
-        JsonObject requestJson = new JsonObject();
-        JsonArray contents = new JsonArray();
-        JsonObject content = new JsonObject();
-        JsonArray parts = new JsonArray();
-        JsonObject part = new JsonObject();
-        part.addProperty("text", prompt);
-        parts.add(part);
-        content.add("parts", parts);
-        contents.add(content);
-        requestJson.add("contents", contents);
-
-        String requestBodyString = gson.toJson(requestJson);
+        String requestBodyString = buildRequestJson(prompt);
         Log.d(TAG, "[" + requestId + "] Request body length: " + requestBodyString.length());
 
         // Retry loop
         String rawResult = null;
         Exception lastException = null;
         Random rnd = new Random();
+        int attempts = 0;
+        int estimatedTokens = ProviderRateLimiter.estimateTokens(prompt);
 
         for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
+            token.throwIfCancelled();
+            attempts = attempt;
+            // Wait for quota client-side instead of sending a request that would 429
+            rateLimiter.acquire(estimatedTokens, maxQueueMs, token);
+            Call call = null;
             try {
                 Log.i(TAG, "[" + requestId + "] Gemini attempt " + attempt + "/" + MAX_RETRIES);
 
@@ -133,7 +164,8 @@ public class GeminiService {
                         .build();
 
                 long connectionStart = System.currentTimeMillis();
-                Response response = client.newCall(request).execute();
+                call = token.register(client.newCall(request));
+                Response response = call.execute();
                 long connectionEnd = System.currentTimeMillis();
 
                 int code = response.code();
@@ -144,31 +176,10 @@ public class GeminiService {
                     String errorBody = response.body() != null ? response.body().string() : "";
                     response.close();
 
-                    // Check if transient error (retry)
-                    if (code == 503 || code == 429 || (code >= 500 && code < 600)) {
-                        String errorType = code == 429 ? "Rate limit (quota)" : "Server error";
-                        Log.w(TAG, "[" + requestId + "] " + errorType + " " + code +
-                                " - will retry (attempt " + attempt + ")");
-
-                        // For 429, parse retry delay from API response
-                        long apiSuggestedDelay = 0;
-                        if (code == 429) {
-                            apiSuggestedDelay = parseRetryDelay(errorBody, requestId);
-                            if (apiSuggestedDelay > 0) {
-                                Log.i(TAG, "[" + requestId + "] API requests wait of " + apiSuggestedDelay + "ms");
-                            } else {
-                                Log.w(TAG, "[" + requestId + "] Could not parse retry delay, using default backoff");
-                            }
-                        }
-
-                        lastException = new RateLimitException(
-                                "Gemini " + errorType.toLowerCase() + ": " + code + ". " + errorBody,
-                                apiSuggestedDelay,
-                                "gemini");
-                    } else {
-                        // Permanent error
-                        Log.e(TAG, "[" + requestId + "] Permanent error: " + code + " - " + errorBody);
-                        throw new Exception("Gemini API error: " + code + ". " + errorBody);
+                    // Transient errors come back as RateLimitException, permanent ones throw
+                    lastException = classifyErrorResponse(code, errorBody, attempt, requestId);
+                    if (failFastOnRateLimit && code == 429) {
+                        throw lastException;
                     }
                 } else {
                     // Success
@@ -179,6 +190,10 @@ public class GeminiService {
                     break;
                 }
             } catch (IOException ioe) {
+                if (token.isCancelled()) {
+                    Log.i(TAG, "[" + requestId + "] Request cancelled on attempt " + attempt);
+                    throw new CancellationException("Request cancelled");
+                }
                 Log.w(TAG, "[" + requestId + "] Network error on attempt " + attempt + ": " + ioe.getMessage());
                 lastException = ioe;
             } catch (Exception e) {
@@ -188,35 +203,17 @@ public class GeminiService {
                 if (!(e instanceof IOException)) {
                     throw e;
                 }
+            } finally {
+                if (call != null) {
+                    token.unregister(call);
+                }
             }
 
             // Exponential backoff if not last attempt
             if (attempt < MAX_RETRIES) {
-                long delay;
-
-                // If we have API-suggested delay from rate limit, use it
-                if (lastException instanceof RateLimitException) {
-                    RateLimitException rle = (RateLimitException) lastException;
-                    long apiDelay = rle.getRetryDelayMs();
-
-                    if (apiDelay > 0) {
-                        // Respect API's requested delay
-                        delay = Math.min(MAX_DELAY_MS, apiDelay);
-                        Log.i(TAG, "[" + requestId + "] Using API-suggested delay: " + delay + "ms");
-                    } else {
-                        // Fallback for rate limits
-                        delay = RATE_LIMIT_FALLBACK_DELAY_MS;
-                        Log.i(TAG, "[" + requestId + "] Using fallback delay for rate limit: " + delay + "ms");
-                    }
-                } else {
-                    // Standard exponential backoff for other errors
-                    delay = Math.min(MAX_DELAY_MS, BASE_DELAY_MS * (1L << (attempt - 1)));
-                    long jitter = (long) (rnd.nextDouble() * 500L);
-                    delay += jitter;
-                }
-
+                long delay = computeRetryDelay(lastException, attempt, rnd, requestId);
                 Log.i(TAG, "[" + requestId + "] Sleeping " + delay + "ms before retry");
-                Thread.sleep(delay);
+                token.sleep(delay);
             }
         }
 
@@ -249,36 +246,344 @@ public class GeminiService {
         }
 
         // Parse response
+        JsonObject root;
         String curatedText;
         try {
-            JsonObject root = gson.fromJson(rawResult, JsonObject.class);
+            root = gson.fromJson(rawResult, JsonObject.class);
             curatedText = extractTextFromJson(root);
+        } catch (Exception e) {
+            Log.e(TAG, "[" + requestId + "] Error parsing response", e);
+            throw new ApiException("Unreadable Gemini response: " + e.getMessage(), 0);
+        }
+        if (curatedText == null || curatedText.trim().isEmpty()) {
+            Log.w(TAG, "[" + requestId + "] Extracted text is empty");
+            throw new ApiException("Gemini returned no text", 0);
+        }
 
-            if (curatedText == null || curatedText.trim().isEmpty()) {
-                Log.w(TAG, "[" + requestId + "] Extracted text is empty");
-                curatedText = "Gagal mendapatkan hasil dari Gemini.";
-            } else {
-                curatedText = cleanUpResponse(curatedText);
+        curatedText = cleanUpResponse(curatedText);
+
+        // Post-processing: Forcefully remove source if not requested
+        if (!includeSource) {
+            curatedText = removeSourceCitation(curatedText);
+        }
+
+        // Extract usage metadata
+        GenerationResult.Builder result = newResultBuilder().attempts(attempts);
+        extractUsageMetadata(root, result);
+
+        long totalTime = System.currentTimeMillis() - startTime;
+        Log.i(TAG, "[" + requestId + "] Success! Output: " + curatedText.length() +
+                " chars (total time: " + totalTime + "ms)");
+        Log.i(TAG, "=== GEMINI API CALL END [" + requestId + "] ===");
 
-                // Post-processing: Forcefully remove source if not requested
-                if (!includeSource) {
-                    curatedText = removeSourceCitation(curatedText);
+        GenerationResult built = result.text(curatedText).latencyMs(totalTime).build();
+        rateLimiter.recordSuccess(estimatedTokens, built.getTotalTokens());
+        return built;
+    }
+
+    /**
+     * Streaming variant of {@link #curatePost(String, boolean, boolean)}.
+     * Uses Gemini's streamGenerateContent endpoint with server-sent events and
+     * pushes the accumulated raw text to the callback as chunks arrive.
+     * Retries only happen before the first chunk is delivered; a stream that
+     * breaks mid-way fails the call.
+     *
+     * @param inputText     The text to curate
+     * @param includeSource Whether to include source citation
+     * @param keepStructure Whether to preserve original formatting/structure
+     * @param callback      Receives the accumulated text, at most every 50 ms
+     * @param token         Cancels the in-flight stream and any retry sleep
+     * @return The final cleaned post with its token usage
+     * @throws Exception if API call fails after retries
+     */
+    public GenerationResult curatePostStreaming(String inputText, boolean includeSource, boolean keepStructure,
+            StreamCallback callback, CancellationToken token) throws Exception {
+        String streamEndpoint = toStreamEndpoint(endpoint);
+        if (streamEndpoint == null) {
+            // Custom endpoint without :generateContent - fall back to a single response
+            Log.w(TAG, "Endpoint does not support streaming, using blocking call: " + endpoint);
+            GenerationResult result = curatePost(inputText, includeSource, keepStructure, token);
+            if (callback != null) {
+                callback.onPartialText(result.getText());
+            }
+            return result;
+        }
+
+        long startTime = System.currentTimeMillis();
+        String requestId = UUID.randomUUID().toString().substring(0, 8);
+
+        Log.i(TAG, "=== GEMINI STREAM START [" + requestId + "] ===");
+        Log.i(TAG, "[" + requestId + "] Input text length: " + (inputText != null ? inputText.length() : 0));
+
+        // Validate inputs
+        if (apiKey == null || apiKey.trim().isEmpty()) {
+            throw new Exception("Invalid or missing Gemini API key");
+        }
+        if (inputText == null || inputText.trim().isEmpty()) {
+            throw new Exception("Input text is required");
+        }
+
+        String prompt = new com.najmi.oreamnos.prompts.PromptManager().buildInitialPrompt(tone, inputText,
+                includeSource, keepStructure);
+        String requestBodyString = buildRequestJson(prompt);
+
+        Exception lastException = null;
+        Random rnd = new Random();
+        int estimatedTokens = ProviderRateLimiter.estimateTokens(prompt);
+
+        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
+            token.throwIfCancelled();
+            rateLimiter.acquire(estimatedTokens, maxQueueMs, token);
+            StringBuilder accumulated = new StringBuilder();
+            GenerationResult.Builder result = newResultBuilder().attempts(attempt);
+            Call call = null;
+            try {
+                Log.i(TAG, "[" + requestId + "] Gemini stream attempt " + attempt + "/" + MAX_RETRIES);
+
+                Request request = new Request.Builder()
+                        .url(streamEndpoint + "?alt=sse&key=" + apiKey)
+                        .post(RequestBody.create(requestBodyString, JSON))
+                        .build();
+
+                call = token.register(client.newCall(request));
+                try (Response response = call.execute()) {
+                    int code = response.code();
+                    Log.i(TAG, "[" + requestId + "] Stream response code: " + code + " on attempt " + attempt);
+
+                    if (code >= 400) {
+                        String errorBody = response.body() != null ? response.body().string() : "";
+                        lastException = classifyErrorResponse(code, errorBody, attempt, requestId);
+                        if (failFastOnRateLimit && code == 429) {
+                            throw lastException;
+                        }
+                    } else {
+                        readGeminiStream(response, accumulated, result, callback, token, requestId);
+
+                        String curatedText = accumulated.toString();
+                        if (curatedText.trim().isEmpty()) {
+                            // Nothing has been shown yet, so another attempt is safe
+                            Log.w(TAG, "[" + requestId + "] Streamed text is empty on attempt " + attempt);
+                            lastException = new ApiException("Gemini returned no text", 0);
+                        } else {
+                            curatedText = cleanUpResponse(curatedText);
+                            if (!includeSource) {
+                                curatedText = removeSourceCitation(curatedText);
+                            }
+
+                            long totalTime = System.currentTimeMillis() - startTime;
+                            Log.i(TAG, "[" + requestId + "] Stream complete! Output: " + curatedText.length() +
+                                    " chars (total time: " + totalTime + "ms)");
+                            Log.i(TAG, "=== GEMINI STREAM END [" + requestId + "] ===");
+                            GenerationResult built = result.text(curatedText).latencyMs(totalTime).build();
+                            rateLimiter.recordSuccess(estimatedTokens, built.getTotalTokens());
+                            return built;
+                        }
+                    }
+                }
+            } catch (IOException ioe) {
+                if (token.isCancelled()) {
+                    Log.i(TAG, "[" + requestId + "] Stream cancelled after " + accumulated.length() + " chars");
+                    throw new CancellationException("Request cancelled");
+                }
+                if (accumulated.length() > 0) {
+                    // Partial text was already shown; don't silently restart the stream
+                    throw new Exception("Network error: stream interrupted (" + ioe.getMessage() + ")", ioe);
+                }
+                Log.w(TAG, "[" + requestId + "] Network error on attempt " + attempt + ": " + ioe.getMessage());
+                lastException = ioe;
+            } finally {
+                if (call != null) {
+                    token.unregister(call);
                 }
             }
 
-            // Extract usage metadata
-            extractUsageMetadata(root);
+            if (attempt < MAX_RETRIES) {
+                long delay = computeRetryDelay(lastException, attempt, rnd, requestId);
+                Log.i(TAG, "[" + requestId + "] Sleeping " + delay + "ms before retry");
+                token.sleep(delay);
+            }
+        }
 
-            long totalTime = System.currentTimeMillis() - startTime;
-            Log.i(TAG, "[" + requestId + "] Success! Output: " + curatedText.length() +
-                    " chars (total time: " + totalTime + "ms)");
-            Log.i(TAG, "=== GEMINI API CALL END [" + requestId + "] ===");
+        if (lastException instanceof RateLimitException) {
+            throw lastException;
+        }
+        throw new Exception("Gemini API failed after retries: "
+                + (lastException != null ? lastException.getMessage() : "no result"), lastException);
+    }
 
-            return curatedText;
+    /**
+     * Reads a Gemini SSE stream ("data: {GenerateContentResponse}" lines),
+     * appending each chunk's text and reporting progress to the callback.
+     */
+    private void readGeminiStream(Response response, StringBuilder accumulated, GenerationResult.Builder result,
+            StreamCallback callback, CancellationToken token, String requestId) throws IOException {
+        if (response.body() == null) {
+            throw new IOException("Response body is empty");
+        }
+
+        BufferedSource source = response.body().source();
+        PartialTextThrottle partials = new PartialTextThrottle(accumulated, callback, token);
+        boolean firstChunk = true;
+        long streamStart = System.currentTimeMillis();
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (!line.startsWith("data:")) {
+                continue; // blank separators, comments, event names
+            }
+            String data = line.substring(5).trim();
+            if (data.isEmpty()) {
+                continue;
+            }
+
+            JsonObject chunk;
+            try {
+                chunk = gson.fromJson(data, JsonObject.class);
+            } catch (Exception e) {
+                Log.w(TAG, "[" + requestId + "] Skipping malformed stream chunk: " + e.getMessage());
+                continue;
+            }
+
+            String delta = extractChunkText(chunk);
+            if (!delta.isEmpty()) {
+                if (firstChunk) {
+                    firstChunk = false;
+                    Log.i(TAG, "[" + requestId + "] First token after "
+                            + (System.currentTimeMillis() - streamStart) + "ms");
+                }
+                partials.append(delta);
+            }
+
+            // The final chunk carries the complete usage counts
+            extractUsageMetadata(chunk, result);
+        }
+        partials.flush();
+    }
+
+    /**
+     * Extracts the text delta from a stream chunk. Unlike extractTextFromJson,
+     * whitespace-only parts are kept since they can carry paragraph breaks.
+     */
+    private String extractChunkText(JsonObject chunk) {
+        StringBuilder text = new StringBuilder();
+        try {
+            JsonArray candidates = chunk.has("candidates") ? chunk.getAsJsonArray("candidates") : null;
+            if (candidates == null || candidates.size() == 0) {
+                return "";
+            }
+            JsonObject firstCandidate = candidates.get(0).getAsJsonObject();
+            if (!firstCandidate.has("content")) {
+                return "";
+            }
+            JsonObject content = firstCandidate.getAsJsonObject("content");
+            if (!content.has("parts")) {
+                return "";
+            }
+            for (JsonElement part : content.getAsJsonArray("parts")) {
+                JsonObject partObj = part.getAsJsonObject();
+                if (partObj.has("text")) {
+                    text.append(partObj.get("text").getAsString());
+                }
+            }
         } catch (Exception e) {
-            Log.e(TAG, "[" + requestId + "] Error parsing response", e);
-            return "Gagal mendapatkan hasil dari Gemini.";
+            Log.w(TAG, "Error extracting chunk text: " + e.getMessage());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Converts a ":generateContent" endpoint into its ":streamGenerateContent"
+     * counterpart, or returns null if the endpoint has an unexpected shape.
+     */
+    private static String toStreamEndpoint(String endpoint) {
+        if (endpoint == null || !endpoint.contains(":generateContent")) {
+            return null;
+        }
+        return endpoint.replace(":generateContent", ":streamGenerateContent");
+    }
+
+    /**
+     * Builds the generateContent request JSON for a single-turn prompt.
+     */
+    private String buildRequestJson(String prompt) {
+        JsonObject requestJson = new JsonObject();
+        JsonArray contents = new JsonArray();
+        JsonObject content = new JsonObject();
+        JsonArray parts = new JsonArray();
+        JsonObject part = new JsonObject();
+        part.addProperty("text", prompt);
+        parts.add(part);
+        content.add("parts", parts);
+        contents.add(content);
+        requestJson.add("contents", contents);
+        return gson.toJson(requestJson);
+    }
+
+    /**
+     * Classifies an HTTP error response. Transient errors (429, 5xx) are
+     * returned as a RateLimitException so the caller can retry; anything else
+     * is thrown as a permanent failure.
+     */
+    private RateLimitException classifyErrorResponse(int code, String errorBody, int attempt, String requestId)
+            throws Exception {
+        // Check if transient error (retry)
+        if (code == 503 || code == 429 || (code >= 500 && code < 600)) {
+            String errorType = code == 429 ? "Rate limit (quota)" : "Server error";
+            Log.w(TAG, "[" + requestId + "] " + errorType + " " + code +
+                    " - will retry (attempt " + attempt + ")");
+
+            // For 429, parse retry delay from API response
+            long apiSuggestedDelay = 0;
+            if (code == 429) {
+                apiSuggestedDelay = parseRetryDelay(errorBody, requestId);
+                if (apiSuggestedDelay > 0) {
+                    Log.i(TAG, "[" + requestId + "] API requests wait of " + apiSuggestedDelay + "ms");
+                } else {
+                    Log.w(TAG, "[" + requestId + "] Could not parse retry delay, using default backoff");
+                }
+                // Remember the quota hint for later requests, not just this retry loop
+                rateLimiter.recordRateLimit(apiSuggestedDelay);
+            }
+
+            return new RateLimitException(
+                    "Gemini " + errorType.toLowerCase() + ": " + code + ". " + errorBody,
+                    apiSuggestedDelay,
+                    "gemini");
         }
+
+        // Permanent error
+        Log.e(TAG, "[" + requestId + "] Permanent error: " + code + " - " + errorBody);
+        throw new ApiException("Gemini API error: " + code + ". " + errorBody, code);
+    }
+
+    /**
+     * Computes the delay before the next retry attempt.
+     * Honors API-suggested delays for rate limits, otherwise exponential
+     * backoff with jitter.
+     */
+    private long computeRetryDelay(Exception lastException, int attempt, Random rnd, String requestId) {
+        long delay;
+
+        // If we have API-suggested delay from rate limit, use it
+        if (lastException instanceof RateLimitException) {
+            RateLimitException rle = (RateLimitException) lastException;
+            long apiDelay = rle.getRetryDelayMs();
+
+            if (apiDelay > 0) {
+                // Respect API's requested delay
+                delay = Math.min(MAX_DELAY_MS, apiDelay);
+                Log.i(TAG, "[" + requestId + "] Using API-suggested delay: " + delay + "ms");
+            } else {
+                // Fallback for rate limits
+                delay = RATE_LIMIT_FALLBACK_DELAY_MS;
+                Log.i(TAG, "[" + requestId + "] Using fallback delay for rate limit: " + delay + "ms");
+            }
+        } else {
+            // Standard exponential backoff for other errors
+            delay = Math.min(MAX_DELAY_MS, BASE_DELAY_MS * (1L << (attempt - 1)));
+            long jitter = (long) (rnd.nextDouble() * 500L);
+            delay += jitter;
+        }
+        return delay;
     }
 
     /**
@@ -287,10 +592,22 @@ public class GeminiService {
      * @param originalPost  The post to refine
      * @param refinements   List of refinement options
      * @param includeSource Whether to include source citation
-     * @return The refined post
+     * @return The refined post with its token usage
      * @throws Exception if API call fails
      */
-    public String refinePost(String originalPost, List<String> refinements, boolean includeSource) throws Exception {
+    public GenerationResult refinePost(String originalPost, List<String> refinements, boolean includeSource)
+            throws Exception {
+        return refinePost(originalPost, refinements, includeSource, new CancellationToken());
+    }
+
+    /**
+     * Same as {@link #refinePost(String, List, boolean)}, aborting the
+     * in-flight call when the token is cancelled.
+     *
+     * @throws java.util.concurrent.CancellationException if cancelled
+     */
+    public GenerationResult refinePost(String originalPost, List<String> refinements, boolean includeSource,
+            CancellationToken token) throws Exception {
         long startTime = System.currentTimeMillis();
         String requestId = UUID.randomUUID().toString().substring(0, 8);
 
@@ -302,21 +619,14 @@ public class GeminiService {
         String prompt = buildRefinementPrompt(originalPost, refinements, includeSource);
 
         // Build request JSON
-        JsonObject requestJson = new JsonObject();
-        JsonArray contents = new JsonArray();
-        JsonObject content = new JsonObject();
-        JsonArray parts = new JsonArray();
-        JsonObject part = new JsonObject();
-        part.addProperty("text", prompt);
-        parts.add(part);
-        content.add("parts", parts);
-        contents.add(content);
-        requestJson.add("contents", contents);
-
-        String requestBodyString = gson.toJson(requestJson);
+        String requestBodyString = buildRequestJson(prompt);
 
         // Make API call (simplified - using only 1 retry for refinement)
         String rawResult = null;
+        token.throwIfCancelled();
+        int estimatedTokens = ProviderRateLimiter.estimateTokens(prompt);
+        rateLimiter.acquire(estimatedTokens, maxQueueMs, token);
+        Call call = null;
         try {
             String urlWithKey = endpoint + "?key=" + apiKey;
             RequestBody body = RequestBody.create(requestBodyString, JSON);
@@ -326,46 +636,64 @@ public class GeminiService {
                     .addHeader("Content-Type", "application/json")
                     .build();
 
-            Response response = client.newCall(request).execute();
+            call = token.register(client.newCall(request));
+            Response response = call.execute();
             int code = response.code();
 
             if (code >= 400) {
                 String errorBody = response.body() != null ? response.body().string() : "";
                 response.close();
-                throw new Exception("Gemini API error: " + code + ". " + errorBody);
+                if (code == 429) {
+                    rateLimiter.recordRateLimit(parseRetryDelay(errorBody, requestId));
+                }
+                throw new ApiException("Gemini API error: " + code + ". " + errorBody, code);
             }
 
             rawResult = response.body().string();
             response.close();
         } catch (IOException ioe) {
+            if (token.isCancelled()) {
+                throw new CancellationException("Request cancelled");
+            }
             throw new Exception("Network error: " + ioe.getMessage(), ioe);
+        } finally {
+            if (call != null) {
+                token.unregister(call);
+            }
         }
 
         // Parse response
+        JsonObject root;
+        String refinedText;
         try {
-            JsonObject root = gson.fromJson(rawResult, JsonObject.class);
-            String refinedText = extractTextFromJson(root);
+            root = gson.fromJson(rawResult, JsonObject.class);
+            refinedText = extractTextFromJson(root);
+        } catch (Exception e) {
+            Log.e(TAG, "[" + requestId + "] Error parsing refinement response", e);
+            throw new ApiException("Unreadable Gemini response: " + e.getMessage(), 0);
+        }
+        if (refinedText == null || refinedText.trim().isEmpty()) {
+            Log.w(TAG, "[" + requestId + "] Refined text is empty");
+            throw new ApiException("Gemini returned no text", 0);
+        }
 
-            if (refinedText == null || refinedText.trim().isEmpty()) {
-                refinedText = "Gagal mendapatkan hasil dari Gemini.";
-            } else {
-                refinedText = cleanUpResponse(refinedText);
+        refinedText = cleanUpResponse(refinedText);
 
-                // Post-processing: Forcefully remove source if not requested
-                if (!includeSource) {
-                    refinedText = removeSourceCitation(refinedText);
-                }
-            }
+        // Post-processing: Forcefully remove source if not requested
+        if (!includeSource) {
+            refinedText = removeSourceCitation(refinedText);
+        }
 
-            long totalTime = System.currentTimeMillis() - startTime;
-            Log.i(TAG, "[" + requestId + "] Refinement success! (time: " + totalTime + "ms)");
-            Log.i(TAG, "=== GEMINI REFINEMENT END [" + requestId + "] ===");
+        GenerationResult.Builder result = newResultBuilder();
+        extractUsageMetadata(root, result);
 
-            return refinedText;
-        } catch (Exception e) {
-            Log.e(TAG, "[" + requestId + "] Error parsing refinement response", e);
-            return "Gagal mendapatkan hasil dari Gemini.";
-        }
+        long totalTime = System.currentTimeMillis() - startTime;
+        Log.i(TAG, "[" + requestId + "] Refinement success! (time: " + totalTime + "ms)");
+        Log.i(TAG, "=== GEMINI REFINEMENT END [" + requestId + "] ===");
+
+        GenerationResult built = result.text(refinedText).latencyMs(totalTime).build();
+        rateLimiter.recordSuccess(estimatedTokens, built.getTotalTokens());
+        return built;
     }
 
     /**
@@ -814,26 +1142,25 @@ public class GeminiService {
     // ==================== USAGE METADATA ====================
 
     /**
-     * Extracts usage metadata from the API response.
+     * Extracts usage metadata from the API response into the result builder.
      */
-    private void extractUsageMetadata(JsonObject root) {
+    private void extractUsageMetadata(JsonObject root, GenerationResult.Builder result) {
         try {
             if (root.has("usageMetadata")) {
                 JsonObject usage = root.getAsJsonObject("usageMetadata");
-
-                if (usage.has("promptTokenCount")) {
-                    lastPromptTokens = usage.get("promptTokenCount").getAsInt();
-                }
-                if (usage.has("candidatesTokenCount")) {
-                    lastCandidateTokens = usage.get("candidatesTokenCount").getAsInt();
-                }
-                if (usage.has("totalTokenCount")) {
-                    lastTotalTokens = usage.get("totalTokenCount").getAsInt();
-                }
-
-                Log.i(TAG, "Token usage - Prompt: " + lastPromptTokens +
-                        ", Response: " + lastCandidateTokens +
-                        ", Total: " + lastTotalTokens);
+                int promptTokens = usage.has("promptTokenCount") ? usage.get("promptTokenCount").getAsInt() : 0;
+                int candidateTokens = usage.has("candidatesTokenCount")
+                        ? usage.get("candidatesTokenCount").getAsInt()
+                        : 0;
+                int totalTokens = usage.has("totalTokenCount") ? usage.get("totalTokenCount").getAsInt() : 0;
+
+                result.promptTokens(promptTokens)
+                        .candidateTokens(candidateTokens)
+                        .totalTokens(totalTokens);
+
+                Log.i(TAG, "Token usage - Prompt: " + promptTokens +
+                        ", Response: " + candidateTokens +
+                        ", Total: " + totalTokens);
             }
         } catch (Exception e) {
             Log.w(TAG, "Error extracting usage metadata: " + e.getMessage());
@@ -841,24 +1168,29 @@ public class GeminiService {
     }
 
     /**
-     * Gets the last prompt token count.
+     * Starts a result builder tagged with this service's provider and model.
      */
-    public int getLastPromptTokens() {
-        return lastPromptTokens;
+    private GenerationResult.Builder newResultBuilder() {
+        return new GenerationResult.Builder()
+                .provider("gemini")
+                .model(model);
     }
 
     /**
-     * Gets the last candidate (response) token count.
+     * Parses the model ID out of an endpoint like
+     * ".../models/gemini-2.5-flash-lite:generateContent".
      */
-    public int getLastCandidateTokens() {
-        return lastCandidateTokens;
-    }
-
-    /**
-     * Gets the last total token count.
-     */
-    public int getLastTotalTokens() {
-        return lastTotalTokens;
+    private static String modelFromEndpoint(String endpoint) {
+        if (endpoint == null) {
+            return "";
+        }
+        int start = endpoint.indexOf("/models/");
+        if (start < 0) {
+            return "";
+        }
+        start += "/models/".length();
+        int end = endpoint.indexOf(':', start);
+        return end > start ? endpoint.substring(start, end) : endpoint.substring(start);
     }
 
 }
@@ -15,6 +15,9 @@ import androidx.annotation.RequiresApi;
 import com.najmi.oreamnos.R;
 import com.najmi.oreamnos.utils.PreferencesManager;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Quick Settings Tile for fast content generation from clipboard.
  * User can add this tile to their Quick Settings panel.
@@ -58,8 +61,13 @@ public class GenerateTileService extends TileService {
             tile.updateTile();
         }
 
-        // Start generation service
-        startGeneration(clipboardText);
+        // Start generation service; several copied links make a batch
+        List<String> urls = WebContentExtractor.splitUrls(clipboardText);
+        if (urls.isEmpty()) {
+            startGeneration(clipboardText);
+        } else {
+            startBatch(urls);
+        }
 
         // Show toast feedback
         showToast(getString(R.string.tile_generating));
@@ -72,7 +80,7 @@ public class GenerateTileService extends TileService {
      * Starts the content generation service with clipboard URL.
      */
     private void startGeneration(String url) {
-        PreferencesManager prefs = new PreferencesManager(this);
+        PreferencesManager prefs = PreferencesManager.getInstance(this);
 
         Intent serviceIntent = new Intent(this, ContentGenerationService.class);
         serviceIntent.setAction(ContentGenerationService.ACTION_GENERATE);
@@ -89,6 +97,26 @@ public class GenerateTileService extends TileService {
         prefs.logInfo("Tile", "Generation started from Quick Settings tile");
     }
 
+    /**
+     * Starts batch generation for several clipboard URLs.
+     */
+    private void startBatch(List<String> urls) {
+        PreferencesManager prefs = PreferencesManager.getInstance(this);
+
+        Intent serviceIntent = new Intent(this, ContentGenerationService.class);
+        serviceIntent.setAction(ContentGenerationService.ACTION_GENERATE_BATCH);
+        serviceIntent.putStringArrayListExtra(ContentGenerationService.EXTRA_URLS, new ArrayList<>(urls));
+        serviceIntent.putExtra(ContentGenerationService.EXTRA_INCLUDE_SOURCE, prefs.isSourceEnabled());
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            startForegroundService(serviceIntent);
+        } else {
+            startService(serviceIntent);
+        }
+
+        prefs.logInfo("Tile", "Batch of " + urls.size() + " links started from Quick Settings tile");
+    }
+
     /**
      * Updates tile state to reflect availability.
      */
@@ -1,35 +1,163 @@
 package com.najmi.oreamnos.services;
 
+import android.content.Context;
 import android.util.Log;
+import com.najmi.oreamnos.curator.CancellationToken;
+import com.najmi.oreamnos.data.ArticleCache;
+import com.najmi.oreamnos.extraction.ClassicExtractor;
+import com.najmi.oreamnos.extraction.ReadabilityExtractor;
+import com.najmi.oreamnos.extraction.SiteRule;
+import com.najmi.oreamnos.extraction.SiteRules;
+import com.najmi.oreamnos.model.ExtractedArticle;
+import com.najmi.oreamnos.network.BoundedInputStream;
+import com.najmi.oreamnos.network.HttpClientProvider;
+import com.najmi.oreamnos.utils.PreferencesManager;
+import okhttp3.Call;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
-import org.jsoup.Jsoup;
+import okhttp3.ResponseBody;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Extracts main content from web URLs.
  * Replaces the CrawlerServlet functionality from the original web app.
  * Uses Jsoup for HTML parsing and OkHttp for fetching content.
+ *
+ * Each fetch parses the page once into an ExtractedArticle holding both the
+ * article text and the preview metadata. With a Context the result goes
+ * into the ArticleCache, so the preview card and a later generation for the
+ * same URL share one download. Entries younger than FRESH_MS are served as is; older ones are
+ * revalidated with If-None-Match / If-Modified-Since. Concurrent requests
+ * for the same URL, e.g. the preview and the service, join a single fetch.
+ *
+ * Pages are parsed straight from the response stream, never held as one
+ * String. Reading stops at the byte limit, or as soon as the first
+ * <article> element is complete and long enough to be the story, so
+ * comments, related links and trailing scripts are never downloaded.
+ *
+ * Sites with a SiteRule are read with it. Other pages go through
+ * ClassicExtractor's selector cascade, or, when chosen in Settings, through
+ * ReadabilityExtractor's content scoring first.
  */
 public class WebContentExtractor {
 
     private static final String TAG = "WebContentExtractor";
+    private static final String USER_AGENT =
+            "Mozilla/5.0 (Linux; Android 10) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.120 Mobile Safari/537.36";
+
+    // Cached pages this recent are used without revalidating
+    private static final long FRESH_MS = 10 * 60000L;
+
+    // Leading bytes searched for a BOM or <meta charset>
+    private static final int CHARSET_SNIFF_BYTES = 4096;
+    private static final Pattern META_CHARSET = Pattern
+            .compile("(?i)<meta[^>]+charset\\s*=\\s*[\"']?\\s*([\\w.:-]+)");
+    // An <article> with less text than this is likely a teaser, so parsing goes on
+    private static final int MIN_ARTICLE_CHARS = 200;
+    private static final Evaluator ARTICLE = QueryParser.parse("article");
+
+    // Frequent function words for guessing the language of undeclared pages
+    private static final Set<String> ENGLISH_WORDS = new HashSet<>(Arrays.asList(
+            "the", "and", "of", "to", "in", "is", "that", "for", "with", "was", "on", "he", "his"));
+    private static final Set<String> MALAY_WORDS = new HashSet<>(Arrays.asList(
+            "yang", "dan", "di", "untuk", "dengan", "ini", "itu", "tidak", "akan", "dalam", "ke", "pada", "telah"));
+
+    /**
+     * A boilerplate phrase: its start words, then anything up to the end word.
+     */
+    private static final class Boilerplate {
+        final String[] startWords;
+        final boolean startWholeWord;
+        final String endWord;
+        final boolean endWholeWord;
+
+        Boilerplate(String start, boolean startWholeWord, String endWord, boolean endWholeWord) {
+            this.startWords = start.split(" ");
+            this.startWholeWord = startWholeWord;
+            this.endWord = endWord;
+            this.endWholeWord = endWholeWord;
+        }
+    }
+
+    // Phrases stripped by cleanContent, e.g. "Click here to read more"
+    private static final Boilerplate[] BOILERPLATE = {
+            new Boilerplate("click here", true, "more", true),
+            new Boilerplate("share this", true, "facebook", true),
+            new Boilerplate("subscribe", false, "newsletter", false),
+    };
+    // First letters of the phrases, so most words are rejected with one lookup
+    private static final boolean[] BOILERPLATE_FIRST = new boolean[128];
+
+    static {
+        for (Boilerplate phrase : BOILERPLATE) {
+            char first = phrase.startWords[0].charAt(0);
+            BOILERPLATE_FIRST[Character.toLowerCase(first)] = true;
+        }
+    }
+
+    // How often a caller joined to another's fetch checks its own token
+    private static final long JOIN_POLL_MS = 200;
+
+    // Fetches in progress, keyed by canonical URL
+    private static final ConcurrentHashMap<String, FutureTask<ArticleCache.Entry>> inFlight =
+            new ConcurrentHashMap<>();
+
     private final OkHttpClient client;
+    private final ArticleCache cache;
+    private final int maxBytes;
+    private final boolean readability;
 
     /**
-     * Creates a new WebContentExtractor instance.
+     * Creates a new WebContentExtractor instance without caching.
      */
     public WebContentExtractor() {
-        this.client = new OkHttpClient.Builder()
-                .connectTimeout(10, TimeUnit.SECONDS)
-                .readTimeout(15, TimeUnit.SECONDS)
-                .followRedirects(true)
-                .build();
+        this(null);
+    }
+
+    /**
+     * Creates a new WebContentExtractor instance backed by the article cache,
+     * reading at most the configured article byte limit per page.
+     *
+     * @param context Context for the cache and settings, or null to always
+     *                fetch with the default limit
+     */
+    public WebContentExtractor(Context context) {
+        // Shared, pooled client (article timeout profile)
+        this.client = HttpClientProvider.getClient(HttpClientProvider.HostProfile.ARTICLE);
+        this.cache = context != null ? ArticleCache.getInstance(context) : null;
+        this.maxBytes = context != null ? PreferencesManager.getInstance(context).getArticleByteLimit()
+                : PreferencesManager.DEFAULT_ARTICLE_BYTE_LIMIT;
+        this.readability = context != null && PreferencesManager.EXTRACTOR_READABILITY
+                .equals(PreferencesManager.getInstance(context).getExtractionEngine());
     }
 
     /**
@@ -40,42 +168,145 @@ public class WebContentExtractor {
      * @throws Exception if extraction fails
      */
     public String extractContent(String url) throws Exception {
+        ExtractedArticle article = extract(url);
+        if (!article.hasContent()) {
+            throw new Exception("Could not extract meaningful content from URL");
+        }
+        return article.getContent();
+    }
+
+    /**
+     * Extracts the article text and preview metadata of a URL, from one
+     * fetch and parse shared with any other caller asking for the same URL.
+     *
+     * @param url The URL to extract from
+     * @return The article; its content may be empty if the page had no usable text
+     * @throws Exception if the URL is empty or the page cannot be fetched
+     */
+    public ExtractedArticle extract(String url) throws Exception {
+        return extract(url, new CancellationToken());
+    }
+
+    /**
+     * Extracts the article text and preview metadata of a URL, aborting the
+     * download when the token is cancelled.
+     *
+     * @param url   The URL to extract from
+     * @param token Cancels this caller's fetch, or its wait on a shared one
+     * @return The article; its content may be empty if the page had no usable text
+     * @throws Exception if the URL is empty or the page cannot be fetched
+     * @throws CancellationException if cancelled
+     */
+    public ExtractedArticle extract(String url, CancellationToken token) throws Exception {
         if (url == null || url.trim().isEmpty()) {
             throw new Exception("URL cannot be empty");
         }
 
         // Validate URL format
+        url = url.trim();
         if (!url.startsWith("http://") && !url.startsWith("https://")) {
             url = "https://" + url;
         }
 
         Log.i(TAG, "Fetching content from: " + url);
 
-        // Fetch HTML content
-        String html = fetchHtml(url);
+        // Fetch (or reuse) and parse the page
+        ExtractedArticle article = load(url, token).article;
 
-        // Parse and extract main content
-        String content = parseContent(html, url);
+        Log.i(TAG, "Extracted " + article.getCharCount() + " characters (" + article.getWordCount()
+                + " words, language " + article.getLanguage() + ") from URL");
+        return article;
+    }
 
-        if (content == null || content.trim().isEmpty()) {
-            throw new Exception("Could not extract meaningful content from URL");
+    /**
+     * Gets the parsed page for a URL, joining a fetch already in progress
+     * for the same canonical URL. A caller joining another's fetch stops
+     * waiting when its own token is cancelled, and fetches again itself if
+     * the owner cancelled.
+     */
+    private ArticleCache.Entry load(String url, CancellationToken token) throws Exception {
+        String key = ArticleCache.canonicalize(url);
+        while (true) {
+            token.throwIfCancelled();
+            FutureTask<ArticleCache.Entry> task = new FutureTask<>(() -> fetchOrRevalidate(url, key, token));
+            FutureTask<ArticleCache.Entry> running = inFlight.putIfAbsent(key, task);
+            if (running == null) {
+                running = task;
+                try {
+                    task.run();
+                } finally {
+                    inFlight.remove(key, task);
+                }
+            } else {
+                Log.d(TAG, "Joining in-flight fetch of " + key);
+            }
+
+            try {
+                return await(running, token);
+            } catch (CancellationException e) {
+                if (running == task || token.isCancelled()) {
+                    throw e;
+                }
+                // The owner of the joined fetch gave up; this caller didn't
+            }
         }
+    }
 
-        Log.i(TAG, "Extracted " + content.length() + " characters from URL");
-        return content;
+    /**
+     * Waits for a fetch, checking the token every JOIN_POLL_MS.
+     */
+    private static ArticleCache.Entry await(FutureTask<ArticleCache.Entry> running, CancellationToken token)
+            throws Exception {
+        while (true) {
+            token.throwIfCancelled();
+            try {
+                return running.get(JOIN_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Check the token again
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+        }
     }
 
     /**
-     * Fetches raw HTML from the URL.
+     * Serves a fresh cached page, revalidates a stale one, or downloads and
+     * parses the page.
      */
-    private String fetchHtml(String url) throws IOException {
-        Request request = new Request.Builder()
+    private ArticleCache.Entry fetchOrRevalidate(String url, String key, CancellationToken token)
+            throws IOException {
+        ArticleCache.Entry cached = cache != null ? cache.get(key) : null;
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.fetchedAt < FRESH_MS) {
+            Log.d(TAG, "Using cached copy of " + key);
+            return cached;
+        }
+
+        Request.Builder request = new Request.Builder()
                 .url(url)
-                .addHeader("User-Agent",
-                        "Mozilla/5.0 (Linux; Android 10) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.120 Mobile Safari/537.36")
-                .build();
+                .addHeader("User-Agent", USER_AGENT);
+        if (cached != null) {
+            if (cached.etag != null) {
+                request.header("If-None-Match", cached.etag);
+            }
+            if (cached.lastModified != null) {
+                request.header("If-Modified-Since", cached.lastModified);
+            }
+        }
+
+        Call call = token.register(client.newCall(request.build()));
+        try (Response response = call.execute()) {
+            if (response.code() == 304 && cached != null) {
+                Log.d(TAG, "Not modified, reusing cached copy of " + key);
+                ArticleCache.Entry revalidated = cached.revalidatedAt(now);
+                cache.put(revalidated);
+                return revalidated;
+            }
 
-        try (Response response = client.newCall(request).execute()) {
             if (!response.isSuccessful()) {
                 throw new IOException("Failed to fetch URL: HTTP " + response.code());
             }
@@ -84,140 +315,288 @@ public class WebContentExtractor {
                 throw new IOException("Response body is empty");
             }
 
-            return response.body().string();
+            Document doc = parseStreaming(response.body(), url);
+            ExtractedArticle article = parseArticle(doc, url);
+
+            ArticleCache.Entry entry = new ArticleCache.Entry(key, response.header("ETag"),
+                    response.header("Last-Modified"), now, article);
+            if (cache != null) {
+                cache.put(entry);
+            }
+            return entry;
+        } catch (IOException e) {
+            if (token.isCancelled()) {
+                throw new CancellationException("Fetch cancelled");
+            }
+            throw e;
+        } finally {
+            token.unregister(call);
         }
     }
 
     /**
-     * Parses HTML and extracts main content.
-     * Tries multiple strategies to find the article content.
+     * Parses a page from the response stream, stopping at the byte limit or
+     * once the first substantial <article> (or the site rule's container)
+     * has been read.
+     *
+     * The document returned after an early stop holds everything up to the
+     * end of that element, which is all parseArticle() needs from it.
      */
-    private String parseContent(String html, String url) {
-        Document doc = Jsoup.parse(html);
-
-        // Remove unwanted elements
-        removeUnwantedElements(doc);
-
-        // Try different content extraction strategies
-        String content = null;
-
-        // Strategy 1: Look for article tag
-        Elements articles = doc.select("article");
-        if (!articles.isEmpty()) {
-            content = extractTextFromElements(articles);
-        }
-
-        // Strategy 2: Look for main content div
-        if (content == null || content.length() < 200) {
-            Elements mainContent = doc
-                    .select("div[role=main], main, #main-content, .article-body, .post-content, .entry-content");
-            if (!mainContent.isEmpty()) {
-                content = extractTextFromElements(mainContent);
+    private Document parseStreaming(ResponseBody body, String url) throws IOException {
+        BoundedInputStream bounded = new BoundedInputStream(body.byteStream(), maxBytes);
+        InputStream in = new BufferedInputStream(bounded, CHARSET_SNIFF_BYTES);
+        Charset charset = detectCharset(body.contentType(), in);
+        SiteRule rule = SiteRules.forUrl(url);
+
+        try (StreamParser streamer = new StreamParser(Parser.htmlParser())) {
+            streamer.parse(new InputStreamReader(in, charset), url);
+
+            Element article = streamer.selectFirst(rule != null ? rule.getContainer() : ARTICLE);
+            if (article != null && article.text().length() >= MIN_ARTICLE_CHARS) {
+                Log.d(TAG, "Stopped reading after the article element");
+                return streamer.document();
             }
-        }
-
-        // Strategy 3: Look for meta description and combine with paragraphs
-        if (content == null || content.length() < 200) {
-            StringBuilder sb = new StringBuilder();
 
-            // Get meta description
-            Element metaDesc = doc.selectFirst("meta[name=description], meta[property=og:description]");
-            if (metaDesc != null) {
-                String desc = metaDesc.attr("content");
-                if (desc != null && !desc.isEmpty()) {
-                    sb.append(desc).append("\n\n");
-                }
+            Document doc = streamer.complete();
+            if (bounded.isLimitReached()) {
+                Log.w(TAG, "Page cut off at " + bounded.getLimit() + " bytes");
             }
-
-            // Get all paragraphs
-            Elements paragraphs = doc.select("p");
-            for (Element p : paragraphs) {
-                String text = p.text().trim();
-                // Only include substantial paragraphs
-                if (text.length() > 50) {
-                    sb.append(text).append("\n\n");
-                }
-            }
-
-            content = sb.toString().trim();
+            return doc;
         }
+    }
 
-        // Strategy 4: Fallback to body text
-        if (content == null || content.length() < 100) {
-            content = doc.body().text();
+    /**
+     * Picks the page charset: a byte order mark, then the Content-Type
+     * header, then a <meta charset> or http-equiv declaration near the start,
+     * else UTF-8. A BOM wins over the header, as in browsers; a UTF-8 BOM is
+     * skipped.
+     *
+     * @param in Stream positioned at the start of the page; must support mark()
+     */
+    private static Charset detectCharset(MediaType contentType, InputStream in) throws IOException {
+        Charset declared = contentType != null ? contentType.charset() : null;
+
+        byte[] head = new byte[CHARSET_SNIFF_BYTES];
+        in.mark(CHARSET_SNIFF_BYTES);
+        int length = 0;
+        int n;
+        while (length < head.length && (n = in.read(head, length, head.length - length)) > 0) {
+            length += n;
         }
+        in.reset();
 
-        // Clean up the content
-        content = cleanContent(content);
+        if (length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            in.skip(3);
+            return StandardCharsets.UTF_8;
+        }
+        if (length >= 2 && (((head[0] & 0xFF) == 0xFE && (head[1] & 0xFF) == 0xFF)
+                || ((head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xFE))) {
+            // The UTF-16 decoder reads the BOM itself
+            return StandardCharsets.UTF_16;
+        }
+        if (declared != null) {
+            return declared;
+        }
 
-        return content;
+        Matcher matcher = META_CHARSET.matcher(new String(head, 0, length, StandardCharsets.ISO_8859_1));
+        if (matcher.find()) {
+            try {
+                return Charset.forName(matcher.group(1));
+            } catch (Exception e) {
+                Log.w(TAG, "Unknown charset " + matcher.group(1) + ", using UTF-8");
+            }
+        }
+        return StandardCharsets.UTF_8;
     }
 
     /**
-     * Removes unwanted elements from the document.
+     * Builds the article from a parsed page.
      */
-    private void removeUnwantedElements(Document doc) {
-        // Remove scripts, styles, navigation, ads, etc.
-        doc.select(
-                "script, style, nav, header, footer, aside, .advertisement, .ad, .social-share, .comments, #comments, .related-posts")
-                .remove();
+    private ExtractedArticle parseArticle(Document doc, String url) {
+        // Metadata first: content parsing strips elements from the DOM
+        String title = parseTitle(doc);
+        String faviconUrl = parseFavicon(doc, url);
+        String language = parseLanguage(doc);
+
+        String content = parseContent(doc, url);
+        if (language == null) {
+            language = guessLanguage(content);
+        }
+        return new ExtractedArticle(url, title, faviconUrl, parseDomain(url), content, language);
     }
 
     /**
-     * Extracts text from a collection of elements.
+     * Extracts main content from a parsed page.
+     * Uses the site's rule if it has one, then content scoring if enabled,
+     * else tries multiple strategies to find the article content.
      */
-    private String extractTextFromElements(Elements elements) {
-        StringBuilder sb = new StringBuilder();
-        for (Element element : elements) {
-            String text = element.text().trim();
-            if (!text.isEmpty()) {
-                sb.append(text).append("\n\n");
+    private String parseContent(Document doc, String url) {
+        // Known sites: one walk over the rule's container
+        SiteRule rule = SiteRules.forUrl(url);
+        if (rule != null) {
+            String content = rule.extract(doc);
+            if (content != null && content.length() >= MIN_ARTICLE_CHARS) {
+                Log.d(TAG, "Extracted with site rule " + rule.getName());
+                return cleanContent(content);
+            }
+            Log.d(TAG, "Site rule " + rule.getName() + " found no article, using generic extraction");
+        }
+
+        // Scoring reads the untouched DOM, so it runs before anything is removed
+        if (readability) {
+            long start = System.nanoTime();
+            String content = ReadabilityExtractor.extract(doc);
+            Log.d(TAG, "Readability scoring took " + (System.nanoTime() - start) / 1000000 + " ms");
+            if (content != null && content.length() >= MIN_ARTICLE_CHARS) {
+                return cleanContent(content);
             }
+            Log.d(TAG, "Readability found no article, using classic extraction");
         }
-        return sb.toString().trim();
+
+        return cleanContent(ClassicExtractor.extract(doc));
     }
 
     /**
-     * Cleans up extracted content.
+     * Cleans up extracted content in one pass over the text, into one buffer.
+     *
+     * Whitespace runs become a single space, except runs holding a blank
+     * line, which become a paragraph break. Boilerplate phrases (see
+     * BOILERPLATE) are dropped, within a paragraph. Leading and trailing
+     * whitespace is trimmed.
      */
     private String cleanContent(String content) {
         if (content == null) {
             return "";
         }
 
-        // Remove excessive whitespace
-        content = content.replaceAll("\\s+", " ");
+        int n = content.length();
+        // Separators are never longer than the whitespace they replace
+        char[] out = new char[n];
+        int len = 0;
+        boolean inSpace = false;
+        int newlines = 0;
+
+        int i = 0;
+        while (i < n) {
+            char c = content.charAt(i);
+            if (Character.isWhitespace(c)) {
+                inSpace = true;
+                if (c == '\n') {
+                    newlines++;
+                }
+                i++;
+                continue;
+            }
 
-        // Remove excessive newlines
-        content = content.replaceAll("(?:\\n\\s*){3,}", "\n\n");
+            if (c < 128 && BOILERPLATE_FIRST[Character.toLowerCase(c)]
+                    && (i == 0 || !isWordChar(content.charAt(i - 1)))) {
+                int skipTo = matchBoilerplate(content, i);
+                if (skipTo > i) {
+                    // Whitespace on both sides merges into one separator
+                    i = skipTo;
+                    continue;
+                }
+            }
 
-        // Remove common boilerplate phrases
-        content = content.replaceAll("(?i)\\bclick here\\b.*?\\bmore\\b", "");
-        content = content.replaceAll("(?i)\\bshare this\\b.*?\\bfacebook\\b", "");
-        content = content.replaceAll("(?i)\\bsubscribe.*?newsletter\\b", "");
+            if (inSpace && len > 0) {
+                if (newlines >= 2) {
+                    out[len++] = '\n';
+                    out[len++] = '\n';
+                } else {
+                    out[len++] = ' ';
+                }
+            }
+            inSpace = false;
+            newlines = 0;
+            out[len++] = c;
+            i++;
+        }
+        return new String(out, 0, len);
+    }
 
-        return content.trim();
+    /**
+     * Matches every boilerplate phrase starting at a word start.
+     *
+     * @return The index just past the phrase, or start if none matched
+     */
+    private static int matchBoilerplate(String s, int start) {
+        for (Boilerplate phrase : BOILERPLATE) {
+            int p = matchWords(s, start, phrase.startWords);
+            if (p < 0 || (phrase.startWholeWord && p < s.length() && isWordChar(s.charAt(p)))) {
+                continue;
+            }
+            int end = findPhraseEnd(s, p, phrase);
+            if (end >= 0) {
+                return end;
+            }
+        }
+        return start;
     }
 
     /**
-     * Extracts metadata (title, favicon, domain) from a URL.
+     * Matches words case-insensitively, separated by whitespace that holds
+     * no paragraph break.
+     *
+     * @return The index just past the last word, or -1
      */
-    public UrlMetadata extractMetadata(String url) throws Exception {
-        if (url == null || url.trim().isEmpty()) {
-            throw new Exception("URL cannot be empty");
+    private static int matchWords(String s, int p, String[] words) {
+        for (int w = 0; w < words.length; w++) {
+            if (w > 0) {
+                int gapStart = p;
+                int newlines = 0;
+                while (p < s.length() && Character.isWhitespace(s.charAt(p))) {
+                    if (s.charAt(p) == '\n') {
+                        newlines++;
+                    }
+                    p++;
+                }
+                if (p == gapStart || newlines >= 2) {
+                    return -1;
+                }
+            }
+            if (!s.regionMatches(true, p, words[w], 0, words[w].length())) {
+                return -1;
+            }
+            p += words[w].length();
         }
+        return p;
+    }
 
-        if (!url.startsWith("http://") && !url.startsWith("https://")) {
-            url = "https://" + url;
+    /**
+     * Finds the nearest end word of a phrase before the next paragraph break.
+     *
+     * @return The index just past the end word, or -1
+     */
+    private static int findPhraseEnd(String s, int from, Boilerplate phrase) {
+        String word = phrase.endWord;
+        int newlines = 0;
+        for (int j = from; j + word.length() <= s.length(); j++) {
+            char c = s.charAt(j);
+            if (c == '\n') {
+                if (++newlines >= 2) {
+                    return -1;
+                }
+            } else if (!Character.isWhitespace(c)) {
+                newlines = 0;
+            }
+            if (s.regionMatches(true, j, word, 0, word.length())
+                    && (!phrase.endWholeWord || j == 0 || !isWordChar(s.charAt(j - 1)))
+                    && (j + word.length() == s.length() || !isWordChar(s.charAt(j + word.length())))) {
+                return j + word.length();
+            }
         }
+        return -1;
+    }
 
-        String html = fetchHtml(url);
-        Document doc = Jsoup.parse(html);
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
 
+    /**
+     * Extracts the page title, preferring og:title.
+     */
+    private String parseTitle(Document doc) {
         String title = null;
-        String faviconUrl = null;
-
-        // Extract Title
         Element ogTitle = doc.selectFirst("meta[property=og:title]");
         if (ogTitle != null) {
             title = ogTitle.attr("content");
@@ -225,8 +604,15 @@ public class WebContentExtractor {
         if (title == null || title.isEmpty()) {
             title = doc.title();
         }
+        return title;
+    }
+
+    /**
+     * Extracts an absolute favicon URL, or null.
+     */
+    private String parseFavicon(Document doc, String url) {
+        String faviconUrl = null;
 
-        // Extract Favicon
         // Try apple-touch-icon first (usually higher res)
         Element appleIcon = doc.selectFirst("link[rel=apple-touch-icon]");
         if (appleIcon != null) {
@@ -259,37 +645,71 @@ public class WebContentExtractor {
                 Log.e(TAG, "Error resolving favicon URL: " + e.getMessage());
             }
         }
+        return faviconUrl;
+    }
 
-        // Extract Domain
-        String domain = "";
+    /**
+     * Gets the host without "www.", or the URL itself if it has none.
+     */
+    private static String parseDomain(String url) {
         try {
-            java.net.URL netUrl = new java.net.URL(url);
-            domain = netUrl.getHost();
-            if (domain.startsWith("www.")) {
-                domain = domain.substring(4);
-            }
+            String domain = new java.net.URL(url).getHost();
+            return domain.startsWith("www.") ? domain.substring(4) : domain;
         } catch (Exception e) {
-            domain = url;
+            return url;
         }
+    }
 
-        return new UrlMetadata(title, faviconUrl, domain, url);
+    /**
+     * Reads the declared language from the html lang attribute or og:locale,
+     * e.g. "ms" for lang="ms-MY".
+     *
+     * @return ISO 639-1 code, or null if the page declares none
+     */
+    private static String parseLanguage(Document doc) {
+        String lang = null;
+        Element html = doc.selectFirst("html[lang]");
+        if (html != null) {
+            lang = html.attr("lang");
+        }
+        if (lang == null || lang.trim().isEmpty()) {
+            Element locale = doc.selectFirst("meta[property=og:locale]");
+            lang = locale != null ? locale.attr("content") : null;
+        }
+        if (lang == null || lang.trim().isEmpty()) {
+            return null;
+        }
+        String primary = lang.trim().split("[-_]", 2)[0].toLowerCase(Locale.ROOT);
+        return primary.length() == 2 ? primary : null;
     }
 
     /**
-     * Data class for URL metadata.
+     * Guesses English or Malay from function word counts in the first part
+     * of the text, for pages that don't declare a language.
+     *
+     * @return "en", "ms", or null if neither clearly dominates
      */
-    public static class UrlMetadata {
-        public final String title;
-        public final String faviconUrl;
-        public final String domain;
-        public final String originalUrl;
-
-        public UrlMetadata(String title, String faviconUrl, String domain, String originalUrl) {
-            this.title = title;
-            this.faviconUrl = faviconUrl;
-            this.domain = domain;
-            this.originalUrl = originalUrl;
+    private static String guessLanguage(String text) {
+        int english = 0;
+        int malay = 0;
+        String sample = text.length() > 5000 ? text.substring(0, 5000) : text;
+        for (String word : sample.toLowerCase(Locale.ROOT).split("[^\\p{L}]+")) {
+            if (ENGLISH_WORDS.contains(word)) {
+                english++;
+            } else if (MALAY_WORDS.contains(word)) {
+                malay++;
+            }
+        }
+        if (english + malay < 5) {
+            return null;
+        }
+        if (english > malay * 2) {
+            return "en";
         }
+        if (malay > english * 2) {
+            return "ms";
+        }
+        return null;
     }
 
     /**
@@ -306,4 +726,30 @@ public class WebContentExtractor {
                 lower.startsWith("www.") ||
                 (lower.contains(".") && !lower.contains(" ") && lower.length() > 5);
     }
+
+    /**
+     * Splits text made only of links, one per line or separated by spaces,
+     * into a list for batch processing. Links without a scheme get https://
+     * and repeats are dropped.
+     *
+     * @return The links, or an empty list unless the text holds two or more
+     *         links and nothing else
+     */
+    public static List<String> splitUrls(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        Set<String> urls = new LinkedHashSet<>();
+        for (String token : text.trim().split("\\s+")) {
+            String lower = token.toLowerCase(Locale.ROOT);
+            if (lower.startsWith("http://") || lower.startsWith("https://")) {
+                urls.add(token);
+            } else if (lower.startsWith("www.")) {
+                urls.add("https://" + token);
+            } else {
+                return Collections.emptyList();
+            }
+        }
+        return urls.size() > 1 ? new ArrayList<>(urls) : Collections.<String>emptyList();
+    }
 }
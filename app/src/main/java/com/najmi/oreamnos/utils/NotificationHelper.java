@@ -141,4 +141,26 @@ public class NotificationHelper {
                 .setProgress(0, 0, true)
                 .build();
     }
+
+    /**
+     * Updates the foreground service notification with batch progress.
+     *
+     * @param title   Notification title
+     * @param message Notification message
+     * @param done    Items finished
+     * @param total   Items in the batch
+     */
+    public void updateForegroundProgress(String title, String message, int done, int total) {
+        Notification notification = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.ic_popup_sync)
+                .setContentTitle(title)
+                .setContentText(message)
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setProgress(total, done, false)
+                .build();
+
+        notificationManager.notify(FOREGROUND_NOTIFICATION_ID, notification);
+    }
 }
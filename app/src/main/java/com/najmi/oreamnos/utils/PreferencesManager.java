@@ -47,15 +47,39 @@ public class PreferencesManager {
     private static final String DEFAULT_GROQ_MODEL = "llama-3.3-70b-versatile";
     private static final String DEFAULT_OPENROUTER_MODEL = "deepseek/deepseek-v3-base:free";
 
+    private static volatile PreferencesManager instance;
+
     private final SharedPreferences securePrefs;
     private final Context context;
 
+    /**
+     * Gets the process-wide PreferencesManager.
+     * Creating the MasterKey and EncryptedSharedPreferences goes through the
+     * Android keystore and is slow, so it is done once per process.
+     *
+     * @param context Any context; the application context is retained
+     * @return Shared instance
+     */
+    public static PreferencesManager getInstance(Context context) {
+        PreferencesManager result = instance;
+        if (result == null) {
+            synchronized (PreferencesManager.class) {
+                result = instance;
+                if (result == null) {
+                    result = new PreferencesManager(context);
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Creates a new PreferencesManager instance.
      * 
      * @param context Application context
      */
-    public PreferencesManager(Context context) {
+    private PreferencesManager(Context context) {
         this.context = context.getApplicationContext();
         this.securePrefs = getEncryptedPreferences();
     }
@@ -432,6 +456,125 @@ public class PreferencesManager {
         return securePrefs.getString(key, defaultModel);
     }
 
+    // ==================== HEDGED REQUESTS ====================
+
+    private static final String KEY_HEDGING_ENABLED = "hedging_enabled";
+    private static final String KEY_HEDGE_PROVIDER = "hedge_provider";
+    private static final String KEY_HEDGE_DELAY_MS = "hedge_delay_ms";
+
+    // Roughly the p95 latency of a free-tier Gemini call
+    public static final long DEFAULT_HEDGE_DELAY_MS = 8000L;
+
+    /**
+     * Saves whether slow requests are hedged to a second provider.
+     */
+    public void setHedgingEnabled(boolean enabled) {
+        securePrefs.edit().putBoolean(KEY_HEDGING_ENABLED, enabled).apply();
+    }
+
+    /**
+     * Gets whether slow requests are hedged to a second provider.
+     */
+    public boolean isHedgingEnabled() {
+        return securePrefs.getBoolean(KEY_HEDGING_ENABLED, false); // Disabled by default
+    }
+
+    /**
+     * Saves the provider that receives hedged requests.
+     */
+    public void saveHedgeProvider(String provider) {
+        securePrefs.edit().putString(KEY_HEDGE_PROVIDER, provider).apply();
+    }
+
+    /**
+     * Gets the provider that receives hedged requests.
+     *
+     * @return The provider, defaults to PROVIDER_GROQ
+     */
+    public String getHedgeProvider() {
+        return securePrefs.getString(KEY_HEDGE_PROVIDER, PROVIDER_GROQ);
+    }
+
+    /**
+     * Saves how long to wait for the primary provider before hedging.
+     */
+    public void saveHedgeDelayMs(long delayMs) {
+        securePrefs.edit().putLong(KEY_HEDGE_DELAY_MS, delayMs).apply();
+    }
+
+    /**
+     * Gets how long to wait for the primary provider before hedging.
+     */
+    public long getHedgeDelayMs() {
+        return securePrefs.getLong(KEY_HEDGE_DELAY_MS, DEFAULT_HEDGE_DELAY_MS);
+    }
+
+    // ==================== ARTICLE FETCHING ====================
+
+    private static final String KEY_ARTICLE_BYTE_LIMIT = "article_byte_limit";
+
+    // Enough for the article part of almost any news page, scripts included
+    public static final int DEFAULT_ARTICLE_BYTE_LIMIT = 1024 * 1024;
+
+    /**
+     * Saves how many bytes of a page are read at most when extracting.
+     */
+    public void setArticleByteLimit(int bytes) {
+        securePrefs.edit().putInt(KEY_ARTICLE_BYTE_LIMIT, bytes).apply();
+    }
+
+    /**
+     * Gets how many bytes of a page are read at most when extracting.
+     */
+    public int getArticleByteLimit() {
+        return securePrefs.getInt(KEY_ARTICLE_BYTE_LIMIT, DEFAULT_ARTICLE_BYTE_LIMIT);
+    }
+
+    // ==================== EXTRACTION ENGINE ====================
+
+    private static final String KEY_EXTRACTION_ENGINE = "extraction_engine";
+
+    // Fixed selector cascade
+    public static final String EXTRACTOR_CLASSIC = "classic";
+    // Readability-style content scoring
+    public static final String EXTRACTOR_READABILITY = "readability";
+
+    /**
+     * Saves which engine finds the article on pages without a site rule.
+     *
+     * @param engine EXTRACTOR_CLASSIC or EXTRACTOR_READABILITY
+     */
+    public void setExtractionEngine(String engine) {
+        securePrefs.edit().putString(KEY_EXTRACTION_ENGINE, engine).apply();
+    }
+
+    /**
+     * Gets which engine finds the article on pages without a site rule.
+     */
+    public String getExtractionEngine() {
+        return securePrefs.getString(KEY_EXTRACTION_ENGINE, EXTRACTOR_CLASSIC);
+    }
+
+    // ==================== RATE LIMITER STATE ====================
+
+    private static final String KEY_RATE_LIMITER_PREFIX = "rate_limiter_";
+
+    /**
+     * Gets the persisted state of a provider's rate limiter.
+     *
+     * @return JSON state, or null if none was saved
+     */
+    public String getRateLimiterState(String provider) {
+        return securePrefs.getString(KEY_RATE_LIMITER_PREFIX + provider, null);
+    }
+
+    /**
+     * Saves the state of a provider's rate limiter.
+     */
+    public void saveRateLimiterState(String provider, String json) {
+        securePrefs.edit().putString(KEY_RATE_LIMITER_PREFIX + provider, json).apply();
+    }
+
     // ==================== CUSTOM REFINEMENT PILLS ====================
 
     private static final String KEY_PILLS = "generation_pills";
@@ -504,23 +647,85 @@ public class PreferencesManager {
 
     // ==================== USAGE STATS ====================
 
+    // Legacy JSON blob, migrated into UsageDatabase on first use
     private static final String KEY_USAGE_STATS = "usage_stats";
+    private static final String KEY_SESSION_HISTORY_LIMIT = "session_history_limit";
+    private static final String KEY_LOG_HISTORY_LIMIT = "log_history_limit";
+
+    private volatile com.najmi.oreamnos.data.UsageDatabase usageDatabase;
+
+    /**
+     * Gets the usage database, importing the legacy JSON stats the first time.
+     */
+    private com.najmi.oreamnos.data.UsageDatabase usageDb() {
+        com.najmi.oreamnos.data.UsageDatabase db = usageDatabase;
+        if (db == null) {
+            synchronized (this) {
+                db = usageDatabase;
+                if (db == null) {
+                    db = com.najmi.oreamnos.data.UsageDatabase.getInstance(context);
+                    String json = securePrefs.getString(KEY_USAGE_STATS, null);
+                    if (json != null) {
+                        db.importLegacy(com.najmi.oreamnos.model.UsageStats.fromJson(json));
+                        securePrefs.edit().remove(KEY_USAGE_STATS).apply();
+                    }
+                    usageDatabase = db;
+                }
+            }
+        }
+        return db;
+    }
+
+    /**
+     * Gets the in-memory usage repository. Migration runs first, so the
+     * repository loads the imported totals.
+     */
+    private com.najmi.oreamnos.data.UsageRepository usageRepo() {
+        usageDb();
+        return com.najmi.oreamnos.data.UsageRepository.getInstance(context,
+                getSessionHistoryLimit(), getLogHistoryLimit());
+    }
+
+    /**
+     * Gets how many recent sessions are kept. Changes apply after a restart.
+     */
+    public int getSessionHistoryLimit() {
+        return securePrefs.getInt(KEY_SESSION_HISTORY_LIMIT, com.najmi.oreamnos.model.UsageStats.DEFAULT_MAX_SESSIONS);
+    }
+
+    /**
+     * Sets how many recent sessions are kept.
+     */
+    public void setSessionHistoryLimit(int limit) {
+        securePrefs.edit().putInt(KEY_SESSION_HISTORY_LIMIT, limit).apply();
+    }
+
+    /**
+     * Gets how many log lines are kept. Changes apply after a restart.
+     */
+    public int getLogHistoryLimit() {
+        return securePrefs.getInt(KEY_LOG_HISTORY_LIMIT, com.najmi.oreamnos.model.UsageStats.DEFAULT_MAX_LOGS);
+    }
+
+    /**
+     * Sets how many log lines are kept.
+     */
+    public void setLogHistoryLimit(int limit) {
+        securePrefs.edit().putInt(KEY_LOG_HISTORY_LIMIT, limit).apply();
+    }
 
     /**
-     * Gets the current usage statistics.
+     * Gets a snapshot of the current usage statistics.
      */
     public com.najmi.oreamnos.model.UsageStats getUsageStats() {
-        String json = securePrefs.getString(KEY_USAGE_STATS, null);
-        return com.najmi.oreamnos.model.UsageStats.fromJson(json);
+        return usageRepo().getUsageStats();
     }
 
     /**
-     * Saves usage statistics.
+     * Writes pending usage and log changes to disk without waiting.
      */
-    public void saveUsageStats(com.najmi.oreamnos.model.UsageStats stats) {
-        securePrefs.edit()
-                .putString(KEY_USAGE_STATS, stats.toJson())
-                .apply();
+    public void flushUsage() {
+        usageRepo().flushNow();
     }
 
     /**
@@ -528,9 +733,7 @@ public class PreferencesManager {
      */
     public void recordApiSuccess(int promptTokens, int candidateTokens, int totalTokens,
             String provider, String modelId, String modelName) {
-        com.najmi.oreamnos.model.UsageStats stats = getUsageStats();
-        stats.recordSuccess(promptTokens, candidateTokens, totalTokens, provider, modelId, modelName);
-        saveUsageStats(stats);
+        usageRepo().recordSuccess(promptTokens, candidateTokens, totalTokens, provider, modelId, modelName);
     }
 
     /**
@@ -544,9 +747,7 @@ public class PreferencesManager {
      * Records a failed API call with provider/model info.
      */
     public void recordApiFailure(String provider, String modelId, String modelName, String error) {
-        com.najmi.oreamnos.model.UsageStats stats = getUsageStats();
-        stats.recordFailure(provider, modelId, modelName, error);
-        saveUsageStats(stats);
+        usageRepo().recordFailure(provider, modelId, modelName, error);
     }
 
     /**
@@ -556,11 +757,52 @@ public class PreferencesManager {
         recordApiFailure(getProvider(), null, null, null);
     }
 
+    /**
+     * Loads hourly or daily usage between two instants. Blocks on disk; call
+     * off the main thread.
+     *
+     * @param resolution UsageSeries.RESOLUTION_HOUR or RESOLUTION_DAY
+     * @param provider   Provider to count, or null for all providers
+     */
+    public com.najmi.oreamnos.model.UsageSeries getUsageSeries(long from, long to, int resolution,
+            String provider) throws Exception {
+        return usageRepo().querySeries(from, to, resolution, provider);
+    }
+
+    /**
+     * Loads a page of recent sessions, newest first. Blocks on disk; call
+     * off the main thread.
+     *
+     * @param beforeId Key from the previous page, or 0 for the first page
+     */
+    public com.najmi.oreamnos.data.Page<com.najmi.oreamnos.model.UsageStats.SessionEntry> loadSessions(
+            long beforeId, int limit) throws Exception {
+        return usageRepo().loadSessions(beforeId, limit);
+    }
+
+    /**
+     * Loads a page of logs, newest first. Blocks on disk; call off the main
+     * thread.
+     *
+     * @param beforeId Key from the previous page, or 0 for the first page
+     */
+    public com.najmi.oreamnos.data.Page<com.najmi.oreamnos.model.UsageStats.LogEntry> loadLogs(
+            long beforeId, int limit) throws Exception {
+        return usageRepo().loadLogs(beforeId, limit);
+    }
+
+    /**
+     * Counts stored logs. Blocks on disk; call off the main thread.
+     */
+    public long countLogs() throws Exception {
+        return usageRepo().countLogs();
+    }
+
     /**
      * Resets all usage statistics.
      */
     public void resetUsageStats() {
-        saveUsageStats(new com.najmi.oreamnos.model.UsageStats());
+        usageRepo().resetUsage();
     }
 
     // ==================== LOG METHODS ====================
@@ -569,35 +811,27 @@ public class PreferencesManager {
      * Logs an info message.
      */
     public void logInfo(String tag, String message) {
-        com.najmi.oreamnos.model.UsageStats stats = getUsageStats();
-        stats.logInfo(tag, message);
-        saveUsageStats(stats);
+        usageRepo().addLog(com.najmi.oreamnos.model.UsageStats.LogEntry.info(tag, message));
     }
 
     /**
      * Logs a warning message.
      */
     public void logWarning(String tag, String message, String details) {
-        com.najmi.oreamnos.model.UsageStats stats = getUsageStats();
-        stats.logWarning(tag, message, details);
-        saveUsageStats(stats);
+        usageRepo().addLog(com.najmi.oreamnos.model.UsageStats.LogEntry.warning(tag, message, details));
     }
 
     /**
      * Logs an error message.
      */
     public void logError(String tag, String message, String details) {
-        com.najmi.oreamnos.model.UsageStats stats = getUsageStats();
-        stats.logError(tag, message, details);
-        saveUsageStats(stats);
+        usageRepo().addLog(com.najmi.oreamnos.model.UsageStats.LogEntry.error(tag, message, details));
     }
 
     /**
      * Clears all logs.
      */
     public void clearLogs() {
-        com.najmi.oreamnos.model.UsageStats stats = getUsageStats();
-        stats.clearLogs();
-        saveUsageStats(stats);
+        usageRepo().clearLogs();
     }
 }
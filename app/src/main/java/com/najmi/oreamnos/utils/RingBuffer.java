@@ -0,0 +1,85 @@
+package com.najmi.oreamnos.utils;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-capacity list of the most recent entries, newest first.
+ *
+ * push() stores into a circular array and overwrites the oldest entry once
+ * full, so adding costs the same at any capacity. get(0) is the newest
+ * entry; iterating walks from newest to oldest without copying. Serialised
+ * with Gson it is a plain JSON array of the live entries.
+ *
+ * Not thread-safe; callers sharing one across threads must synchronize.
+ */
+public class RingBuffer<T> extends AbstractList<T> {
+
+    private final Object[] items;
+    private int head; // Index of the newest entry
+    private int size;
+
+    public RingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.items = new Object[capacity];
+        this.head = capacity - 1;
+    }
+
+    /**
+     * Builds a buffer from a newest-first list, keeping the newest entries
+     * that fit.
+     */
+    public static <T> RingBuffer<T> fromNewestFirst(List<T> entries, int capacity) {
+        RingBuffer<T> buffer = new RingBuffer<>(capacity);
+        if (entries != null) {
+            for (int i = Math.min(entries.size(), capacity) - 1; i >= 0; i--) {
+                buffer.push(entries.get(i));
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Adds an entry as the newest, dropping the oldest if full.
+     */
+    public void push(T entry) {
+        head = (head + 1) % items.length;
+        items[head] = entry;
+        if (size < items.length) {
+            size++;
+        }
+        modCount++;
+    }
+
+    /**
+     * Gets the entry at an age, 0 being the newest.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return (T) items[(head - index + items.length) % items.length];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(items, null);
+        head = items.length - 1;
+        size = 0;
+        modCount++;
+    }
+}
@@ -0,0 +1,156 @@
+package com.najmi.oreamnos.utils;
+
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.view.Choreographer;
+import android.widget.TextView;
+
+import io.noties.markwon.Markwon;
+
+/**
+ * Renders streamed markdown into a TextView without re-rendering the whole
+ * post on every chunk.
+ *
+ * Completed blocks (everything up to the last blank line outside a code
+ * fence) are rendered once and kept in the TextView's Editable. Only the
+ * trailing unfinished block is re-parsed, and its spans are swapped in place.
+ * Updates are coalesced to at most one render per display frame.
+ *
+ * Must be used from the main thread.
+ */
+public class StreamingMarkdownRenderer {
+
+    private static final String BLOCK_SEPARATOR = "\n\n";
+
+    private final Markwon markwon;
+    private final TextView textView;
+    private final Choreographer choreographer;
+
+    // Source text whose blocks are already rendered into the Editable
+    private String committedSource = "";
+    // Length of the rendered committed blocks inside the Editable
+    private int committedDisplayLength = 0;
+
+    private String pendingText;
+    private boolean frameScheduled = false;
+    private boolean started = false;
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            frameScheduled = false;
+            if (pendingText != null) {
+                String text = pendingText;
+                pendingText = null;
+                render(text);
+            }
+        }
+    };
+
+    public StreamingMarkdownRenderer(Markwon markwon, TextView textView) {
+        this.markwon = markwon;
+        this.textView = textView;
+        this.choreographer = Choreographer.getInstance();
+    }
+
+    /**
+     * Queues the latest accumulated text for rendering on the next frame.
+     * Intermediate updates within one frame are dropped.
+     *
+     * @param accumulatedText Full streamed text so far
+     */
+    public void update(String accumulatedText) {
+        if (accumulatedText == null) {
+            return;
+        }
+        pendingText = accumulatedText;
+        if (!frameScheduled) {
+            frameScheduled = true;
+            choreographer.postFrameCallback(frameCallback);
+        }
+    }
+
+    /**
+     * Drops any pending frame and forgets the rendered blocks. Call when the
+     * stream ends (the final text is then rendered normally) or is abandoned.
+     */
+    public void reset() {
+        if (frameScheduled) {
+            choreographer.removeFrameCallback(frameCallback);
+            frameScheduled = false;
+        }
+        pendingText = null;
+        committedSource = "";
+        committedDisplayLength = 0;
+        started = false;
+    }
+
+    private void render(String text) {
+        if (!started || !text.startsWith(committedSource)) {
+            // First frame, or the stream was restarted with different text
+            textView.setText(new SpannableStringBuilder(), TextView.BufferType.EDITABLE);
+            committedSource = "";
+            committedDisplayLength = 0;
+            started = true;
+        }
+
+        Editable editable = (Editable) textView.getText();
+
+        // Commit any blocks that completed since the last frame
+        int boundary = findStableBoundary(text, committedSource.length());
+        if (boundary > committedSource.length()) {
+            String blockSource = text.substring(committedSource.length(), boundary);
+            Spanned block = trimTrailingNewlines(markwon.toMarkdown(blockSource));
+            SpannableStringBuilder committed = new SpannableStringBuilder(block);
+            if (committed.length() > 0) {
+                committed.append(BLOCK_SEPARATOR);
+            }
+            editable.replace(committedDisplayLength, editable.length(), committed);
+            committedDisplayLength += committed.length();
+            committedSource = text.substring(0, boundary);
+        }
+
+        // Re-render only the unfinished tail
+        Spanned tail = trimTrailingNewlines(markwon.toMarkdown(text.substring(committedSource.length())));
+        editable.replace(committedDisplayLength, editable.length(), tail);
+    }
+
+    /**
+     * Finds the end of the last complete block: the position just after a
+     * blank line that is not inside a fenced code block. Scanning starts at
+     * an earlier boundary, which by construction is outside any fence.
+     */
+    private static int findStableBoundary(String text, int from) {
+        int boundary = from;
+        boolean inFence = false;
+        int lineStart = from;
+
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                // Last line is still being written
+                break;
+            }
+
+            String line = text.substring(lineStart, lineEnd).trim();
+            if (line.startsWith("```") || line.startsWith("~~~")) {
+                inFence = !inFence;
+            }
+
+            if (line.isEmpty() && !inFence) {
+                boundary = lineEnd + 1;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return boundary;
+    }
+
+    private static Spanned trimTrailingNewlines(Spanned spanned) {
+        int end = spanned.length();
+        while (end > 0 && spanned.charAt(end - 1) == '\n') {
+            end--;
+        }
+        return end == spanned.length() ? spanned : (Spanned) spanned.subSequence(0, end);
+    }
+}
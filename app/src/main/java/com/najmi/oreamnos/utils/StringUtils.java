@@ -1,5 +1,8 @@
 package com.najmi.oreamnos.utils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -33,4 +36,55 @@ public class StringUtils {
 
         return sb.toString();
     }
+
+    // Source line of a generated post: "Sumber:", "*Source:*", "Sumber :", etc.
+    private static final Pattern SOURCE_LINE = Pattern
+            .compile("(?im)^[\\s\\p{Z}]*[*_]*(?:Sumber|Source)[*_]*[\\s\\p{Z}]*[:：].*$");
+
+    /**
+     * Splits a generated post into title, body and source citation, the same
+     * way the Generate screen does.
+     *
+     * @return {title, body, source}; missing parts are empty strings
+     */
+    public static String[] splitPost(String post) {
+        if (post == null || post.isEmpty()) {
+            return new String[] {"", "", ""};
+        }
+
+        String source = "";
+        String content = post;
+        Matcher matcher = SOURCE_LINE.matcher(post);
+        if (matcher.find()) {
+            source = matcher.group().trim();
+            content = matcher.replaceAll("").trim().replaceAll("\\n+$", "").trim();
+        }
+
+        // Title is a short first paragraph, or failing that a short first line
+        String[] parts = content.split("\\n\\n", 2);
+        if (parts.length < 2 || parts[0].length() >= 150) {
+            parts = content.split("\\n", 2);
+        }
+        if (parts.length >= 2 && parts[0].length() < 150) {
+            return new String[] {parts[0].trim(), parts[1].trim(), source};
+        }
+        return new String[] {"", content.trim(), source};
+    }
+
+    /**
+     * Gets the lowercase hex SHA-256 of a string's UTF-8 bytes.
+     */
+    public static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Android release ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
 }
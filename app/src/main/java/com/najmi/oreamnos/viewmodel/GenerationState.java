@@ -14,6 +14,8 @@ public class GenerationState {
         IDLE,
         /** Generation or refinement in progress */
         LOADING,
+        /** Partial text is streaming in; generatedBody holds the text so far */
+        STREAMING,
         /** Generation completed successfully */
         SUCCESS,
         /** Generation failed */
@@ -81,6 +83,14 @@ public class GenerationState {
                 .build();
     }
 
+    public static GenerationState streaming(String partialText, boolean isRefinement) {
+        return new Builder()
+                .status(Status.STREAMING)
+                .generatedBody(partialText)
+                .isRefinement(isRefinement)
+                .build();
+    }
+
     public static GenerationState success(String title, String body, String source, boolean isRefinement) {
         return new Builder()
                 .status(Status.SUCCESS)
@@ -54,6 +54,16 @@ public class MainViewModel extends ViewModel {
         state.setValue(GenerationState.loading(isRefinement));
     }
 
+    /**
+     * Sets the state to streaming with the text received so far.
+     *
+     * @param partialText  Accumulated streamed text
+     * @param isRefinement Whether this is a refinement operation
+     */
+    public void setStreaming(String partialText, boolean isRefinement) {
+        state.setValue(GenerationState.streaming(partialText, isRefinement));
+    }
+
     /**
      * Sets the state to success with generated content.
      *
@@ -0,0 +1,131 @@
+package com.najmi.oreamnos.curator;
+
+import com.najmi.oreamnos.exceptions.ApiException;
+import com.najmi.oreamnos.exceptions.RateLimitException;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FailoverCuratorTest {
+
+    /**
+     * Opens a breaker for 1ms and waits it out, so the next allowed request
+     * is the half-open probe.
+     */
+    private static CircuitBreaker readyToProbe(String provider) throws InterruptedException {
+        CircuitBreaker breaker = CircuitBreaker.forProvider(provider);
+        breaker.recordRateLimit(1);
+        Thread.sleep(20);
+        return breaker;
+    }
+
+    private static FailoverCurator chainOf(String provider, IContentCurator curator) {
+        LinkedHashMap<String, IContentCurator> chain = new LinkedHashMap<>();
+        chain.put(provider, curator);
+        return new FailoverCurator(chain);
+    }
+
+    @Test
+    public void probeRejectedAsInvalidReleasesTheProbe() throws Exception {
+        String provider = "failover-probe-4xx";
+        CircuitBreaker breaker = readyToProbe(provider);
+        FakeCurator curator = new FakeCurator((callback, token) -> {
+            throw new ApiException("API error (400): bad request", 400);
+        });
+
+        try {
+            chainOf(provider, curator).curatePost("input", false, false, new CancellationToken());
+            fail("Expected the 400 to reach the caller");
+        } catch (ApiException e) {
+            assertEquals(400, e.getStatusCode());
+        }
+
+        // Not judged either way, but the next request may probe again
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void probeFailingOnTheProviderReopens() throws Exception {
+        String provider = "failover-probe-5xx";
+        CircuitBreaker breaker = readyToProbe(provider);
+        FakeCurator curator = new FakeCurator((callback, token) -> {
+            throw new ApiException("API error (503): unavailable", 503);
+        });
+
+        try {
+            chainOf(provider, curator).curatePost("input", false, false, new CancellationToken());
+            fail("Expected the 503 to reach the caller");
+        } catch (ApiException expected) {
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void probeAfterRejectedProbeCanCloseTheBreaker() throws Exception {
+        String provider = "failover-probe-recovers";
+        CircuitBreaker breaker = readyToProbe(provider);
+        boolean[] reject = {true};
+        FakeCurator curator = new FakeCurator((callback, token) -> {
+            if (reject[0]) {
+                throw new ApiException("API error (401): bad key", 401);
+            }
+            return FakeCurator.result(provider, "post", 10);
+        });
+        FailoverCurator failover = chainOf(provider, curator);
+
+        try {
+            failover.curatePost("input", false, false, new CancellationToken());
+            fail("Expected the 401 to reach the caller");
+        } catch (ApiException expected) {
+        }
+        reject[0] = false;
+        assertEquals("post", failover.curatePost("input", false, false, new CancellationToken()).getText());
+
+        assertEquals(2, curator.calls.get());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void clientSideThrottlingLeavesTheBreakerClosed() throws Exception {
+        String throttled = "failover-client-throttled";
+        String fallback = "failover-client-fallback";
+        FakeCurator primary = new FakeCurator((callback, token) -> {
+            throw new RateLimitException("Rate limit reached for " + throttled, 5000, throttled, true);
+        });
+        FakeCurator secondary = new FakeCurator((callback, token) -> FakeCurator.result(fallback, "post", 10));
+        LinkedHashMap<String, IContentCurator> chain = new LinkedHashMap<>();
+        chain.put(throttled, primary);
+        chain.put(fallback, secondary);
+
+        GenerationResult result = new FailoverCurator(chain)
+                .curatePost("input", false, false, new CancellationToken());
+
+        assertEquals("post", result.getText());
+        assertEquals(CircuitBreaker.State.CLOSED, CircuitBreaker.forProvider(throttled).getState());
+    }
+
+    @Test
+    public void providerRateLimitOpensTheBreaker() throws Exception {
+        String limited = "failover-server-429";
+        FakeCurator curator = new FakeCurator((callback, token) -> {
+            throw new RateLimitException("Rate limit exceeded for " + limited, 5000, limited);
+        });
+
+        try {
+            chainOf(limited, curator).curatePost("input", false, false, new CancellationToken());
+            fail("Expected the rate limit to reach the caller");
+        } catch (RateLimitException expected) {
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, CircuitBreaker.forProvider(limited).getState());
+    }
+}
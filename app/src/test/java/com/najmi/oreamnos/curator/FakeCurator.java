@@ -0,0 +1,54 @@
+package com.najmi.oreamnos.curator;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Curator whose every call runs a scripted reply.
+ */
+class FakeCurator implements IContentCurator {
+
+    /**
+     * What one call does: returns a result or throws.
+     */
+    interface Reply {
+        GenerationResult run(StreamCallback callback, CancellationToken token) throws Exception;
+    }
+
+    final AtomicInteger calls = new AtomicInteger();
+    private final Reply reply;
+
+    FakeCurator(Reply reply) {
+        this.reply = reply;
+    }
+
+    static GenerationResult result(String provider, String text, int totalTokens) {
+        return new GenerationResult.Builder()
+                .provider(provider)
+                .model(provider + "-model")
+                .text(text)
+                .totalTokens(totalTokens)
+                .build();
+    }
+
+    @Override
+    public GenerationResult curatePost(String inputText, boolean includeSource, boolean keepStructure,
+            CancellationToken token) throws Exception {
+        calls.incrementAndGet();
+        return reply.run(null, token);
+    }
+
+    @Override
+    public GenerationResult curatePostStreaming(String inputText, boolean includeSource, boolean keepStructure,
+            StreamCallback callback, CancellationToken token) throws Exception {
+        calls.incrementAndGet();
+        return reply.run(callback, token);
+    }
+
+    @Override
+    public GenerationResult refinePost(String originalPost, List<String> refinements, boolean includeSource,
+            CancellationToken token) throws Exception {
+        calls.incrementAndGet();
+        return reply.run(null, token);
+    }
+}
@@ -0,0 +1,178 @@
+package com.najmi.oreamnos.curator;
+
+import com.najmi.oreamnos.exceptions.ApiException;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HedgedCuratorTest {
+
+    private static final long HEDGE_DELAY_MS = 50;
+    private static final AtomicInteger providerIds = new AtomicInteger();
+
+    /**
+     * Collects the single loser report of a race.
+     */
+    private static class Loser implements HedgedCurator.LoserListener {
+        final CountDownLatch reported = new CountDownLatch(1);
+        final AtomicInteger reports = new AtomicInteger();
+        volatile String provider;
+        volatile GenerationResult result;
+        volatile Throwable error;
+
+        @Override
+        public void onLoserFinished(String provider, GenerationResult result, Throwable error) {
+            this.provider = provider;
+            this.result = result;
+            this.error = error;
+            reports.incrementAndGet();
+            reported.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("Loser was never reported", reported.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    // Breakers are process-wide; every test gets providers of its own
+    private static String provider(String name) {
+        return name + "-" + providerIds.incrementAndGet();
+    }
+
+    @Test
+    public void loserThatCompletedAnywayIsReportedWithItsTokens() throws Exception {
+        String slow = provider("slow");
+        String fast = provider("fast");
+        // The slow call is past the point of no return when it loses
+        FakeCurator primary = new FakeCurator((callback, token) -> {
+            Thread.sleep(300);
+            return FakeCurator.result(slow, "slow post", 120);
+        });
+        FakeCurator secondary = new FakeCurator((callback, token) -> FakeCurator.result(fast, "fast post", 40));
+        Loser loser = new Loser();
+
+        GenerationResult result = new HedgedCurator(slow, primary, fast, secondary, HEDGE_DELAY_MS, loser)
+                .curatePost("input", false, false, new CancellationToken());
+
+        assertEquals("fast post", result.getText());
+        loser.await();
+        assertEquals(slow, loser.provider);
+        assertEquals(120, loser.result.getTotalTokens());
+        assertNull(loser.error);
+    }
+
+    @Test
+    public void cancelledLoserIsReportedOnceItsCallEnds() throws Exception {
+        String slow = provider("slow");
+        String fast = provider("fast");
+        CountDownLatch callEnded = new CountDownLatch(1);
+        FakeCurator primary = new FakeCurator((callback, token) -> {
+            try {
+                token.sleep(5000);
+                return FakeCurator.result(slow, "slow post", 120);
+            } finally {
+                callEnded.countDown();
+            }
+        });
+        FakeCurator secondary = new FakeCurator((callback, token) -> FakeCurator.result(fast, "fast post", 40));
+        Loser loser = new Loser();
+
+        new HedgedCurator(slow, primary, fast, secondary, HEDGE_DELAY_MS, loser)
+                .curatePost("input", false, false, new CancellationToken());
+
+        loser.await();
+        assertEquals(0, callEnded.getCount());
+        assertNull(loser.result);
+        assertTrue(loser.error instanceof java.util.concurrent.CancellationException);
+        assertEquals(1, loser.reports.get());
+    }
+
+    @Test
+    public void primaryFailingWhileHedgeRunsIsReported() throws Exception {
+        String flaky = provider("flaky");
+        String steady = provider("steady");
+        FakeCurator primary = new FakeCurator((callback, token) -> {
+            token.sleep(100);
+            throw new ApiException("API error (503): unavailable", 503);
+        });
+        FakeCurator secondary = new FakeCurator((callback, token) -> {
+            token.sleep(300);
+            return FakeCurator.result(steady, "steady post", 40);
+        });
+        Loser loser = new Loser();
+
+        GenerationResult result = new HedgedCurator(flaky, primary, steady, secondary, HEDGE_DELAY_MS, loser)
+                .curatePost("input", false, false, new CancellationToken());
+
+        assertEquals("steady post", result.getText());
+        loser.await();
+        assertEquals(flaky, loser.provider);
+        assertTrue(loser.error instanceof ApiException);
+    }
+
+    @Test
+    public void bothFailingThrowsPrimaryAndReportsSecondary() throws Exception {
+        String first = provider("first");
+        String second = provider("second");
+        FakeCurator primary = new FakeCurator((callback, token) -> {
+            token.sleep(200);
+            throw new ApiException("API error (500): primary", 500);
+        });
+        FakeCurator secondary = new FakeCurator((callback, token) -> {
+            throw new ApiException("API error (502): secondary", 502);
+        });
+        Loser loser = new Loser();
+
+        try {
+            new HedgedCurator(first, primary, second, secondary, HEDGE_DELAY_MS, loser)
+                    .curatePost("input", false, false, new CancellationToken());
+            fail("Expected the primary's error");
+        } catch (ApiException e) {
+            assertEquals(500, e.getStatusCode());
+        }
+        loser.await();
+        assertEquals(second, loser.provider);
+        assertEquals(502, ((ApiException) loser.error).getStatusCode());
+    }
+
+    @Test
+    public void userCancelIsNotReportedAsALoss() throws Exception {
+        String a = provider("a");
+        String b = provider("b");
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        FakeCurator.Reply hang = (callback, token) -> {
+            bothRunning.countDown();
+            token.sleep(5000);
+            return null;
+        };
+        Loser loser = new Loser();
+        CancellationToken token = new CancellationToken();
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+
+        Thread caller = new Thread(() -> {
+            try {
+                new HedgedCurator(a, new FakeCurator(hang), b, new FakeCurator(hang), HEDGE_DELAY_MS, loser)
+                        .curatePost("input", false, false, token);
+            } catch (Throwable t) {
+                thrown.set(t);
+            }
+        });
+        caller.start();
+        assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+        token.cancel();
+        caller.join(5000);
+
+        assertTrue(thrown.get() instanceof java.util.concurrent.CancellationException);
+        Thread.sleep(100);
+        assertEquals(0, loser.reports.get());
+    }
+}
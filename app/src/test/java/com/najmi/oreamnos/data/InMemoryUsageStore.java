@@ -0,0 +1,160 @@
+package com.najmi.oreamnos.data;
+
+import com.najmi.oreamnos.model.UsageSeries;
+import com.najmi.oreamnos.model.UsageStats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * UsageStore holding plain totals in memory.
+ *
+ * Writes made inside runInTransaction() go to a staging copy that only
+ * replaces the totals when the batch completes, so a failed batch leaves
+ * nothing behind, as with SQLite. failNextTransactions() makes the next
+ * batches throw before any write is applied.
+ */
+class InMemoryUsageStore implements UsageStore {
+
+    /**
+     * Totals as they would be on disk.
+     */
+    static final class Totals {
+        long successes;
+        long failures;
+        long promptTokens;
+        long responseTokens;
+        long totalTokens;
+        long logs;
+
+        Totals copy() {
+            Totals t = new Totals();
+            t.successes = successes;
+            t.failures = failures;
+            t.promptTokens = promptTokens;
+            t.responseTokens = responseTokens;
+            t.totalTokens = totalTokens;
+            t.logs = logs;
+            return t;
+        }
+    }
+
+    private Totals committed = new Totals();
+    private Totals staging;
+    private int failuresLeft = 0;
+    private int transactions = 0;
+    // Threads that wrote; the repository promises a single writer
+    private final List<String> writerThreads = new ArrayList<>();
+
+    synchronized void failNextTransactions(int count) {
+        failuresLeft = count;
+    }
+
+    synchronized Totals totals() {
+        return committed.copy();
+    }
+
+    synchronized int transactions() {
+        return transactions;
+    }
+
+    synchronized List<String> writerThreads() {
+        return new ArrayList<>(writerThreads);
+    }
+
+    private Totals target() {
+        String thread = Thread.currentThread().getName();
+        if (!writerThreads.contains(thread)) {
+            writerThreads.add(thread);
+        }
+        return staging != null ? staging : committed;
+    }
+
+    @Override
+    public synchronized void appendEvent(long timestamp, String provider, String modelId, String modelName,
+            int promptTokens, int responseTokens, int totalTokens, boolean success, String error) {
+        Totals t = target();
+        if (success) {
+            t.successes++;
+        } else {
+            t.failures++;
+        }
+        t.promptTokens += promptTokens;
+        t.responseTokens += responseTokens;
+        t.totalTokens += totalTokens;
+    }
+
+    @Override
+    public synchronized void appendLog(long timestamp, String level, String tag, String message, String details) {
+        target().logs++;
+    }
+
+    @Override
+    public synchronized void runInTransaction(Runnable writes) {
+        transactions++;
+        if (failuresLeft > 0) {
+            failuresLeft--;
+            throw new IllegalStateException("database is locked");
+        }
+        staging = committed.copy();
+        try {
+            writes.run();
+            committed = staging;
+        } finally {
+            staging = null;
+        }
+    }
+
+    @Override
+    public synchronized void resetUsage() {
+        Totals t = target();
+        long logs = t.logs;
+        Totals fresh = new Totals();
+        fresh.logs = logs;
+        if (staging != null) {
+            staging = fresh;
+        } else {
+            committed = fresh;
+        }
+    }
+
+    @Override
+    public synchronized void clearLogs() {
+        target().logs = 0;
+    }
+
+    @Override
+    public void compactBuckets(long now) {
+    }
+
+    @Override
+    public synchronized void trimHistory(int maxEvents, int maxLogs) {
+        Totals t = target();
+        t.logs = Math.min(t.logs, maxLogs);
+    }
+
+    @Override
+    public Page<UsageStats.SessionEntry> loadSessions(long beforeId, int limit) {
+        return new Page<>(new ArrayList<>(), 0, false);
+    }
+
+    @Override
+    public Page<UsageStats.LogEntry> loadLogs(long beforeId, int limit) {
+        return new Page<>(new ArrayList<>(), 0, false);
+    }
+
+    @Override
+    public synchronized long countLogs() {
+        return committed.logs;
+    }
+
+    @Override
+    public UsageStats loadUsageStats(int maxSessions, int maxLogs) {
+        return new UsageStats();
+    }
+
+    @Override
+    public UsageSeries querySeries(long from, long to, int resolution, String provider) {
+        throw new UnsupportedOperationException();
+    }
+}
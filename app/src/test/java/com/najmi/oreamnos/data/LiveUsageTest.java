@@ -0,0 +1,74 @@
+package com.najmi.oreamnos.data;
+
+import com.najmi.oreamnos.model.UsageStats;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Concurrent writers must not lose updates: once they finish, every total
+ * counts every event exactly once.
+ */
+public class LiveUsageTest {
+
+    private static final int THREADS = 8;
+    private static final int EVENTS_PER_THREAD = 5000;
+    private static final int PROMPT = 3;
+    private static final int RESPONSE = 4;
+    private static final int TOTAL = PROMPT + RESPONSE;
+
+    @Test
+    public void concurrentWritersLoseNoUpdates() throws Exception {
+        int expected = THREADS * EVENTS_PER_THREAD;
+        LiveUsage live = new LiveUsage(16, expected);
+        long timestamp = System.currentTimeMillis();
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < THREADS; t++) {
+            String provider = t % 2 == 0 ? "gemini" : "openai";
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < EVENTS_PER_THREAD; i++) {
+                        live.recordEvent(timestamp, provider, "model-" + provider, "Model", PROMPT, RESPONSE,
+                                TOTAL, true, null);
+                        live.addLog(new UsageStats.LogEntry(timestamp, UsageStats.LogEntry.LEVEL_INFO,
+                                "Test", "event " + i, null));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.start();
+        }
+
+        start.countDown();
+        assertTrue("Writers did not finish", done.await(60, TimeUnit.SECONDS));
+        assertNull(failure.get());
+
+        assertEquals(expected, live.all.successes.sum());
+        assertEquals(0, live.all.failures.sum());
+        assertEquals((long) expected * PROMPT, live.all.promptTokens.sum());
+        assertEquals((long) expected * RESPONSE, live.all.responseTokens.sum());
+        assertEquals((long) expected * TOTAL, live.all.totalTokens.sum());
+        assertEquals(expected / 2, live.providers.get("gemini").successes.sum());
+        assertEquals(expected / 2, live.providers.get("openai").successes.sum());
+
+        UsageStats stats = live.toSnapshot();
+        assertEquals(expected, stats.getTotalRequests());
+        assertEquals((long) expected * TOTAL, stats.getTotalTokens());
+        assertEquals(expected, stats.getTodayRequests());
+        assertEquals(expected, stats.getLogs().size());
+    }
+}
@@ -0,0 +1,149 @@
+package com.najmi.oreamnos.data;
+
+import com.najmi.oreamnos.model.UsageStats;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives UsageRepository from many threads at once, through its public
+ * record and reset calls, down to the store behind the writer queue.
+ */
+public class UsageRepositoryTest {
+
+    private static final int THREADS = 16;
+    private static final int CALLS_PER_THREAD = 500;
+    private static final int PROMPT = 3;
+    private static final int RESPONSE = 4;
+    private static final int TOTAL = PROMPT + RESPONSE;
+
+    /**
+     * Runs the body on THREADS threads released together, and waits for all.
+     */
+    private static void hammer(ThreadBody body) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < THREADS; t++) {
+            int index = t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    body.run(index);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        assertTrue("Threads did not finish", done.await(60, TimeUnit.SECONDS));
+        assertNull(failure.get());
+    }
+
+    private interface ThreadBody {
+        void run(int index) throws Exception;
+    }
+
+    @Test
+    public void concurrentRecordsAreExactInMemoryAndInTheStore() throws Exception {
+        int expected = THREADS * CALLS_PER_THREAD;
+        InMemoryUsageStore store = new InMemoryUsageStore();
+        UsageRepository repository = new UsageRepository(store, expected, expected);
+
+        hammer(index -> {
+            String provider = index % 2 == 0 ? "gemini" : "groq";
+            for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                repository.recordSuccess(PROMPT, RESPONSE, TOTAL, provider, provider + "-model", "Model");
+                repository.addLog(new UsageStats.LogEntry(UsageStats.LogEntry.LEVEL_INFO, "Test",
+                        "call " + i, null));
+            }
+        });
+
+        UsageStats stats = repository.getUsageStats();
+        assertEquals(expected, stats.getTotalRequests());
+        assertEquals((long) expected * PROMPT, stats.getTotalPromptTokens());
+        assertEquals((long) expected * TOTAL, stats.getTotalTokens());
+
+        // Reads flush the queue first
+        assertEquals(expected, repository.countLogs());
+        InMemoryUsageStore.Totals disk = store.totals();
+        assertEquals(expected, disk.successes);
+        assertEquals((long) expected * PROMPT, disk.promptTokens);
+        assertEquals((long) expected * RESPONSE, disk.responseTokens);
+        assertEquals((long) expected * TOTAL, disk.totalTokens);
+        assertEquals(Collections.singletonList("usage-writer"), store.writerThreads());
+    }
+
+    @Test
+    public void resetsRacingRecordsLeaveMemoryAndStoreInAgreement() throws Exception {
+        InMemoryUsageStore store = new InMemoryUsageStore();
+        UsageRepository repository = new UsageRepository(store, 1000, 1000);
+
+        hammer(index -> {
+            for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                if (index == 0 && i % 25 == 0) {
+                    repository.resetUsage();
+                } else {
+                    repository.recordSuccess(PROMPT, RESPONSE, TOTAL, "gemini", "gemini-model", "Model");
+                }
+            }
+        });
+
+        repository.countLogs();
+        UsageStats stats = repository.getUsageStats();
+        InMemoryUsageStore.Totals disk = store.totals();
+        // Every record landed on the same side of every reset in both places
+        assertEquals(stats.getTotalRequests(), disk.successes);
+        assertEquals(stats.getTotalTokens(), disk.totalTokens);
+        assertTrue(disk.successes > 0);
+    }
+
+    @Test
+    public void failedFlushIsRetriedAheadOfNewerWrites() throws Exception {
+        InMemoryUsageStore store = new InMemoryUsageStore();
+        UsageRepository repository = new UsageRepository(store, 1000, 1000);
+        store.failNextTransactions(2);
+
+        repository.recordSuccess(PROMPT, RESPONSE, TOTAL, "gemini", "gemini-model", "Model");
+        // Each read flushes on the writer thread; the first two flushes fail
+        repository.countLogs();
+        repository.countLogs();
+        assertEquals(0, store.totals().successes);
+
+        repository.resetUsage();
+        repository.recordSuccess(PROMPT, RESPONSE, TOTAL, "gemini", "gemini-model", "Model");
+        repository.countLogs();
+
+        // The retried record went in before the reset, so only the newer one is left
+        InMemoryUsageStore.Totals disk = store.totals();
+        assertEquals(1, disk.successes);
+        assertEquals(TOTAL, disk.totalTokens);
+        assertEquals(repository.getUsageStats().getTotalRequests(), disk.successes);
+    }
+
+    @Test
+    public void batchIsKeptUntilAFlushSucceeds() throws Exception {
+        InMemoryUsageStore store = new InMemoryUsageStore();
+        UsageRepository repository = new UsageRepository(store, 1000, 1000);
+        store.failNextTransactions(3);
+
+        for (int i = 0; i < 10; i++) {
+            repository.recordSuccess(PROMPT, RESPONSE, TOTAL, "gemini", "gemini-model", "Model");
+        }
+        for (int i = 0; i < 4; i++) {
+            repository.countLogs();
+        }
+
+        assertEquals(10, store.totals().successes);
+    }
+}
@@ -0,0 +1,107 @@
+package com.najmi.oreamnos.extraction;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs ReadabilityExtractor and the classic cascade over test pages.
+ *
+ * Each page in resources/articles has an .html file, a .txt file with the
+ * story's paragraphs separated by blank lines, and a .noise.txt file with
+ * one line per piece of page furniture (menus, cookie banners, promos).
+ * Readability must return every paragraph as a paragraph of its own and
+ * leave out all the furniture; the classic cascade must find every
+ * paragraph on pages that keep their story in <p> tags.
+ */
+public class ExtractorTest {
+
+    // club-statement keeps its story in divs split with <br>
+    private static final String[] PAGES = {"news-story", "blog-post", "match-report", "club-statement"};
+    // The classic cascade only finds <p> paragraphs
+    private static final String[] CLASSIC_PAGES = {"news-story", "blog-post", "match-report"};
+
+    @Test
+    public void readabilityFindsStoryWithoutFurniture() throws IOException {
+        for (String page : PAGES) {
+            String extracted = ReadabilityExtractor.extract(parse(page));
+            assertNotNull(page + ": Readability found nothing", extracted);
+            String text = normalize(extracted);
+
+            List<String> blocks = new ArrayList<>();
+            for (String block : extracted.split("\\n\\s*\\n")) {
+                blocks.add(normalize(block));
+            }
+            for (String paragraph : paragraphs(page)) {
+                assertTrue(page + ": Readability missed \"" + paragraph + "\"", blocks.contains(paragraph));
+            }
+            for (String noise : lines(page + ".noise.txt")) {
+                assertTrue(page + ": Readability kept \"" + noise + "\"", !text.contains(noise));
+            }
+        }
+    }
+
+    @Test
+    public void classicFindsStory() throws IOException {
+        for (String page : CLASSIC_PAGES) {
+            String text = normalize(ClassicExtractor.extract(parse(page)));
+            assertNotNull(page + ": classic found nothing", text);
+
+            for (String paragraph : paragraphs(page)) {
+                assertTrue(page + ": classic missed \"" + paragraph + "\"", text.contains(paragraph));
+            }
+        }
+    }
+
+    private Document parse(String page) throws IOException {
+        return Jsoup.parse(resource(page + ".html"), "https://example.com/" + page);
+    }
+
+    private List<String> paragraphs(String page) throws IOException {
+        List<String> result = new ArrayList<>();
+        for (String block : resource(page + ".txt").split("\\n\\s*\\n")) {
+            String paragraph = normalize(block);
+            if (!paragraph.isEmpty()) {
+                result.add(paragraph);
+            }
+        }
+        return result;
+    }
+
+    private List<String> lines(String name) throws IOException {
+        List<String> result = new ArrayList<>();
+        for (String line : resource(name).split("\\n")) {
+            if (!line.trim().isEmpty()) {
+                result.add(line.trim());
+            }
+        }
+        return result;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? null : text.replaceAll("\\s+", " ").trim();
+    }
+
+    private String resource(String name) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/articles/" + name)) {
+            assertNotNull("Missing test resource " + name, in);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}